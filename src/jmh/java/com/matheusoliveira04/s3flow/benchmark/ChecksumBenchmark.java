@@ -0,0 +1,43 @@
+package com.matheusoliveira04.s3flow.benchmark;
+
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the upload checksum per algorithm and part size. Divide the part size by the average time
+ * for throughput; the same comparison is available in production from {@code s3flow.checksum.*}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"CRC32C", "SHA256"})
+    public String algorithm;
+
+    @Param({"64KB", "8MB"})
+    public String partSize;
+
+    private ChecksumCalculator checksumCalculator;
+    private byte[] part;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        checksumCalculator = new ChecksumCalculator(new SimpleMeterRegistry(), algorithm);
+        part = new byte[Math.toIntExact(DataSize.parse(partSize).toBytes())];
+        ThreadLocalRandom.current().nextBytes(part);
+    }
+
+    @Benchmark
+    public ChecksumCalculator.Checksum compute() {
+        return checksumCalculator.compute(part, part.length);
+    }
+}
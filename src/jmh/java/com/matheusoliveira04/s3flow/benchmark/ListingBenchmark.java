@@ -0,0 +1,61 @@
+package com.matheusoliveira04.s3flow.benchmark;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.service.S3Service;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Listing paths of {@link S3Service} against {@link LocalS3Server}, by number of keys under the prefix.
+ * The service is used without Spring proxies, so {@code listAll} is measured uncached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBenchmark {
+
+    @Param({"100", "10000"})
+    public int keyCount;
+
+    private LocalS3Server server;
+    private S3Client s3Client;
+    private S3TaskExecutor s3TaskExecutor;
+    private S3Service s3Service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new LocalS3Server();
+        s3Client = server.newClient();
+        s3TaskExecutor = new S3TaskExecutor(32, false);
+        s3Service = S3ServiceBenchmark.newS3Service(s3Client, s3TaskExecutor);
+        IntStream.range(0, keyCount).forEach(i -> server.put("listing/" + i, new byte[0]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        s3Client.close();
+        s3TaskExecutor.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public List<String> listAll() {
+        return s3Service.listAll("listing/", null);
+    }
+
+    @Benchmark
+    public long streamKeys() {
+        try (Stream<String> keys = s3Service.streamKeys("listing/", null)) {
+            return keys.count();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.matheusoliveira04.s3flow.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory stand-in for the subset of the S3 REST API that {@code S3Service} uses, served on a
+ * loopback port so benchmarks measure the client side without any network. Requests are expected in
+ * path style ({@code /bucket/key}). Only one bucket is modelled and the bucket name is ignored.
+ */
+final class LocalS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    LocalS3Server() throws IOException {
+        // headers and body go out as separate writes; without this, delayed ACKs add ~40ms per request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    /**
+     * A synchronous client pointed at this server with path-style addressing and dummy credentials.
+     */
+    S3Client newClient() {
+        return S3Client.builder()
+                .endpointOverride(endpoint())
+                .forcePathStyle(true)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("benchmark", "benchmark")))
+                .httpClient(ApacheHttpClient.builder().maxConnections(64).build())
+                .build();
+    }
+
+    void put(String key, byte[] content) {
+        objects.put(key, content);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            URI uri = exchange.getRequestURI();
+            String path = uri.getPath();
+            int slash = path.indexOf('/', 1);
+            String key = slash < 0 ? "" : path.substring(slash + 1);
+            MultiValueMap<String, String> query = UriComponentsBuilder.fromUri(uri).build(true).getQueryParams();
+            String method = exchange.getRequestMethod();
+
+            if (key.isEmpty() && "GET".equals(method)) {
+                list(exchange, query);
+            } else if ("PUT".equals(method) && query.containsKey("partNumber")) {
+                uploads.get(query.getFirst("uploadId")).put(Integer.parseInt(query.getFirst("partNumber")), readBody(exchange));
+                exchange.getResponseHeaders().add("ETag", "\"" + UUID.randomUUID() + "\"");
+                send(exchange, 200, new byte[0]);
+            } else if ("PUT".equals(method)) {
+                objects.put(key, readBody(exchange));
+                exchange.getResponseHeaders().add("ETag", "\"" + UUID.randomUUID() + "\"");
+                send(exchange, 200, new byte[0]);
+            } else if ("POST".equals(method) && query.containsKey("uploads")) {
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new ConcurrentSkipListMap<>());
+                sendXml(exchange, "<InitiateMultipartUploadResult><Key>" + key + "</Key><UploadId>" + uploadId
+                        + "</UploadId></InitiateMultipartUploadResult>");
+            } else if ("POST".equals(method) && query.containsKey("uploadId")) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                var content = new ByteArrayOutputStream();
+                for (byte[] part : uploads.remove(query.getFirst("uploadId")).values()) {
+                    content.writeBytes(part);
+                }
+                objects.put(key, content.toByteArray());
+                sendXml(exchange, "<CompleteMultipartUploadResult><Key>" + key + "</Key><ETag>\"" + UUID.randomUUID()
+                        + "\"</ETag></CompleteMultipartUploadResult>");
+            } else if ("DELETE".equals(method) && query.containsKey("uploadId")) {
+                uploads.remove(query.getFirst("uploadId"));
+                send(exchange, 204, null);
+            } else if ("DELETE".equals(method)) {
+                objects.remove(key);
+                send(exchange, 204, null);
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                byte[] content = objects.get(key);
+                if (content == null) {
+                    sendXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>");
+                    return;
+                }
+                exchange.getResponseHeaders().add("ETag", "\"" + content.length + "\"");
+                exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    send(exchange, 200, content);
+                }
+            } else {
+                send(exchange, 501, null);
+            }
+        }
+    }
+
+    private void list(HttpExchange exchange, MultiValueMap<String, String> query) throws IOException {
+        String prefix = query.getFirst("prefix") == null ? "" : decode(query.getFirst("prefix"));
+        String token = query.getFirst("continuation-token") == null ? null : decode(query.getFirst("continuation-token"));
+        int maxKeys = query.getFirst("max-keys") == null ? 1000 : Integer.parseInt(query.getFirst("max-keys"));
+        NavigableMap<String, byte[]> candidates = token == null ? objects.tailMap(prefix, true) : objects.tailMap(token, false);
+
+        var xml = new StringBuilder("<ListBucketResult>");
+        int count = 0;
+        String lastKey = null;
+        boolean truncated = false;
+        for (var entry : candidates.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            xml.append("<Contents><Key>").append(entry.getKey()).append("</Key><Size>")
+                    .append(entry.getValue().length).append("</Size></Contents>");
+            lastKey = entry.getKey();
+            count++;
+        }
+        xml.append("<KeyCount>").append(count).append("</KeyCount><IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(lastKey).append("</NextContinuationToken>");
+        }
+        sendXml(exchange, xml.append("</ListBucketResult>").toString());
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the request payload, undoing the {@code aws-chunked} framing the SDK applies to streaming
+     * uploads over plain HTTP.
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (sha256 == null || !sha256.startsWith("STREAMING-")) {
+            return body.readAllBytes();
+        }
+        var content = new ByteArrayOutputStream();
+        while (true) {
+            String header = readLine(body);
+            int size = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+            if (size == 0) {
+                body.transferTo(OutputStream.nullOutputStream());
+                return content.toByteArray();
+            }
+            content.writeBytes(body.readNBytes(size));
+            readLine(body);
+        }
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        var line = new ByteArrayOutputStream();
+        for (int b = inputStream.read(); b != -1 && b != '\n'; b = inputStream.read()) {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        sendXml(exchange, 200, xml);
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        send(exchange, status, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        exchange.getResponseBody().write(body);
+    }
+}
@@ -0,0 +1,98 @@
+package com.matheusoliveira04.s3flow.benchmark;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator;
+import com.matheusoliveira04.s3flow.service.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link S3Service} against {@link LocalS3Server}. Throughput and sampled latency
+ * percentiles are reported for every operation; run with {@code -prof gc} for allocation per operation
+ * and with {@code -t <threads>} to vary concurrency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3ServiceBenchmark {
+
+    private static final String DOWNLOAD_KEY = "download.bin";
+
+    @Param({"1KB", "1MB", "16MB"})
+    public String objectSize;
+
+    private LocalS3Server server;
+    private S3Client s3Client;
+    private S3TaskExecutor s3TaskExecutor;
+    private S3Service s3Service;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new LocalS3Server();
+        s3Client = server.newClient();
+        s3TaskExecutor = new S3TaskExecutor(32, false);
+        s3Service = newS3Service(s3Client, s3TaskExecutor);
+
+        content = new byte[Math.toIntExact(DataSize.parse(objectSize).toBytes())];
+        ThreadLocalRandom.current().nextBytes(content);
+        server.put(DOWNLOAD_KEY, content);
+    }
+
+    static S3Service newS3Service(S3Client s3Client, S3TaskExecutor s3TaskExecutor) {
+        S3Service s3Service = new S3Service(s3Client, s3TaskExecutor, event -> { },
+                new ChecksumCalculator(new SimpleMeterRegistry(), "CRC32C"));
+        DirectFieldAccessor fields = new DirectFieldAccessor(s3Service);
+        fields.setPropertyValue("bucketName", "benchmark");
+        fields.setPropertyValue("partSize", DataSize.ofMegabytes(8));
+        return s3Service;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        s3Client.close();
+        s3TaskExecutor.shutdown();
+        server.close();
+    }
+
+    /**
+     * {@code uploadFile} only wraps the part's input stream, so the stream entry point is measured directly.
+     */
+    @Benchmark
+    public void upload() throws IOException {
+        s3Service.uploadStream("upload-" + Thread.currentThread().threadId(), "application/octet-stream",
+                new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public Resource downloadFile() {
+        return s3Service.downloadFile(DOWNLOAD_KEY);
+    }
+
+    @Benchmark
+    public long openDownload() throws IOException {
+        try (ResponseInputStream<GetObjectResponse> object = s3Service.openDownload(DOWNLOAD_KEY)) {
+            return object.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void deleteFile() {
+        s3Service.deleteFile("delete-" + Thread.currentThread().threadId());
+    }
+}
@@ -2,8 +2,10 @@ package com.matheusoliveira04.s3flow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class S3flowApplication {
 
 	public static void main(String[] args) {
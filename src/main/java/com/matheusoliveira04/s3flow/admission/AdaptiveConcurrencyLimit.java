@@ -0,0 +1,135 @@
+package com.matheusoliveira04.s3flow.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The global request limit of {@link AdmissionControlFilter}, adjusted from the SDK's report of every
+ * S3 call. Each call that succeeds raises the limit by {@code 1 / limit}, so about one per limit's
+ * worth of calls. A call with a throttled attempt (503 SlowDown) multiplies it by
+ * {@code s3flow.admission.backoff-ratio}, at most once per second so that one burst of slow calls
+ * counts once. So does a GetObject, HeadObject or ListObjectsV2 whose first byte takes longer than
+ * {@code s3flow.admission.latency-target}; for uploads the first byte only comes after the whole body
+ * has been sent, so their latency says nothing about how loaded S3 is. The limit stays between
+ * {@code s3flow.admission.min-concurrency} and {@code s3flow.admission.max-concurrency}, and starts at
+ * the maximum.
+ */
+@Component
+public class AdaptiveConcurrencyLimit implements MetricPublisher {
+
+    private static final String ATTEMPT = "ApiCallAttempt";
+    private static final String THROTTLING = "Throttling";
+    private static final Set<String> LATENCY_SENSITIVE = Set.of("GetObject", "HeadObject", "ListObjectsV2");
+    private static final long DECREASE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${s3flow.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.admission.min-concurrency:8}")
+    private int minConcurrency;
+
+    @Value("${s3flow.admission.max-concurrency:150}")
+    private int maxConcurrency;
+
+    @Value("${s3flow.admission.latency-target:1s}")
+    private Duration latencyTarget;
+
+    @Value("${s3flow.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double limit;
+    private long lastDecrease;
+    private volatile int current;
+
+    public AdaptiveConcurrencyLimit(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void initialize() {
+        limit = maxConcurrency;
+        current = maxConcurrency;
+        lastDecrease = System.nanoTime() - DECREASE_INTERVAL;
+        Gauge.builder("s3flow.admission.limit", this, AdaptiveConcurrencyLimit::current)
+                .description("Requests admitted at once across all clients")
+                .register(meterRegistry);
+    }
+
+    public int current() {
+        return current;
+    }
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        if (!enabled) {
+            return;
+        }
+        List<MetricCollection> attempts = metrics.children().stream()
+                .filter(child -> ATTEMPT.equals(child.name()))
+                .toList();
+        if (attempts.stream().anyMatch(attempt -> attempt.metricValues(CoreMetric.ERROR_TYPE).contains(THROTTLING))) {
+            decrease();
+            return;
+        }
+        List<Boolean> successful = metrics.metricValues(CoreMetric.API_CALL_SUCCESSFUL);
+        if (successful.isEmpty() || !successful.getFirst() || attempts.isEmpty()) {
+            // a missing key or a denied request says nothing about how loaded S3 is
+            return;
+        }
+        List<Duration> timeToFirstByte = attempts.getLast().metricValues(CoreMetric.TIME_TO_FIRST_BYTE);
+        if (isLatencySensitive(metrics) && !timeToFirstByte.isEmpty() && timeToFirstByte.getFirst().compareTo(latencyTarget) > 0) {
+            decrease();
+        } else {
+            increase();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static boolean isLatencySensitive(MetricCollection metrics) {
+        List<String> operation = metrics.metricValues(CoreMetric.OPERATION_NAME);
+        return !operation.isEmpty() && LATENCY_SENSITIVE.contains(operation.getFirst());
+    }
+
+    private void increase() {
+        lock.lock();
+        try {
+            limit = Math.min(maxConcurrency, limit + 1 / limit);
+            current = (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - lastDecrease < DECREASE_INTERVAL) {
+                return;
+            }
+            lastDecrease = now;
+            limit = Math.max(minConcurrency, limit * backoffRatio);
+            current = (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.matheusoliveira04.s3flow.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matheusoliveira04.s3flow.concurrent.TokenBucket;
+import com.matheusoliveira04.s3flow.exceptions.StandardError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control in front of the {@code /v1/} API. A request is let in only while its client has
+ * fewer than {@code s3flow.admission.per-client-concurrency} requests in progress and all clients
+ * together stay below the {@link AdaptiveConcurrencyLimit}; otherwise it is answered at once with 429
+ * and {@code Retry-After} instead of queueing for a Tomcat thread or an S3 connection. A request holds
+ * its place until its response is complete, including streamed downloads that finish asynchronously.
+ * <p>
+ * Clients are told apart by remote address. Behind a proxy that sets its own client header,
+ * {@code s3flow.admission.trusted-client-header} names that header and its value is used instead;
+ * leave it empty otherwise, since clients can send any value they like. With
+ * {@code s3flow.admission.per-client-bandwidth} set, the request and response bodies of each client
+ * share a token bucket of that many bytes per second. Multipart form uploads are parsed by the
+ * container before this filter sees their bytes, so only raw request bodies are shaped.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String API_PATH = "/v1/";
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${s3flow.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.admission.trusted-client-header:}")
+    private String trustedClientHeader;
+
+    @Value("${s3flow.admission.per-client-concurrency:16}")
+    private int perClientConcurrency;
+
+    @Value("${s3flow.admission.per-client-bandwidth:0B}")
+    private DataSize perClientBandwidth;
+
+    @Value("${s3flow.admission.retry-after:1s}")
+    private Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Integer> inFlightByClient = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public AdmissionControlFilter(AdaptiveConcurrencyLimit concurrencyLimit, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientId(request);
+        if (!acquireClient(client)) {
+            reject(request, response, "client", "Too many concurrent requests from this client.");
+            return;
+        }
+        if (inFlight.incrementAndGet() > concurrencyLimit.current()) {
+            inFlight.decrementAndGet();
+            releaseClient(client);
+            reject(request, response, "global", "Too many concurrent requests, try again later.");
+            return;
+        }
+
+        Runnable release = new Release(client);
+        boolean async = false;
+        try {
+            if (perClientBandwidth.toBytes() > 0) {
+                TokenBucket bucket = buckets.get(client, key -> new TokenBucket(perClientBandwidth.toBytes()));
+                filterChain.doFilter(new ThrottledRequest(request, bucket), new ThrottledResponse(response, bucket));
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release.run();
+            }
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (!StringUtils.hasText(trustedClientHeader)) {
+            return request.getRemoteAddr();
+        }
+        String client = request.getHeader(trustedClientHeader);
+        return StringUtils.hasText(client) ? client : request.getRemoteAddr();
+    }
+
+    private boolean acquireClient(String client) {
+        AtomicBoolean acquired = new AtomicBoolean();
+        inFlightByClient.compute(client, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= perClientConcurrency) {
+                return count;
+            }
+            acquired.set(true);
+            return current + 1;
+        });
+        return acquired.get();
+    }
+
+    private void releaseClient(String client) {
+        inFlightByClient.computeIfPresent(client, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, String reason, String message)
+            throws IOException {
+        Counter.builder("s3flow.admission.rejected")
+                .description("Requests turned away by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new StandardError(LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(), request.getRequestURI(), List.of(message)));
+    }
+
+    /**
+     * Gives back the places a request holds, once, whichever of the request thread and the async
+     * completion gets there.
+     */
+    private final class Release implements Runnable {
+
+        private final String client;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Release(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                releaseClient(client);
+            }
+        }
+    }
+
+    private record ReleaseOnComplete(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static final class ThrottledRequest extends HttpServletRequestWrapper {
+
+        private final TokenBucket bucket;
+        private ServletInputStream inputStream;
+
+        private ThrottledRequest(HttpServletRequest request, TokenBucket bucket) {
+            super(request);
+            this.bucket = bucket;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new ThrottledInputStream(super.getInputStream(), bucket);
+            }
+            return inputStream;
+        }
+    }
+
+    private static final class ThrottledResponse extends HttpServletResponseWrapper {
+
+        private final TokenBucket bucket;
+        private ServletOutputStream outputStream;
+
+        private ThrottledResponse(HttpServletResponse response, TokenBucket bucket) {
+            super(response);
+            this.bucket = bucket;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new ThrottledOutputStream(super.getOutputStream(), bucket);
+            }
+            return outputStream;
+        }
+    }
+
+    private static final class ThrottledInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final TokenBucket bucket;
+
+        private ThrottledInputStream(ServletInputStream delegate, TokenBucket bucket) {
+            this.delegate = delegate;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = delegate.read();
+            if (read != -1) {
+                bucket.acquire(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                bucket.acquire(read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class ThrottledOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final TokenBucket bucket;
+
+        private ThrottledOutputStream(ServletOutputStream delegate, TokenBucket bucket) {
+            this.delegate = delegate;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            bucket.acquire(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            bucket.acquire(length);
+            delegate.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on the {@link S3TaskExecutor} with at most {@code size} of them in flight. {@link #submit}
+ * blocks while the window is full, which pushes back on whatever produces the tasks. The first task
+ * failure is rethrown by the next {@link #submit} or by {@link #await}; closing the window cancels
+ * anything still running.
+ */
+public class BoundedTaskWindow implements AutoCloseable {
+
+    private final S3TaskExecutor s3TaskExecutor;
+    private final Semaphore permits;
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public BoundedTaskWindow(S3TaskExecutor s3TaskExecutor, int size) {
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.permits = new Semaphore(size);
+    }
+
+    public void submit(Runnable task) throws IOException {
+        rethrowFailure();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free slot");
+        }
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    permits.release();
+                }
+            }, s3TaskExecutor.executorService());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        pending.add(future);
+        future.whenComplete((unused, throwable) -> pending.remove(future));
+    }
+
+    /**
+     * Waits until every submitted task has finished.
+     */
+    public void await() throws IOException {
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pending tasks");
+        } catch (ExecutionException e) {
+            // recorded by the task itself
+        }
+        rethrowFailure();
+    }
+
+    @Override
+    public void close() {
+        pending.forEach(future -> future.cancel(true));
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable throwable = failure.get();
+        if (throwable == null) {
+            return;
+        }
+        if (throwable instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (throwable instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new IOException(throwable);
+    }
+}
@@ -0,0 +1,72 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier longer than the configured threshold,
+ * typically a blocking call made while holding a monitor (a {@code synchronized} block in the SDK or
+ * its HTTP connection pool). Each occurrence is counted in {@code s3flow.virtual.pinned} and logged
+ * with the top of its stack so the offending lock can be found.
+ */
+@Component
+@ConditionalOnProperty(name = "s3flow.virtual-threads.pinning-monitor.enabled", havingValue = "true")
+public class PinnedThreadMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final RecordingStream recordingStream = new RecordingStream();
+    private final Counter pinnedCounter;
+
+    public PinnedThreadMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${s3flow.virtual-threads.pinning-monitor.threshold:20ms}") Duration threshold
+    ) {
+        this.pinnedCounter = Counter.builder("s3flow.virtual.pinned")
+                .description("Virtual threads pinned to their carrier longer than the monitor threshold")
+                .register(meterRegistry);
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    }
+
+    @PostConstruct
+    void start() {
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        if (log.isWarnEnabled()) {
+            String frames = event.getStackTrace() == null ? "<no stack trace>" : event.getStackTrace().getFrames().stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(PinnedThreadMonitor::format)
+                    .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+            log.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), frames);
+        }
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
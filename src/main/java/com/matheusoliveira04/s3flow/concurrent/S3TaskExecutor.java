@@ -0,0 +1,70 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor for S3 fan-out work (ranged GETs, batch calls, listing prefetch). Kept apart from the MVC
+ * task executor so concurrent S3 calls cannot starve streaming responses, and not exposed as an
+ * {@code Executor} bean so it does not replace Spring Boot's {@code applicationTaskExecutor}.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} every task gets its own virtual thread. Each caller bounds
+ * its own tasks in flight, but many callers together could still open more S3 calls than the HTTP
+ * connection pool holds, so tasks share {@code s3flow.executor.max-threads} permits and queue on a
+ * permit instead of on a pool thread.
+ */
+@Component
+public class S3TaskExecutor {
+
+    private final ExecutorService executorService;
+
+    public S3TaskExecutor(
+            @Value("${s3flow.executor.max-threads:32}") int maxThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        if (virtualThreads) {
+            this.executorService = Executors.newThreadPerTaskExecutor(
+                    limited(Thread.ofVirtual().name("s3-task-", 1).factory(), new Semaphore(maxThreads)));
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(maxThreads, runnable -> {
+            Thread thread = new Thread(runnable, "s3-task-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ThreadFactory limited(ThreadFactory factory, Semaphore permits) {
+        return runnable -> factory.newThread(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                runnable.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executorService);
+    }
+
+    public ExecutorService executorService() {
+        return executorService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
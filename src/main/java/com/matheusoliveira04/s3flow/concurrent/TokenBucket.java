@@ -0,0 +1,61 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out {@code permitsPerSecond} permits per second, allowing bursts of up to one second's worth.
+ * A caller asking for more than is available takes the permits at once and pays the shortfall by
+ * waiting, so a large read is never split up and callers that come after it wait behind it.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier nanoTime;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double available;
+    private long updatedAt;
+
+    public TokenBucket(long permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(long permitsPerSecond, LongSupplier nanoTime) {
+        this.permitsPerNano = permitsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacity = permitsPerSecond;
+        this.nanoTime = nanoTime;
+        this.available = capacity;
+        this.updatedAt = nanoTime.getAsLong();
+    }
+
+    public void acquire(long permits) throws InterruptedIOException {
+        long wait = reserve(permits);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+        }
+    }
+
+    /**
+     * Takes {@code permits} and returns how many nanoseconds the caller has to wait before using them.
+     */
+    long reserve(long permits) {
+        lock.lock();
+        try {
+            long now = nanoTime.getAsLong();
+            available = Math.min(capacity, available + (now - updatedAt) * permitsPerNano);
+            updatedAt = now;
+            available -= permits;
+            return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.matheusoliveira04.s3flow.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matheusoliveira04.s3flow.dto.ListPage;
+import com.matheusoliveira04.s3flow.dto.PresignedUrl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Listing, HeadObject and presigned URL results are cached through Spring's cache abstraction, so the
+ * backing store can be swapped with {@code spring.cache.type}. With the default Caffeine store the entries are bounded
+ * by an approximate byte weight and evicted with W-TinyLFU.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String LISTINGS = "s3Listings";
+    public static final String OBJECT_METADATA = "s3ObjectMetadata";
+    public static final String PRESIGNED_URLS = "s3PresignedUrls";
+
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int METADATA_WEIGHT = 512;
+
+    @Bean
+    public Caffeine<Object, Object> caffeine(
+            @Value("${s3flow.cache.ttl:30s}") Duration ttl,
+            @Value("${s3flow.cache.max-size:32MB}") DataSize maxSize
+    ) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxSize.toBytes())
+                .weigher(CacheConfig::weigh)
+                .recordStats();
+    }
+
+    private static int weigh(Object key, Object value) {
+        if (value instanceof ListPage page) {
+            return weighKeys(page.keys());
+        }
+        if (value instanceof Collection<?> keys) {
+            return weighKeys(keys);
+        }
+        if (value instanceof PresignedUrl presignedUrl) {
+            return METADATA_WEIGHT + 2 * presignedUrl.url().length();
+        }
+        return METADATA_WEIGHT;
+    }
+
+    private static int weighKeys(Collection<?> keys) {
+        long weight = ENTRY_OVERHEAD;
+        for (Object key : keys) {
+            weight += ENTRY_OVERHEAD + 2L * key.toString().length();
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
@@ -1,14 +1,33 @@
 package com.matheusoliveira04.s3flow.config;
 
+import com.matheusoliveira04.s3flow.admission.AdaptiveConcurrencyLimit;
+import com.matheusoliveira04.s3flow.metrics.S3MetricPublisher;
+import com.matheusoliveira04.s3flow.metrics.S3TransferInterceptor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
 
 @Configuration
 public class S3Config {
@@ -16,25 +35,189 @@ public class S3Config {
     @Value("${cloud.aws.region.static}")
     private String region;
 
-    @Bean("s3Client")
+    @Value("${cloud.aws.http.client:apache}")
+    private String httpClient;
+
+    @Value("${cloud.aws.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${cloud.aws.http.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${cloud.aws.http.connection-acquisition-timeout:10s}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${cloud.aws.http.socket-timeout:30s}")
+    private Duration socketTimeout;
+
+    @Value("${cloud.aws.http.connection-time-to-live:0s}")
+    private Duration connectionTimeToLive;
+
+    @Value("${cloud.aws.http.connection-max-idle-time:60s}")
+    private Duration connectionMaxIdleTime;
+
+    @Value("${cloud.aws.http.reap-idle-connections:true}")
+    private boolean reapIdleConnections;
+
+    @Value("${cloud.aws.http.tcp-keep-alive:false}")
+    private boolean tcpKeepAlive;
+
+    @Value("${cloud.aws.timeout.api-call:0s}")
+    private Duration apiCallTimeout;
+
+    @Value("${cloud.aws.timeout.api-call-attempt:0s}")
+    private Duration apiCallAttemptTimeout;
+
+    @Value("${cloud.aws.retry.mode:standard}")
+    private String retryMode;
+
+    @Value("${cloud.aws.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${cloud.aws.retry.base-delay:100ms}")
+    private Duration retryBaseDelay;
+
+    @Value("${cloud.aws.retry.max-backoff:20s}")
+    private Duration retryMaxBackoff;
+
+    @Bean("awsCredentialsProvider")
     @Profile("local")
-    public S3Client s3Client(
+    public AwsCredentialsProvider awsCredentialsProvider(
             @Value("${cloud.aws.credentials.access-key}") String accessKey,
             @Value("${cloud.aws.credentials.secret-key}") String secretKey
     ) {
         AwsBasicCredentials awsBasicCredentials = AwsBasicCredentials.create(accessKey, secretKey);
+        return StaticCredentialsProvider.create(awsBasicCredentials);
+    }
+
+    @Bean("awsCredentialsProvider")
+    @Profile("dev")
+    public AwsCredentialsProvider awsCredentialsProviderDev() {
+        return DefaultCredentialsProvider.create();
+    }
+
+    @Bean("s3Client")
+    public S3Client s3Client(AwsCredentialsProvider awsCredentialsProvider, S3MetricPublisher metricPublisher,
+                             S3TransferInterceptor transferInterceptor, AdaptiveConcurrencyLimit concurrencyLimit) {
         return S3Client.builder()
                 .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(awsBasicCredentials))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(buildHttpClient())
+                .overrideConfiguration(buildOverrideConfiguration(metricPublisher, transferInterceptor, concurrencyLimit))
                 .build();
     }
 
-    @Bean("s3Client")
-    @Profile("dev")
-    public S3Client s3ClientDev() {
-        return S3Client.builder()
+    @Bean("s3AsyncClient")
+    @ConditionalOnProperty(name = "s3flow.async.enabled", havingValue = "true")
+    public S3AsyncClient s3AsyncClient(
+            AwsCredentialsProvider awsCredentialsProvider,
+            S3MetricPublisher metricPublisher,
+            S3TransferInterceptor transferInterceptor,
+            AdaptiveConcurrencyLimit concurrencyLimit,
+            @Value("${s3flow.async.crt.enabled:false}") boolean crtEnabled,
+            @Value("${s3flow.async.crt.target-throughput-gbps:10.0}") double targetThroughputInGbps,
+            @Value("${s3flow.async.max-concurrency:64}") int maxConcurrency
+    ) {
+        if (crtEnabled) {
+            // the CRT client has no override configuration, so SDK metrics are not published for it
+            return S3AsyncClient.crtBuilder()
+                    .region(Region.of(region))
+                    .credentialsProvider(awsCredentialsProvider)
+                    .targetThroughputInGbps(targetThroughputInGbps)
+                    .maxConcurrency(maxConcurrency)
+                    .build();
+        }
+        return S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .connectionTimeout(connectionTimeout)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                        .readTimeout(socketTimeout)
+                        .writeTimeout(socketTimeout)
+                        .connectionTimeToLive(connectionTimeToLive)
+                        .connectionMaxIdleTime(connectionMaxIdleTime)
+                        .useIdleConnectionReaper(reapIdleConnections)
+                        .tcpKeepAlive(tcpKeepAlive))
+                .overrideConfiguration(buildOverrideConfiguration(metricPublisher, transferInterceptor, concurrencyLimit))
+                .build();
+    }
+
+    @Bean("s3Presigner")
+    public S3Presigner s3Presigner(AwsCredentialsProvider awsCredentialsProvider) {
+        return S3Presigner.builder()
                 .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
+                .credentialsProvider(awsCredentialsProvider)
                 .build();
     }
+
+    private SdkHttpClient buildHttpClient() {
+        return switch (httpClient) {
+            case "apache" -> ApacheHttpClient.builder()
+                    .maxConnections(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                    .socketTimeout(socketTimeout)
+                    .connectionTimeToLive(connectionTimeToLive)
+                    .connectionMaxIdleTime(connectionMaxIdleTime)
+                    .useIdleConnectionReaper(reapIdleConnections)
+                    .tcpKeepAlive(tcpKeepAlive)
+                    .build();
+            case "url-connection" -> UrlConnectionHttpClient.builder()
+                    .connectionTimeout(connectionTimeout)
+                    .socketTimeout(socketTimeout)
+                    .build();
+            case "crt" -> {
+                AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                        .connectionMaxIdleTime(connectionMaxIdleTime);
+                if (tcpKeepAlive) {
+                    builder.tcpKeepAliveConfiguration(TcpKeepAliveConfiguration.builder()
+                            .keepAliveInterval(Duration.ofSeconds(30))
+                            .keepAliveTimeout(Duration.ofSeconds(10))
+                            .build());
+                }
+                yield builder.build();
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unsupported cloud.aws.http.client '" + httpClient + "', expected apache, url-connection or crt");
+        };
+    }
+
+    private ClientOverrideConfiguration buildOverrideConfiguration(S3MetricPublisher metricPublisher,
+                                                                   S3TransferInterceptor transferInterceptor,
+                                                                   AdaptiveConcurrencyLimit concurrencyLimit) {
+        ClientOverrideConfiguration.Builder builder = ClientOverrideConfiguration.builder()
+                .retryStrategy(buildRetryStrategy())
+                .addMetricPublisher(metricPublisher)
+                .addMetricPublisher(concurrencyLimit)
+                .addExecutionInterceptor(transferInterceptor);
+        if (!apiCallTimeout.isZero()) {
+            builder.apiCallTimeout(apiCallTimeout);
+        }
+        if (!apiCallAttemptTimeout.isZero()) {
+            builder.apiCallAttemptTimeout(apiCallAttemptTimeout);
+        }
+        return builder.build();
+    }
+
+    private RetryStrategy buildRetryStrategy() {
+        BackoffStrategy backoff = BackoffStrategy.exponentialDelay(retryBaseDelay, retryMaxBackoff);
+        return switch (retryMode) {
+            case "standard" -> AwsRetryStrategy.standardRetryStrategy().toBuilder()
+                    .maxAttempts(retryMaxAttempts)
+                    .backoffStrategy(backoff)
+                    .build();
+            case "adaptive" -> AwsRetryStrategy.adaptiveRetryStrategy().toBuilder()
+                    .maxAttempts(retryMaxAttempts)
+                    .backoffStrategy(backoff)
+                    .build();
+            case "none" -> AwsRetryStrategy.doNotRetry();
+            default -> throw new IllegalArgumentException(
+                    "Unsupported cloud.aws.retry.mode '" + retryMode + "', expected standard, adaptive or none");
+        };
+    }
 }
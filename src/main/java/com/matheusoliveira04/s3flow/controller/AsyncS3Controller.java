@@ -0,0 +1,77 @@
+package com.matheusoliveira04.s3flow.controller;
+
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import com.matheusoliveira04.s3flow.service.AsyncS3Service;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Same operations as {@link S3Controller} on top of {@link AsyncS3Service}. Handlers return a
+ * {@link CompletableFuture}, so the servlet request thread goes back to the pool while S3 answers.
+ */
+@RestController
+@RequestMapping("/v1/s3bucket/async")
+@ConditionalOnProperty(name = "s3flow.async.enabled", havingValue = "true")
+public class AsyncS3Controller {
+
+    private AsyncS3Service asyncS3Service;
+
+    private BufferPool bufferPool;
+
+    public AsyncS3Controller(AsyncS3Service asyncS3Service, BufferPool bufferPool) {
+        this.asyncS3Service = asyncS3Service;
+        this.bufferPool = bufferPool;
+    }
+
+    @PostMapping("/upload")
+    public CompletableFuture<ResponseEntity<String>> upload(@RequestParam MultipartFile file) throws IOException {
+        return asyncS3Service.uploadFile(file)
+                .thenApply(unused -> ResponseEntity.ok("File uploaded successfully"));
+    }
+
+    @GetMapping("/download/{filename}")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> download(@PathVariable String filename) {
+        return asyncS3Service.downloadFile(filename)
+                .thenApply(object -> {
+                    GetObjectResponse objectResponse = object.response();
+                    var response = ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                            .contentType(objectResponse.contentType() != null
+                                    ? MediaType.parseMediaType(objectResponse.contentType())
+                                    : MediaType.APPLICATION_OCTET_STREAM)
+                            .eTag(objectResponse.eTag());
+                    if (objectResponse.contentLength() != null) {
+                        response.contentLength(objectResponse.contentLength());
+                    }
+                    return response.body(outputStream -> {
+                        try (object) {
+                            bufferPool.transfer(object, outputStream);
+                        }
+                    });
+                });
+    }
+
+    @DeleteMapping("/delete/{filename}")
+    public CompletableFuture<ResponseEntity<String>> delete(@PathVariable String filename) {
+        return asyncS3Service.deleteFile(filename)
+                .thenApply(unused -> ResponseEntity.ok("File deleted successfully. Filename: " + filename));
+    }
+
+    @GetMapping("/list")
+    public CompletableFuture<ResponseEntity<List<String>>> listAll(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String delimiter
+    ) {
+        return asyncS3Service.listAll(prefix, delimiter).thenApply(ResponseEntity::ok);
+    }
+}
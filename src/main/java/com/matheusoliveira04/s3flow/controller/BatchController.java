@@ -0,0 +1,141 @@
+package com.matheusoliveira04.s3flow.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheusoliveira04.s3flow.dto.ArchiveRequest;
+import com.matheusoliveira04.s3flow.dto.BatchDeleteRequest;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import com.matheusoliveira04.s3flow.io.NdjsonWriter;
+import com.matheusoliveira04.s3flow.service.ArchiveDownloadService;
+import com.matheusoliveira04.s3flow.service.BatchDeleteService;
+import com.matheusoliveira04.s3flow.service.BatchUploadService;
+import com.matheusoliveira04.s3flow.service.CopyService;
+import com.matheusoliveira04.s3flow.service.DedupService;
+import com.matheusoliveira04.s3flow.service.S3Service;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Operations over many objects at once. Results are streamed back as NDJSON, one line per object, in
+ * the order the work completes; archive downloads stream a single ZIP instead.
+ */
+@RestController
+@RequestMapping("/v1/s3bucket")
+public class BatchController {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private S3Service s3Service;
+
+    private BatchDeleteService batchDeleteService;
+
+    private BatchUploadService batchUploadService;
+
+    private CopyService copyService;
+
+    private ArchiveDownloadService archiveDownloadService;
+
+    private DedupService dedupService;
+
+    private ObjectMapper objectMapper;
+
+    public BatchController(S3Service s3Service, BatchDeleteService batchDeleteService,
+                           BatchUploadService batchUploadService, CopyService copyService,
+                           ArchiveDownloadService archiveDownloadService, DedupService dedupService,
+                           ObjectMapper objectMapper) {
+        this.s3Service = s3Service;
+        this.batchDeleteService = batchDeleteService;
+        this.batchUploadService = batchUploadService;
+        this.copyService = copyService;
+        this.archiveDownloadService = archiveDownloadService;
+        this.dedupService = dedupService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> uploadBatch(@RequestParam List<MultipartFile> files) {
+        files.forEach(file -> dedupService.requireNotInternal(file.getOriginalFilename()));
+        return ndjson(writer -> batchUploadService.uploadFiles(files, writer::write));
+    }
+
+    @PostMapping(value = "/upload/archive", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> uploadArchive(
+            @RequestParam(required = false) String prefix,
+            HttpServletRequest request
+    ) throws IOException {
+        InputStream archive = request.getInputStream();
+        return ndjson(writer -> batchUploadService.uploadArchive(archive, prefix, writer::write));
+    }
+
+    @PostMapping("/delete/batch")
+    public ResponseEntity<StreamingResponseBody> deleteBatch(@RequestBody BatchDeleteRequest request) {
+        boolean hasKeys = request.keys() != null && !request.keys().isEmpty();
+        boolean hasPrefix = StringUtils.hasText(request.prefix());
+        if (hasKeys == hasPrefix) {
+            throw new InvalidRequestException("Provide either a non-empty list of keys or a prefix.");
+        }
+        if (hasKeys) {
+            request.keys().forEach(dedupService::requireNotInternal);
+        }
+        return ndjson(writer -> {
+            try (Stream<String> keys = hasKeys ? request.keys().stream() : s3Service.streamKeys(request.prefix(), null)) {
+                batchDeleteService.delete(keys.iterator(), writer::write);
+            }
+        });
+    }
+
+    @PostMapping("/download/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(@RequestBody ArchiveRequest request) {
+        boolean hasKeys = request.keys() != null && !request.keys().isEmpty();
+        boolean hasPrefix = StringUtils.hasText(request.prefix());
+        if (hasKeys == hasPrefix) {
+            throw new InvalidRequestException("Provide either a non-empty list of keys or a prefix.");
+        }
+        String filename = StringUtils.hasText(request.filename()) ? request.filename() : "archive.zip";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(APPLICATION_ZIP)
+                .body(outputStream -> {
+                    try (Stream<String> keys = hasKeys ? request.keys().stream() : s3Service.streamKeys(request.prefix(), null)) {
+                        archiveDownloadService.writeZip(keys.iterator(), hasPrefix ? request.prefix() : null, outputStream);
+                    }
+                });
+    }
+
+    /**
+     * Renames every key under {@code prefix}. Lines arrive as each object is moved, so the response
+     * doubles as a progress report for large reorganizations.
+     */
+    @PostMapping("/move/batch")
+    public ResponseEntity<StreamingResponseBody> moveBatch(@RequestParam String prefix, @RequestParam String destinationPrefix) {
+        if (!StringUtils.hasText(prefix) || prefix.startsWith(destinationPrefix) || destinationPrefix.startsWith(prefix)) {
+            throw new InvalidRequestException("Provide a non-empty prefix and a destination prefix that do not contain one another.");
+        }
+        return ndjson(writer -> copyService.movePrefix(prefix, destinationPrefix, writer::write));
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(ResultStream body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> body.writeTo(new NdjsonWriter(objectMapper, outputStream)));
+    }
+
+    @FunctionalInterface
+    private interface ResultStream {
+        void writeTo(NdjsonWriter writer) throws IOException;
+    }
+}
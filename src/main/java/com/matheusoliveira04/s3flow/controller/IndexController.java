@@ -0,0 +1,47 @@
+package com.matheusoliveira04.s3flow.controller;
+
+import com.matheusoliveira04.s3flow.dto.IndexStats;
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+import com.matheusoliveira04.s3flow.service.KeyIndexService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Queries over the in-memory key index instead of the S3 listing. Results reflect the last scan
+ * plus the uploads and deletes made through this service since.
+ */
+@RestController
+@RequestMapping("/v1/s3bucket/index")
+@ConditionalOnProperty(name = "s3flow.index.enabled", havingValue = "true")
+public class IndexController {
+
+    private KeyIndexService keyIndexService;
+
+    public IndexController(KeyIndexService keyIndexService) {
+        this.keyIndexService = keyIndexService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<IndexStats> stats(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String glob,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize
+    ) {
+        return ResponseEntity.ok(keyIndexService.stats(prefix, glob, minSize, maxSize));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<IndexedObject>> search(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String glob,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return ResponseEntity.ok(keyIndexService.search(prefix, glob, minSize, maxSize, limit));
+    }
+}
@@ -0,0 +1,81 @@
+package com.matheusoliveira04.s3flow.controller;
+
+import com.matheusoliveira04.s3flow.dto.CompleteMultipartRequest;
+import com.matheusoliveira04.s3flow.dto.MultipartUploadUrls;
+import com.matheusoliveira04.s3flow.dto.PresignedUrl;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import com.matheusoliveira04.s3flow.service.DedupService;
+import com.matheusoliveira04.s3flow.service.PresignService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Presigned S3 requests for clients that transfer object bytes directly with the bucket.
+ * <p>
+ * Bytes sent to a presigned URL bypass {@link DedupService}, so with dedup enabled an upload URL is
+ * refused for names that are currently pointers: overwriting one directly would leave its reference
+ * marker behind and keep the old content alive forever. Such names must be uploaded through
+ * {@code /v1/s3bucket/upload}, or deleted first.
+ */
+@RestController
+@RequestMapping("/v1/s3bucket/presign")
+public class PresignController {
+
+    private PresignService presignService;
+
+    private DedupService dedupService;
+
+    public PresignController(PresignService presignService, DedupService dedupService) {
+        this.presignService = presignService;
+        this.dedupService = dedupService;
+    }
+
+    @GetMapping("/download/{filename}")
+    public ResponseEntity<PresignedUrl> download(@PathVariable String filename) {
+        String key = dedupService.isEnabled() ? dedupService.resolve(filename) : filename;
+        return ResponseEntity.ok(presignService.presignDownload(key));
+    }
+
+    @GetMapping("/upload/{filename}")
+    public ResponseEntity<PresignedUrl> upload(
+            @PathVariable String filename,
+            @RequestParam(required = false) String contentType
+    ) {
+        requireDirectUpload(filename);
+        return ResponseEntity.ok(presignService.presignUpload(filename, contentType));
+    }
+
+    @PostMapping("/multipart/{filename}")
+    public ResponseEntity<MultipartUploadUrls> startMultipart(
+            @PathVariable String filename,
+            @RequestParam int parts,
+            @RequestParam(required = false) String contentType
+    ) {
+        requireDirectUpload(filename);
+        return ResponseEntity.ok(presignService.startMultipartUpload(filename, contentType, parts));
+    }
+
+    @PostMapping("/multipart/{filename}/{uploadId}/complete")
+    public ResponseEntity<String> completeMultipart(
+            @PathVariable String filename,
+            @PathVariable String uploadId,
+            @RequestBody CompleteMultipartRequest request
+    ) {
+        presignService.completeMultipartUpload(filename, uploadId, request);
+        return ResponseEntity.ok("File uploaded successfully");
+    }
+
+    @DeleteMapping("/multipart/{filename}/{uploadId}")
+    public ResponseEntity<String> abortMultipart(@PathVariable String filename, @PathVariable String uploadId) {
+        presignService.abortMultipartUpload(filename, uploadId);
+        return ResponseEntity.ok("Multipart upload aborted. Filename: " + filename);
+    }
+
+    private void requireDirectUpload(String filename) {
+        dedupService.requireNotInternal(filename);
+        if (dedupService.isPointer(filename)) {
+            throw new InvalidRequestException("File " + filename
+                    + " is stored deduplicated and must be replaced through the upload endpoint.");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.matheusoliveira04.s3flow.controller;
+
+import com.matheusoliveira04.s3flow.dto.UploadSession;
+import com.matheusoliveira04.s3flow.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Resumable uploads: create a session, PUT its chunks by offset, check which arrived and complete it.
+ */
+@RestController
+@RequestMapping("/v1/s3bucket/uploads")
+public class ResumableUploadController {
+
+    private ResumableUploadService resumableUploadService;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService) {
+        this.resumableUploadService = resumableUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UploadSession> create(
+            @RequestParam String filename,
+            @RequestParam long size,
+            @RequestParam(required = false) String contentType
+    ) throws IOException {
+        UploadSession session = resumableUploadService.create(filename, contentType, size);
+        return ResponseEntity.created(URI.create("/v1/s3bucket/uploads/" + session.id())).body(session);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSession> uploadChunk(
+            @PathVariable String id,
+            @RequestParam long offset,
+            HttpServletRequest request
+    ) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.uploadChunk(id, offset, request.getContentLengthLong(),
+                request.getInputStream()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSession> status(@PathVariable String id) {
+        return ResponseEntity.ok(resumableUploadService.status(id));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<String> complete(@PathVariable String id) throws IOException {
+        resumableUploadService.complete(id);
+        return ResponseEntity.ok("File uploaded successfully");
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> abort(@PathVariable String id) throws IOException {
+        resumableUploadService.abort(id);
+        return ResponseEntity.ok("Upload session aborted. Id: " + id);
+    }
+}
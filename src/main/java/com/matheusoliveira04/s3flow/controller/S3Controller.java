@@ -1,48 +1,587 @@
 package com.matheusoliveira04.s3flow.controller;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.matheusoliveira04.s3flow.dto.ListPage;
+import com.matheusoliveira04.s3flow.dto.UploadJob;
+import com.matheusoliveira04.s3flow.exceptions.RangeNotSatisfiableException;
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import com.matheusoliveira04.s3flow.service.CoalescingDownloadService;
+import com.matheusoliveira04.s3flow.service.CopyService;
+import com.matheusoliveira04.s3flow.service.DedupService;
+import com.matheusoliveira04.s3flow.service.DiskCacheService;
+import com.matheusoliveira04.s3flow.service.ParallelDownloadService;
 import com.matheusoliveira04.s3flow.service.S3Service;
-import org.springframework.core.io.Resource;
+import com.matheusoliveira04.s3flow.service.UploadSpoolService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/v1/s3bucket")
 public class S3Controller {
 
+    static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+    /**
+     * Each range of a multi-range request costs one GetObject, so requests asking for more are served
+     * as a full 200 response, which RFC 9110 allows a server to do for any Range header.
+     */
+    static final int MAX_RANGES = 16;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private S3Service s3Service;
 
-    public S3Controller(S3Service s3Service) {
+    private ParallelDownloadService parallelDownloadService;
+
+    private DiskCacheService diskCacheService;
+
+    private CoalescingDownloadService coalescingDownloadService;
+
+    private CopyService copyService;
+
+    private DedupService dedupService;
+
+    private UploadSpoolService uploadSpoolService;
+
+    private BufferPool bufferPool;
+
+    @Value("${s3flow.download.cache-control:no-cache}")
+    private String cacheControl;
+
+    public S3Controller(S3Service s3Service, ParallelDownloadService parallelDownloadService,
+                        DiskCacheService diskCacheService, CoalescingDownloadService coalescingDownloadService,
+                        CopyService copyService, DedupService dedupService, UploadSpoolService uploadSpoolService,
+                        BufferPool bufferPool) {
         this.s3Service = s3Service;
+        this.parallelDownloadService = parallelDownloadService;
+        this.diskCacheService = diskCacheService;
+        this.coalescingDownloadService = coalescingDownloadService;
+        this.copyService = copyService;
+        this.dedupService = dedupService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.bufferPool = bufferPool;
     }
 
     @PostMapping("/upload")
     public ResponseEntity<String> upload(@RequestParam MultipartFile file) throws IOException {
-        s3Service.uploadFile(file);
+        dedupService.requireNotInternal(file.getOriginalFilename());
+        if (uploadSpoolService.isEnabled()) {
+            try (InputStream inputStream = file.getInputStream()) {
+                return accepted(uploadSpoolService.submit(file.getOriginalFilename(), file.getContentType(), file.getSize(), inputStream));
+            }
+        }
+        if (dedupService.isEnabled()) {
+            try (InputStream inputStream = file.getInputStream()) {
+                dedupService.upload(file.getOriginalFilename(), file.getContentType(), inputStream);
+            }
+        } else {
+            s3Service.uploadFile(file);
+        }
         return ResponseEntity.ok("File uploaded successfully");
     }
 
+    @PutMapping("/upload/{filename}")
+    public ResponseEntity<String> uploadStream(@PathVariable String filename, HttpServletRequest request) throws IOException {
+        dedupService.requireNotInternal(filename);
+        if (uploadSpoolService.isEnabled()) {
+            return accepted(uploadSpoolService.submit(filename, request.getContentType(), request.getContentLengthLong(),
+                    request.getInputStream()));
+        }
+        if (dedupService.isEnabled()) {
+            dedupService.upload(filename, request.getContentType(), request.getInputStream());
+        } else {
+            s3Service.uploadStream(filename, request.getContentType(), request.getInputStream());
+        }
+        return ResponseEntity.ok("File uploaded successfully");
+    }
+
+    @GetMapping("/upload/jobs/{id}")
+    public ResponseEntity<UploadJob> uploadJob(@PathVariable String id) {
+        return ResponseEntity.ok(uploadSpoolService.status(id));
+    }
+
     @GetMapping("/download/{filename}")
-    public ResponseEntity<Resource> download(@PathVariable String filename) {
-        var data = s3Service.downloadFile(filename);
-        return ResponseEntity.ok()
+    public ResponseEntity<StreamingResponseBody> download(
+            @PathVariable String filename,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince
+    ) throws IOException {
+        String key = dedupService.isEnabled() ? dedupService.resolve(filename) : filename;
+        boolean acceptsGzip = acceptsGzip(acceptEncoding);
+        Preconditions preconditions = Preconditions.of(ifNoneMatch, ifModifiedSince);
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.size() > MAX_RANGES) {
+            ranges = List.of();
+        }
+        if (ranges.size() == 1) {
+            return downloadObject(filename, key, HttpRange.toString(ranges), preconditions, !acceptsGzip);
+        }
+        if (ranges.size() > 1) {
+            return downloadRanges(filename, key, ranges, preconditions, acceptsGzip);
+        }
+        if (diskCacheService.isEnabled() || coalescingDownloadService.isEnabled() || parallelDownloadService.isEnabled()) {
+            HeadObjectResponse head = s3Service.headObject(key);
+            if (acceptsGzip || !isGzip(head.contentEncoding())) {
+                if (preconditions.notModified(head.eTag(), head.lastModified())) {
+                    return notModified(head.eTag(), head.lastModified());
+                }
+                if (diskCacheService.accepts(head)) {
+                    return downloadCached(filename, key, head);
+                }
+                if (coalescingDownloadService.accepts(head.contentLength())) {
+                    return downloadCoalesced(filename, key, head);
+                }
+                if (parallelDownloadService.accepts(head.contentLength())) {
+                    return downloadParallel(filename, key, head);
+                }
+            }
+        }
+        return downloadObject(filename, key, null, preconditions, !acceptsGzip);
+    }
+
+    /**
+     * Answers freshness checks from HeadObject alone. The headers match what {@code GET} would send
+     * for the same request, so clients and caches can revalidate without transferring the body.
+     */
+    @RequestMapping(path = "/download/{filename}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> head(
+            @PathVariable String filename,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince
+    ) {
+        String key = dedupService.isEnabled() ? dedupService.resolve(filename) : filename;
+        HeadObjectResponse head = s3Service.headObject(key);
+        boolean decompress = isGzip(head.contentEncoding()) && !acceptsGzip(acceptEncoding);
+        String eTag = decompress ? "W/" + head.eTag() : head.eTag();
+        if (Preconditions.of(ifNoneMatch, ifModifiedSince).notModified(eTag, head.lastModified())) {
+            return notModified(eTag, head.lastModified());
+        }
+
+        var response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .body(data);
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaTypeOf(head.contentType()))
+                .headers(headers -> validatorHeaders(headers, eTag, head.lastModified()));
+        if (decompress) {
+            return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        response.headers(headers -> encodingHeaders(headers, head.contentEncoding()));
+        if (head.contentLength() != null) {
+            response.contentLength(head.contentLength());
+        }
+        return response.build();
     }
 
     @DeleteMapping("/delete/{filename}")
     public ResponseEntity<String> delete(@PathVariable String filename) {
-        s3Service.deleteFile(filename);
+        dedupService.requireNotInternal(filename);
+        if (dedupService.isEnabled()) {
+            dedupService.delete(filename);
+        } else {
+            s3Service.deleteFile(filename);
+        }
         return ResponseEntity.ok("File deleted successfully. Filename: " + filename);
     }
 
+    @PostMapping("/copy/{filename}")
+    public ResponseEntity<String> copy(@PathVariable String filename, @RequestParam String destination) throws IOException {
+        copyService.copy(filename, destination);
+        return ResponseEntity.ok("File copied successfully. Destination: " + destination);
+    }
+
+    @PostMapping("/move/{filename}")
+    public ResponseEntity<String> move(@PathVariable String filename, @RequestParam String destination) throws IOException {
+        copyService.move(filename, destination);
+        return ResponseEntity.ok("File moved successfully. Destination: " + destination);
+    }
+
     @GetMapping("/list")
-    public ResponseEntity<List<String>> listAll() {
-        return ResponseEntity.ok(s3Service.listAll());
+    public ResponseEntity<List<String>> listAll(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String delimiter,
+            @RequestParam(required = false) Integer maxKeys,
+            @RequestParam(required = false) String continuationToken
+    ) {
+        if (maxKeys == null && continuationToken == null) {
+            return ResponseEntity.ok(s3Service.listAll(prefix, delimiter));
+        }
+        ListPage page = s3Service.listPage(prefix, delimiter, maxKeys, continuationToken);
+        var response = ResponseEntity.ok();
+        if (page.nextContinuationToken() != null) {
+            response.header(CONTINUATION_TOKEN_HEADER, page.nextContinuationToken());
+        }
+        return response.body(page.keys());
+    }
+
+    @GetMapping("/list/stream")
+    public ResponseEntity<StreamingResponseBody> listStream(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String delimiter,
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    try (Stream<String> keys = s3Service.streamKeys(prefix, delimiter);
+                         JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+                        generator.setRootValueSeparator(null);
+                        if (!ndjson) {
+                            generator.writeStartArray();
+                        }
+                        for (Iterator<String> iterator = keys.iterator(); iterator.hasNext(); ) {
+                            generator.writeString(iterator.next());
+                            if (ndjson) {
+                                generator.writeRaw('\n');
+                            }
+                        }
+                        if (!ndjson) {
+                            generator.writeEndArray();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Streams the object as stored. Objects stored gzip-compressed are decompressed on the fly when
+     * {@code decodeGzip} is set, for clients that do not accept gzip. Ranges address the stored bytes,
+     * so such a client asking for a range of a gzip-stored object gets the whole decoded body instead.
+     */
+    private ResponseEntity<StreamingResponseBody> downloadObject(String filename, String key, String range,
+                                                                 Preconditions preconditions, boolean decodeGzip) {
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = open(key, range, preconditions);
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                return notModified(e, key, decodeGzip);
+            }
+            throw e;
+        }
+        GetObjectResponse objectResponse = object.response();
+        boolean partial = objectResponse.contentRange() != null;
+        boolean decompress = decodeGzip && isGzip(objectResponse.contentEncoding());
+        if (decompress && partial) {
+            object.abort();
+            return downloadObject(filename, key, null, preconditions, true);
+        }
+
+        var response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaTypeOf(objectResponse.contentType()));
+        if (decompress) {
+            return response
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .headers(headers -> validatorHeaders(headers, "W/" + objectResponse.eTag(), objectResponse.lastModified()))
+                    .body(outputStream -> {
+                        try (object; InputStream decompressed = new GZIPInputStream(object)) {
+                            bufferPool.transfer(decompressed, outputStream);
+                        }
+                    });
+        }
+        response.headers(headers -> validatorHeaders(headers, objectResponse.eTag(), objectResponse.lastModified()))
+                .headers(headers -> encodingHeaders(headers, objectResponse.contentEncoding()));
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, objectResponse.contentRange());
+        }
+        if (objectResponse.contentLength() != null) {
+            response.contentLength(objectResponse.contentLength());
+        }
+        return response.body(outputStream -> {
+            try (object) {
+                bufferPool.transfer(object, outputStream);
+            }
+        });
+    }
+
+    private ResponseEntity<StreamingResponseBody> downloadCached(String filename, String key, HeadObjectResponse head) throws IOException {
+        DiskCacheService.CachedObject cached = diskCacheService.get(key, head);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaTypeOf(head.contentType()))
+                .headers(headers -> encodingHeaders(headers, head.contentEncoding()))
+                .headers(headers -> validatorHeaders(headers, cached.eTag(), cached.lastModified()))
+                .contentLength(cached.size())
+                .body(outputStream -> diskCacheService.transferTo(key, cached, outputStream));
+    }
+
+    private ResponseEntity<StreamingResponseBody> downloadParallel(String filename, String key, HeadObjectResponse head) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaTypeOf(head.contentType()))
+                .headers(headers -> encodingHeaders(headers, head.contentEncoding()))
+                .headers(headers -> validatorHeaders(headers, head.eTag(), head.lastModified()))
+                .contentLength(head.contentLength())
+                .body(outputStream ->
+                        parallelDownloadService.writeTo(key, head.eTag(), head.contentLength(), outputStream));
+    }
+
+    private ResponseEntity<StreamingResponseBody> downloadCoalesced(String filename, String key, HeadObjectResponse head) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(mediaTypeOf(head.contentType()))
+                .headers(headers -> encodingHeaders(headers, head.contentEncoding()))
+                .headers(headers -> validatorHeaders(headers, head.eTag(), head.lastModified()))
+                .contentLength(head.contentLength())
+                .body(outputStream ->
+                        coalescingDownloadService.writeTo(key, head.eTag(), head.contentLength(), outputStream));
+    }
+
+    private ResponseEntity<StreamingResponseBody> downloadRanges(String filename, String key, List<HttpRange> ranges,
+                                                                 Preconditions preconditions, boolean acceptsGzip) {
+        HeadObjectResponse head = s3Service.headObject(key);
+        if (!acceptsGzip && isGzip(head.contentEncoding())) {
+            return downloadObject(filename, key, null, preconditions, true);
+        }
+        if (preconditions.notModified(head.eTag(), head.lastModified())) {
+            return notModified(head.eTag(), head.lastModified());
+        }
+        long contentLength = head.contentLength();
+        List<ByteRegion> regions = toRegions(ranges, contentLength);
+        if (regions.size() == 1) {
+            return downloadObject(filename, key, regions.getFirst().toRangeHeader(), preconditions, false);
+        }
+        String partContentType = mediaTypeOf(head.contentType()).toString();
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .headers(headers -> encodingHeaders(headers, head.contentEncoding()))
+                .headers(headers -> validatorHeaders(headers, head.eTag(), head.lastModified()))
+                .body(outputStream -> {
+                    for (ByteRegion region : regions) {
+                        String partHeader = "\r\n--" + boundary
+                                + "\r\nContent-Type: " + partContentType
+                                + "\r\nContent-Range: bytes " + region.start() + "-" + region.end() + "/" + contentLength
+                                + "\r\n\r\n";
+                        outputStream.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                        try (var part = s3Service.openRange(key, head.eTag(), region.toRangeHeader())) {
+                            bufferPool.transfer(part, outputStream);
+                        }
+                    }
+                    outputStream.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+                });
+    }
+
+    private ResponseInputStream<GetObjectResponse> open(String key, String range, Preconditions preconditions) {
+        try {
+            if (!preconditions.isEmpty()) {
+                return s3Service.openDownload(key, range, preconditions.ifNoneMatch(), preconditions.ifModifiedSince());
+            }
+            return range == null ? s3Service.openDownload(key) : s3Service.openDownload(key, range);
+        } catch (S3Exception e) {
+            if (range != null && e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                throw new RangeNotSatisfiableException("Requested range not satisfiable: " + range, null);
+            }
+            throw e;
+        }
+    }
+
+    private static ResponseEntity<String> accepted(UploadJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/v1/s3bucket/upload/jobs/" + job.id()))
+                .body("Upload accepted. Job: " + job.id());
+    }
+
+    private <T> ResponseEntity<T> notModified(String eTag, Instant lastModified) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .headers(headers -> validatorHeaders(headers, eTag, lastModified))
+                .build();
+    }
+
+    /**
+     * Builds the 304 for a Not Modified reported by S3. When the body would have been gzip-decoded, the
+     * tag is weakened the same way as on a 200, looking the encoding up if S3 left it out of the 304.
+     */
+    private <T> ResponseEntity<T> notModified(S3Exception exception, String key, boolean decodeGzip) {
+        SdkHttpResponse httpResponse = exception.awsErrorDetails() != null ? exception.awsErrorDetails().sdkHttpResponse() : null;
+        if (httpResponse == null) {
+            return notModified(null, null);
+        }
+        Instant lastModified = httpResponse.firstMatchingHeader(HttpHeaders.LAST_MODIFIED)
+                .map(Preconditions::parseDate)
+                .orElse(null);
+        String eTag = httpResponse.firstMatchingHeader(HttpHeaders.ETAG).orElse(null);
+        if (eTag != null && decodeGzip && isGzip(httpResponse.firstMatchingHeader(HttpHeaders.CONTENT_ENCODING)
+                .orElseGet(() -> s3Service.headObject(key).contentEncoding()))) {
+            eTag = "W/" + eTag;
+        }
+        return notModified(eTag, lastModified);
+    }
+
+    private void validatorHeaders(HttpHeaders headers, String eTag, Instant lastModified) {
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(cacheControl);
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Resolves the satisfiable ranges and merges those that overlap or touch, so no byte is fetched
+     * twice; the parts then come in ascending order.
+     */
+    private static List<ByteRegion> toRegions(List<HttpRange> ranges, long contentLength) {
+        List<ByteRegion> satisfiable = ranges.stream()
+                .map(range -> new ByteRegion(range.getRangeStart(contentLength), range.getRangeEnd(contentLength)))
+                .filter(region -> region.start() < contentLength && region.start() <= region.end())
+                .sorted(Comparator.comparingLong(ByteRegion::start))
+                .toList();
+        if (satisfiable.isEmpty()) {
+            throw new RangeNotSatisfiableException("Requested range not satisfiable: " + HttpRange.toString(ranges), contentLength);
+        }
+        List<ByteRegion> regions = new ArrayList<>();
+        for (ByteRegion region : satisfiable) {
+            ByteRegion last = regions.isEmpty() ? null : regions.getLast();
+            if (last != null && region.start() <= last.end() + 1) {
+                regions.set(regions.size() - 1, new ByteRegion(last.start(), Math.max(last.end(), region.end())));
+            } else {
+                regions.add(region);
+            }
+        }
+        return regions;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            String name = parameters[0].trim();
+            if (!name.equalsIgnoreCase(S3Service.GZIP) && !name.equals("*")) {
+                continue;
+            }
+            boolean rejected = Arrays.stream(parameters).skip(1)
+                    .map(String::trim)
+                    .anyMatch(parameter -> parameter.matches("q=0(\\.0{0,3})?"));
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        return S3Service.GZIP.equalsIgnoreCase(contentEncoding);
+    }
+
+    private static void encodingHeaders(HttpHeaders headers, String contentEncoding) {
+        if (isGzip(contentEncoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, S3Service.GZIP);
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+
+    private static MediaType mediaTypeOf(String contentType) {
+        return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * The {@code If-None-Match} and {@code If-Modified-Since} request headers. As in RFC 9110, the date
+     * is ignored when an entity tag is given, and an unparsable date is ignored altogether.
+     */
+    private record Preconditions(String ifNoneMatch, Instant ifModifiedSince) {
+
+        static Preconditions of(String ifNoneMatch, String ifModifiedSince) {
+            if (ifNoneMatch != null) {
+                // S3 compares entity tags strongly; weak and strong tags of an object share the opaque part
+                return new Preconditions(ifNoneMatch.replace("W/", ""), null);
+            }
+            return new Preconditions(null, ifModifiedSince != null ? parseDate(ifModifiedSince) : null);
+        }
+
+        boolean isEmpty() {
+            return ifNoneMatch == null && ifModifiedSince == null;
+        }
+
+        /**
+         * Evaluates the preconditions against a known representation. If-None-Match uses the weak
+         * comparison, so a gzip-decoded {@code W/} tag revalidates against the stored object's tag.
+         */
+        boolean notModified(String eTag, Instant lastModified) {
+            if (ifNoneMatch != null) {
+                if (ifNoneMatch.trim().equals("*")) {
+                    return true;
+                }
+                return eTag != null && Arrays.stream(ifNoneMatch.split(","))
+                        .map(Preconditions::opaqueTag)
+                        .anyMatch(opaqueTag(eTag)::equals);
+            }
+            return ifModifiedSince != null && lastModified != null
+                    && !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(ifModifiedSince);
+        }
+
+        static Instant parseDate(String value) {
+            try {
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        private static String opaqueTag(String eTag) {
+            String trimmed = eTag.trim();
+            return trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed;
+        }
+    }
+
+    private record ByteRegion(long start, long end) {
+
+        String toRangeHeader() {
+            return "bytes=" + start + "-" + end;
+        }
     }
 
 }
@@ -0,0 +1,5 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.util.List;
+
+public record BatchDeleteRequest(List<String> keys, String prefix) {}
@@ -0,0 +1,8 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.util.List;
+
+public record CompleteMultipartRequest(List<Part> parts) {
+
+    public record Part(int partNumber, String eTag) {}
+}
@@ -0,0 +1,5 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.time.Instant;
+
+public record IndexedObject(String key, long size, String eTag, Instant lastModified) {}
@@ -0,0 +1,5 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.util.List;
+
+public record ListPage(List<String> keys, String nextContinuationToken) {}
@@ -0,0 +1,8 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.util.List;
+
+public record MultipartUploadUrls(String key, String uploadId, List<PartUrl> parts) {
+
+    public record PartUrl(int partNumber, PresignedUrl request) {}
+}
@@ -0,0 +1,12 @@
+package com.matheusoliveira04.s3flow.dto;
+
+public record ObjectResult(String key, boolean success, String error) {
+
+    public static ObjectResult success(String key) {
+        return new ObjectResult(key, true, null);
+    }
+
+    public static ObjectResult failure(String key, String error) {
+        return new ObjectResult(key, false, error);
+    }
+}
@@ -0,0 +1,11 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request the client can send straight to S3. {@code headers} must be sent exactly as given, since
+ * they are part of the signature.
+ */
+public record PresignedUrl(String url, String method, Map<String, List<String>> headers, Instant expiresAt) {}
@@ -0,0 +1,11 @@
+package com.matheusoliveira04.s3flow.dto;
+
+public record UploadJob(String id, String key, Status status, long size, int attempts, String error) {
+
+    public enum Status {
+        PENDING,
+        UPLOADED,
+        SUPERSEDED,
+        FAILED
+    }
+}
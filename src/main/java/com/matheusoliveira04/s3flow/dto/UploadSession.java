@@ -0,0 +1,7 @@
+package com.matheusoliveira04.s3flow.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record UploadSession(String id, String key, long size, long chunkSize, List<Long> receivedOffsets,
+                            Instant expiresAt) {}
@@ -0,0 +1,49 @@
+package com.matheusoliveira04.s3flow.event;
+
+import com.matheusoliveira04.s3flow.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Evicts the listing and metadata caches as soon as an upload or delete completes, whether it went
+ * through the blocking or the asynchronous client. Runs before other listeners, so anything they
+ * look up in reaction to the event is read fresh.
+ */
+@Component
+public class CacheInvalidationListener {
+
+    private CacheManager cacheManager;
+
+    public CacheInvalidationListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onObjectChanged(ObjectChangedEvent event) {
+        evict(List.of(event.key()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onObjectsDeleted(ObjectsDeletedEvent event) {
+        evict(event.keys());
+    }
+
+    private void evict(List<String> keys) {
+        Cache listings = cacheManager.getCache(CacheConfig.LISTINGS);
+        if (listings != null) {
+            listings.clear();
+        }
+        Cache objectMetadata = cacheManager.getCache(CacheConfig.OBJECT_METADATA);
+        if (objectMetadata != null) {
+            keys.forEach(objectMetadata::evict);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.matheusoliveira04.s3flow.event;
+
+public record ObjectChangedEvent(String key, boolean deleted) {}
@@ -0,0 +1,5 @@
+package com.matheusoliveira04.s3flow.event;
+
+import java.util.List;
+
+public record ObjectsDeletedEvent(List<String> keys) {}
@@ -1,10 +1,12 @@
 package com.matheusoliveira04.s3flow.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,4 +24,58 @@ public class ControllerExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    ResponseEntity<StandardError> getInvalidRequestException(InvalidRequestException exception, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(
+                        new StandardError(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(),
+                                request.getRequestURI(), List.of(exception.getMessage()))
+                );
+    }
+
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    ResponseEntity<StandardError> getRangeNotSatisfiableException(RangeNotSatisfiableException exception, HttpServletRequest request) {
+        var response = ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        if (exception.getContentLength() != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes */" + exception.getContentLength());
+        }
+        return response.body(
+                new StandardError(LocalDateTime.now(), HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(),
+                        request.getRequestURI(), List.of(exception.getMessage()))
+        );
+    }
+
+    @ExceptionHandler(IndexNotReadyException.class)
+    ResponseEntity<StandardError> getIndexNotReadyException(IndexNotReadyException exception, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(
+                        new StandardError(LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                request.getRequestURI(), List.of(exception.getMessage()))
+                );
+    }
+
+    @ExceptionHandler(SpoolFullException.class)
+    ResponseEntity<StandardError> getSpoolFullException(SpoolFullException exception, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(
+                        new StandardError(LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                request.getRequestURI(), List.of(exception.getMessage()))
+                );
+    }
+
+    @ExceptionHandler(NoSuchKeyException.class)
+    ResponseEntity<StandardError> getNoSuchKeyException(NoSuchKeyException exception, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(
+                        new StandardError(LocalDateTime.now(), HttpStatus.NOT_FOUND.value(),
+                                request.getRequestURI(), List.of("File not found in S3 bucket."))
+                );
+    }
+
 }
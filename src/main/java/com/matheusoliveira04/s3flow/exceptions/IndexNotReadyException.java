@@ -0,0 +1,8 @@
+package com.matheusoliveira04.s3flow.exceptions;
+
+public class IndexNotReadyException extends RuntimeException {
+
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
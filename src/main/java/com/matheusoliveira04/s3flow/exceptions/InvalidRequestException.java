@@ -0,0 +1,8 @@
+package com.matheusoliveira04.s3flow.exceptions;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.matheusoliveira04.s3flow.exceptions;
+
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final Long contentLength;
+
+    public RangeNotSatisfiableException(String message, Long contentLength) {
+        super(message);
+        this.contentLength = contentLength;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+}
@@ -0,0 +1,8 @@
+package com.matheusoliveira04.s3flow.exceptions;
+
+public class SpoolFullException extends RuntimeException {
+
+    public SpoolFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,295 @@
+package com.matheusoliveira04.s3flow.index;
+
+import com.matheusoliveira04.s3flow.dto.IndexStats;
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+import com.matheusoliveira04.s3flow.exceptions.IndexNotReadyException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The {@link KeySnapshot} from the last full scan plus an overlay of the changes recorded since.
+ * Queries read both without locking; an overlay entry always wins over the snapshot entry with the
+ * same key. Once the overlay holds more than {@code maxOverlaySize} keys it is folded into a new
+ * snapshot on {@code compactionExecutor}, off the thread recording the change, and entries already
+ * covered by a scan are dropped when that scan's snapshot replaces the base.
+ */
+public class KeyIndex {
+
+    private final int maxOverlaySize;
+    private final Executor compactionExecutor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    // odd while the base and the overlay are being swapped, so readers can tell they saw a mix of both
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentSkipListMap<String, Change> overlay = new ConcurrentSkipListMap<>(KeySnapshot.KEY_ORDER);
+    private final AtomicInteger overlaySize = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile KeySnapshot base;
+
+    public KeyIndex(int maxOverlaySize, Executor compactionExecutor) {
+        this.maxOverlaySize = maxOverlaySize;
+        this.compactionExecutor = compactionExecutor;
+    }
+
+    public boolean isReady() {
+        return base != null;
+    }
+
+    /**
+     * Marks the start of a full scan. Pass the returned value to {@link #replace} once the scan is
+     * complete, so only changes recorded after the listing started survive the swap.
+     */
+    public long beginScan() {
+        return sequence.get();
+    }
+
+    public void replace(KeySnapshot snapshot, long scanStart) {
+        lock.lock();
+        try {
+            version.incrementAndGet();
+            try {
+                base = snapshot;
+                overlay.forEach((key, change) -> {
+                    if (change.sequence() <= scanStart) {
+                        removeChange(change);
+                    }
+                });
+            } finally {
+                version.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(IndexedObject object) {
+        record(new Change(object.key(), object, sequence.incrementAndGet()));
+    }
+
+    public void remove(String key) {
+        record(new Change(key, null, sequence.incrementAndGet()));
+    }
+
+    public IndexStats stats(KeyQuery query) {
+        return read(snapshot -> stats(snapshot, query));
+    }
+
+    /**
+     * Returns up to {@code limit} matching entries in key order.
+     */
+    public List<IndexedObject> search(KeyQuery query, int limit) {
+        return read(snapshot -> search(snapshot, query, limit));
+    }
+
+    /**
+     * Runs {@code query} against the base and the overlay, again if a compaction or a scan swapped them
+     * meanwhile, so a change is never missed between leaving the overlay and reaching the base.
+     */
+    private <T> T read(Function<KeySnapshot, T> query) {
+        while (true) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                T result = query.apply(requireReady());
+                if (version.get() == before) {
+                    return result;
+                }
+            }
+            // the swap runs under the lock, so waiting for it costs no spinning
+            lock.lock();
+            lock.unlock();
+        }
+    }
+
+    private IndexStats stats(KeySnapshot snapshot, KeyQuery query) {
+        int[] range = snapshot.prefixRange(query.rangePrefix());
+        List<Change> changes = changesUnder(query.rangePrefix());
+        int[] shadowed = shadowedIndexes(snapshot, changes);
+
+        long count = 0;
+        long bytes = 0;
+        if (!query.filtersEntries()) {
+            count = range[1] - range[0] - shadowed.length;
+            bytes = snapshot.bytes(range[0], range[1]);
+            for (int index : shadowed) {
+                bytes -= snapshot.size(index);
+            }
+        } else {
+            int next = 0;
+            for (int i = range[0]; i < range[1]; i++) {
+                if (next < shadowed.length && shadowed[next] == i) {
+                    next++;
+                    continue;
+                }
+                long size = snapshot.size(i);
+                if (query.matchesSize(size) && (query.glob() == null || query.matches(snapshot.key(i), size))) {
+                    count++;
+                    bytes += size;
+                }
+            }
+        }
+        for (Change change : changes) {
+            IndexedObject object = change.object();
+            if (object != null && query.matches(object.key(), object.size())) {
+                count++;
+                bytes += object.size();
+            }
+        }
+        return new IndexStats(count, bytes, snapshot.scannedAt());
+    }
+
+    private List<IndexedObject> search(KeySnapshot snapshot, KeyQuery query, int limit) {
+        int[] range = snapshot.prefixRange(query.rangePrefix());
+        List<Change> changes = changesUnder(query.rangePrefix());
+        int[] shadowed = shadowedIndexes(snapshot, changes);
+
+        List<IndexedObject> results = new ArrayList<>();
+        Iterator<Change> pending = changes.iterator();
+        Change change = pending.hasNext() ? pending.next() : null;
+        int next = 0;
+        for (int i = range[0]; i < range[1] && results.size() < limit; i++) {
+            if (next < shadowed.length && shadowed[next] == i) {
+                next++;
+                continue;
+            }
+            if (!query.matchesSize(snapshot.size(i))) {
+                continue;
+            }
+            String key = snapshot.key(i);
+            if (!query.matches(key, snapshot.size(i))) {
+                continue;
+            }
+            while (change != null && KeySnapshot.KEY_ORDER.compare(change.key(), key) < 0 && results.size() < limit) {
+                addIfMatches(results, change, query);
+                change = pending.hasNext() ? pending.next() : null;
+            }
+            if (results.size() < limit) {
+                results.add(snapshot.get(i));
+            }
+        }
+        while (change != null && results.size() < limit) {
+            addIfMatches(results, change, query);
+            change = pending.hasNext() ? pending.next() : null;
+        }
+        return results;
+    }
+
+    private void record(Change change) {
+        if (overlay.put(change.key(), change) == null
+                && overlaySize.incrementAndGet() > maxOverlaySize && compactionScheduled.compareAndSet(false, true)) {
+            try {
+                compactionExecutor.execute(this::compact);
+            } catch (RejectedExecutionException e) {
+                compactionScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Merges the overlay into a new snapshot. The new base is published before the folded changes are
+     * removed, inside one version bump, so {@link #read} never counts a change twice or loses it.
+     */
+    private void compact() {
+        lock.lock();
+        try {
+            KeySnapshot current = base;
+            if (current != null) {
+                fold(current);
+            }
+        } finally {
+            compactionScheduled.set(false);
+            lock.unlock();
+        }
+    }
+
+    private void fold(KeySnapshot current) {
+        List<Change> changes = new ArrayList<>(overlay.values());
+        KeySnapshot.Builder builder = KeySnapshot.builder(current.scannedAt());
+        int index = 0;
+        for (Change change : changes) {
+            while (index < current.count() && KeySnapshot.KEY_ORDER.compare(current.key(index), change.key()) < 0) {
+                builder.add(current.get(index++));
+            }
+            if (index < current.count() && current.key(index).equals(change.key())) {
+                index++;
+            }
+            if (change.object() != null) {
+                builder.add(change.object());
+            }
+        }
+        while (index < current.count()) {
+            builder.add(current.get(index++));
+        }
+        KeySnapshot folded = builder.build();
+        version.incrementAndGet();
+        try {
+            base = folded;
+            changes.forEach(this::removeChange);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    private void removeChange(Change change) {
+        if (overlay.remove(change.key(), change)) {
+            overlaySize.decrementAndGet();
+        }
+    }
+
+    private List<Change> changesUnder(String prefix) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, Change> entry : overlay.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            changes.add(entry.getValue());
+        }
+        return changes;
+    }
+
+    private static int[] shadowedIndexes(KeySnapshot snapshot, List<Change> changes) {
+        int[] indexes = changes.stream()
+                .mapToInt(change -> snapshot.indexOf(change.key()))
+                .filter(index -> index >= 0)
+                .toArray();
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    private static void addIfMatches(List<IndexedObject> results, Change change, KeyQuery query) {
+        IndexedObject object = change.object();
+        if (object != null && query.matches(object.key(), object.size())) {
+            results.add(object);
+        }
+    }
+
+    public Instant scannedAt() {
+        KeySnapshot snapshot = base;
+        return snapshot != null ? snapshot.scannedAt() : null;
+    }
+
+    private KeySnapshot requireReady() {
+        KeySnapshot snapshot = base;
+        if (snapshot == null) {
+            throw new IndexNotReadyException("The key index is still being built.");
+        }
+        return snapshot;
+    }
+
+    /**
+     * A recorded upload ({@code object} set) or delete ({@code object} null).
+     */
+    private record Change(String key, IndexedObject object, long sequence) {}
+}
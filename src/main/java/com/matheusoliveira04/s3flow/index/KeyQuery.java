@@ -0,0 +1,66 @@
+package com.matheusoliveira04.s3flow.index;
+
+import java.util.regex.Pattern;
+
+/**
+ * Filter for index queries. {@code rangePrefix} selects the contiguous key range to visit; the
+ * optional glob and size bounds are then checked per entry.
+ * <p>
+ * Globs match the whole key: {@code *} and {@code ?} stay within one path segment, {@code **} crosses
+ * {@code /}. The literal part of a glob before its first wildcard narrows the range like a prefix.
+ */
+public record KeyQuery(String rangePrefix, Pattern glob, Long minSize, Long maxSize) {
+
+    public static KeyQuery of(String prefix, String glob, Long minSize, Long maxSize) {
+        String rangePrefix = prefix != null ? prefix : "";
+        if (glob == null) {
+            return new KeyQuery(rangePrefix, null, minSize, maxSize);
+        }
+        String literal = literalPrefix(glob);
+        if (literal.startsWith(rangePrefix)) {
+            rangePrefix = literal;
+        }
+        return new KeyQuery(rangePrefix, compile(glob), minSize, maxSize);
+    }
+
+    boolean filtersEntries() {
+        return glob != null || minSize != null || maxSize != null;
+    }
+
+    boolean matchesSize(long size) {
+        return (minSize == null || size >= minSize) && (maxSize == null || size <= maxSize);
+    }
+
+    boolean matches(String key, long size) {
+        return matchesSize(size) && (glob == null || glob.matcher(key).matches());
+    }
+
+    private static String literalPrefix(String glob) {
+        int end = 0;
+        while (end < glob.length() && glob.charAt(end) != '*' && glob.charAt(end) != '?') {
+            end++;
+        }
+        return glob.substring(0, end);
+    }
+
+    private static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                if ("\\.[]{}()<>+-=!^$|".indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,287 @@
+package com.matheusoliveira04.s3flow.index;
+
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Immutable, columnar snapshot of keys with their size, ETag and last-modified time, sorted in the
+ * UTF-8 binary order S3 lists keys in. Keys and ETags are packed into one byte array each with an
+ * offset column next to them, so millions of entries take a handful of arrays rather than millions of
+ * objects. A running sum of sizes gives the byte total of any index range in constant time.
+ */
+public final class KeySnapshot {
+
+    /**
+     * Code point order, which is the same as the unsigned byte order of the UTF-8 encoding.
+     */
+    public static final Comparator<String> KEY_ORDER = KeySnapshot::compareKeys;
+
+    private static final int MAGIC = 0x53334958;
+    private static final int VERSION = 1;
+
+    private final Instant scannedAt;
+    private final int count;
+    private final byte[] keyBytes;
+    private final int[] keyOffsets;
+    private final byte[] eTagBytes;
+    private final int[] eTagOffsets;
+    private final long[] sizes;
+    private final long[] lastModified;
+    private final long[] cumulativeSizes;
+
+    private KeySnapshot(Instant scannedAt, int count, byte[] keyBytes, int[] keyOffsets, byte[] eTagBytes,
+                        int[] eTagOffsets, long[] sizes, long[] lastModified) {
+        this.scannedAt = scannedAt;
+        this.count = count;
+        this.keyBytes = keyBytes;
+        this.keyOffsets = keyOffsets;
+        this.eTagBytes = eTagBytes;
+        this.eTagOffsets = eTagOffsets;
+        this.sizes = sizes;
+        this.lastModified = lastModified;
+        this.cumulativeSizes = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            cumulativeSizes[i + 1] = cumulativeSizes[i] + sizes[i];
+        }
+    }
+
+    public static KeySnapshot empty() {
+        return builder(null).build();
+    }
+
+    public static Builder builder(Instant scannedAt) {
+        return new Builder(scannedAt);
+    }
+
+    /**
+     * When the listing behind this snapshot started, or {@code null} if it was not built from one.
+     */
+    public Instant scannedAt() {
+        return scannedAt;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public String key(int index) {
+        return new String(keyBytes, keyOffsets[index], keyOffsets[index + 1] - keyOffsets[index], StandardCharsets.UTF_8);
+    }
+
+    public long size(int index) {
+        return sizes[index];
+    }
+
+    public IndexedObject get(int index) {
+        String eTag = new String(eTagBytes, eTagOffsets[index], eTagOffsets[index + 1] - eTagOffsets[index],
+                StandardCharsets.US_ASCII);
+        return new IndexedObject(key(index), sizes[index], eTag, Instant.ofEpochMilli(lastModified[index]));
+    }
+
+    /**
+     * Total size of the entries in {@code [from, to)}.
+     */
+    public long bytes(int from, int to) {
+        return cumulativeSizes[to] - cumulativeSizes[from];
+    }
+
+    public int indexOf(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(bytes);
+        return index < count && compareAt(index, bytes) == 0 ? index : -1;
+    }
+
+    /**
+     * Returns {@code [from, to)}, the contiguous index range of keys starting with {@code prefix}.
+     */
+    public int[] prefixRange(String prefix) {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(bytes);
+        int low = from;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startsWith(middle, bytes)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new int[]{from, low};
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareAt(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareAt(int index, byte[] key) {
+        return Arrays.compareUnsigned(keyBytes, keyOffsets[index], keyOffsets[index + 1], key, 0, key.length);
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        int start = keyOffsets[index];
+        return keyOffsets[index + 1] - start >= prefix.length
+                && Arrays.equals(keyBytes, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    public void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(scannedAt != null ? scannedAt.toEpochMilli() : -1);
+        output.writeInt(count);
+        writeBytes(output, keyBytes, keyOffsets[count]);
+        writeInts(output, keyOffsets, count + 1);
+        writeBytes(output, eTagBytes, eTagOffsets[count]);
+        writeInts(output, eTagOffsets, count + 1);
+        writeLongs(output, sizes, count);
+        writeLongs(output, lastModified, count);
+    }
+
+    public static KeySnapshot readFrom(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Not a key index snapshot of version " + VERSION);
+        }
+        long scannedAt = input.readLong();
+        int count = input.readInt();
+        byte[] keyBytes = readBytes(input);
+        int[] keyOffsets = readInts(input, count + 1);
+        byte[] eTagBytes = readBytes(input);
+        int[] eTagOffsets = readInts(input, count + 1);
+        long[] sizes = readLongs(input, count);
+        long[] lastModified = readLongs(input, count);
+        return new KeySnapshot(scannedAt >= 0 ? Instant.ofEpochMilli(scannedAt) : null, count,
+                keyBytes, keyOffsets, eTagBytes, eTagOffsets, sizes, lastModified);
+    }
+
+    static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int codePointA = a.codePointAt(i);
+            int codePointB = b.codePointAt(j);
+            if (codePointA != codePointB) {
+                return Integer.compare(codePointA, codePointB);
+            }
+            i += Character.charCount(codePointA);
+            j += Character.charCount(codePointB);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes, int length) throws IOException {
+        output.writeInt(length);
+        output.write(bytes, 0, length);
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            output.writeInt(values[i]);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream output, long[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            output.writeLong(values[i]);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static int[] readInts(DataInputStream input, int length) throws IOException {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream input, int length) throws IOException {
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readLong();
+        }
+        return values;
+    }
+
+    /**
+     * Appends entries in ascending key order, growing the columns as needed.
+     */
+    public static final class Builder {
+
+        private final Instant scannedAt;
+        private int count;
+        private byte[] keyBytes = new byte[1024];
+        private int[] keyOffsets = new int[65];
+        private byte[] eTagBytes = new byte[1024];
+        private int[] eTagOffsets = new int[65];
+        private long[] sizes = new long[64];
+        private long[] lastModified = new long[64];
+        private String lastKey;
+
+        private Builder(Instant scannedAt) {
+            this.scannedAt = scannedAt;
+        }
+
+        public Builder add(IndexedObject object) {
+            return add(object.key(), object.size(), object.eTag(), object.lastModified());
+        }
+
+        public Builder add(String key, long size, String eTag, Instant modified) {
+            if (lastKey != null && compareKeys(lastKey, key) >= 0) {
+                throw new IllegalStateException("Keys must be added in ascending order: " + key + " after " + lastKey);
+            }
+            lastKey = key;
+            if (count == sizes.length) {
+                int capacity = count * 2;
+                sizes = Arrays.copyOf(sizes, capacity);
+                lastModified = Arrays.copyOf(lastModified, capacity);
+                keyOffsets = Arrays.copyOf(keyOffsets, capacity + 1);
+                eTagOffsets = Arrays.copyOf(eTagOffsets, capacity + 1);
+            }
+            keyBytes = append(keyBytes, keyOffsets, key.getBytes(StandardCharsets.UTF_8));
+            eTagBytes = append(eTagBytes, eTagOffsets, (eTag != null ? eTag : "").getBytes(StandardCharsets.US_ASCII));
+            sizes[count] = size;
+            lastModified[count] = modified != null ? modified.toEpochMilli() : 0;
+            count++;
+            return this;
+        }
+
+        private byte[] append(byte[] column, int[] offsets, byte[] value) {
+            int start = offsets[count];
+            if (start + value.length > column.length) {
+                column = Arrays.copyOf(column, Math.max(column.length * 2, start + value.length));
+            }
+            System.arraycopy(value, 0, column, start, value.length);
+            offsets[count + 1] = start + value.length;
+            return column;
+        }
+
+        public KeySnapshot build() {
+            return new KeySnapshot(scannedAt, count,
+                    Arrays.copyOf(keyBytes, keyOffsets[count]), Arrays.copyOf(keyOffsets, count + 1),
+                    Arrays.copyOf(eTagBytes, eTagOffsets[count]), Arrays.copyOf(eTagOffsets, count + 1),
+                    Arrays.copyOf(sizes, count), Arrays.copyOf(lastModified, count));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.matheusoliveira04.s3flow.io;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed set of reusable transfer buffers shared by every streaming response, so copying an object
+ * to the client costs one buffer per in-flight transfer instead of one object-sized array.
+ */
+@Component
+public class BufferPool {
+
+    private final BlockingQueue<byte[]> buffers;
+    private final int bufferSize;
+
+    public BufferPool(
+            @Value("${s3flow.transfer.buffer-size:64KB}") DataSize bufferSize,
+            @Value("${s3flow.transfer.pool-size:64}") int poolSize
+    ) {
+        this.bufferSize = Math.toIntExact(bufferSize.toBytes());
+        this.buffers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public long transfer(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = acquire();
+        try {
+            long transferred = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                transferred += read;
+            }
+            outputStream.flush();
+            return transferred;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+}
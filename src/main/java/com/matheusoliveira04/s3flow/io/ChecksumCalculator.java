@@ -0,0 +1,105 @@
+package com.matheusoliveira04.s3flow.io;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the checksum S3 verifies for every PutObject and UploadPart body. Part bodies are already
+ * in memory, so this is a single pass over the buffer, and the SDK sends the precomputed value
+ * instead of reading the body again to calculate its own.
+ * <p>
+ * {@code CRC32C} is the JDK intrinsic, hardware-accelerated on current x86 and ARM CPUs; {@code SHA256}
+ * is there for callers that want a cryptographic digest. Time and bytes per algorithm are recorded in
+ * {@code s3flow.checksum.duration} and {@code s3flow.checksum.bytes}, so their throughput can be
+ * compared on real traffic.
+ */
+@Component
+public class ChecksumCalculator {
+
+    private final ChecksumAlgorithm algorithm;
+    private final Timer duration;
+    private final Counter bytes;
+
+    public ChecksumCalculator(
+            MeterRegistry meterRegistry,
+            @Value("${s3flow.checksum.algorithm:CRC32C}") String algorithm
+    ) {
+        this.algorithm = parse(algorithm);
+        if (this.algorithm == null) {
+            this.duration = null;
+            this.bytes = null;
+            return;
+        }
+        this.duration = Timer.builder("s3flow.checksum.duration")
+                .description("Time spent computing upload checksums")
+                .tag("algorithm", this.algorithm.toString())
+                .register(meterRegistry);
+        this.bytes = Counter.builder("s3flow.checksum.bytes")
+                .description("Upload bytes checksummed")
+                .baseUnit("bytes")
+                .tag("algorithm", this.algorithm.toString())
+                .register(meterRegistry);
+    }
+
+    /**
+     * The configured algorithm, or {@code null} when uploads are sent without a checksum of ours.
+     */
+    public ChecksumAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the base64 checksum of the first {@code length} bytes of {@code buffer}, or {@code null}
+     * when checksums are disabled.
+     */
+    public Checksum compute(byte[] buffer, int length) {
+        if (algorithm == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        byte[] digest = algorithm == ChecksumAlgorithm.CRC32_C ? crc32c(buffer, length) : sha256(buffer, length);
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        bytes.increment(length);
+        return new Checksum(algorithm, Base64.getEncoder().encodeToString(digest));
+    }
+
+    private static byte[] crc32c(byte[] buffer, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer, 0, length);
+        return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+    }
+
+    private static byte[] sha256(byte[] buffer, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer, 0, length);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ChecksumAlgorithm parse(String algorithm) {
+        return switch (algorithm.trim().toUpperCase(Locale.ROOT)) {
+            case "NONE" -> null;
+            case "CRC32C" -> ChecksumAlgorithm.CRC32_C;
+            case "SHA256", "SHA-256" -> ChecksumAlgorithm.SHA256;
+            default -> throw new IllegalArgumentException(
+                    "Unsupported s3flow.checksum.algorithm " + algorithm + ", expected NONE, CRC32C or SHA256");
+        };
+    }
+
+    public record Checksum(ChecksumAlgorithm algorithm, String value) {}
+}
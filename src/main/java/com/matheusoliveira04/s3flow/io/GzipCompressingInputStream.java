@@ -0,0 +1,84 @@
+package com.matheusoliveira04.s3flow.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses another stream as it is read, so compressed bytes can be handed to an upload that
+ * pulls from an {@link InputStream}. Only one input chunk and its compressed output are held at a time.
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final Output output = new Output();
+    private final GZIPOutputStream gzip;
+    private int position;
+    private boolean finished;
+
+    public GzipCompressingInputStream(InputStream source, int level) throws IOException {
+        this.source = source;
+        this.gzip = new GZIPOutputStream(output, CHUNK_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == output.size()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int count = Math.min(len, output.size() - position);
+        System.arraycopy(output.buffer(), position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (source) {
+            gzip.close();
+        }
+    }
+
+    private void fill() throws IOException {
+        output.reset();
+        position = 0;
+        int read = source.read(chunk);
+        if (read == -1) {
+            gzip.finish();
+            finished = true;
+        } else {
+            gzip.write(chunk, 0, read);
+        }
+    }
+
+    private static class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(CHUNK_SIZE);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.matheusoliveira04.s3flow.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes one JSON document per line and flushes it immediately, so results reach the client as soon as
+ * they are produced. Safe to call from several worker threads at once.
+ */
+public class NdjsonWriter {
+
+    private final ObjectWriter objectWriter;
+    private final OutputStream outputStream;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectWriter = objectMapper.writer();
+        this.outputStream = outputStream;
+    }
+
+    public void write(Object value) {
+        lock.lock();
+        try {
+            outputStream.write(objectWriter.writeValueAsBytes(value));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.matheusoliveira04.s3flow.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Turns the SDK's per-call metric collections into Micrometer meters tagged by S3 operation:
+ * <ul>
+ *     <li>{@code s3.client.requests}: API call latency including retries, by outcome and error type</li>
+ *     <li>{@code s3.client.attempts} and {@code s3.client.retries}: attempts per call and retries</li>
+ *     <li>{@code s3.client.time-to-first-byte}: per attempt, until response headers arrive</li>
+ *     <li>{@code s3.client.connection-acquire}: per attempt, waiting for a pooled connection</li>
+ * </ul>
+ * SLO buckets are configured through {@code management.metrics.distribution.slo.*}.
+ */
+@Component
+public class S3MetricPublisher implements MetricPublisher {
+
+    private static final String ATTEMPT = "ApiCallAttempt";
+    private static final String HTTP_CLIENT = "HttpClient";
+
+    private final MeterRegistry meterRegistry;
+
+    public S3MetricPublisher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        String operation = first(metrics, CoreMetric.OPERATION_NAME, "unknown");
+        List<MetricCollection> attempts = metrics.children().stream()
+                .filter(child -> ATTEMPT.equals(child.name()))
+                .toList();
+        boolean successful = first(metrics, CoreMetric.API_CALL_SUCCESSFUL, false);
+        String errorType = successful || attempts.isEmpty()
+                ? "none"
+                : first(attempts.getLast(), CoreMetric.ERROR_TYPE, "Other");
+
+        Duration callDuration = first(metrics, CoreMetric.API_CALL_DURATION, null);
+        if (callDuration != null) {
+            Timer.builder("s3.client.requests")
+                    .description("S3 API call latency including retries")
+                    .tag("operation", operation)
+                    .tag("outcome", successful ? "SUCCESS" : "ERROR")
+                    .tag("error", errorType)
+                    .register(meterRegistry)
+                    .record(callDuration);
+        }
+        DistributionSummary.builder("s3.client.attempts")
+                .description("HTTP attempts per S3 API call")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(attempts.size());
+        Counter.builder("s3.client.retries")
+                .description("Retried S3 API call attempts")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment(first(metrics, CoreMetric.RETRY_COUNT, 0));
+
+        for (MetricCollection attempt : attempts) {
+            record("s3.client.time-to-first-byte", "Time until S3 response headers arrive", operation,
+                    first(attempt, CoreMetric.TIME_TO_FIRST_BYTE, null));
+            attempt.children().stream()
+                    .filter(child -> HTTP_CLIENT.equals(child.name()))
+                    .forEach(http -> record("s3.client.connection-acquire", "Time waiting for an HTTP connection", operation,
+                            first(http, HttpMetric.CONCURRENCY_ACQUIRE_DURATION, null)));
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void record(String name, String description, String operation, Duration duration) {
+        if (duration != null) {
+            Timer.builder(name)
+                    .description(description)
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(duration);
+        }
+    }
+
+    private static <T> T first(MetricCollection metrics, SdkMetric<T> metric, T defaultValue) {
+        List<T> values = metrics.metricValues(metric);
+        return values.isEmpty() ? defaultValue : values.getFirst();
+    }
+}
@@ -0,0 +1,50 @@
+package com.matheusoliveira04.s3flow.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+/**
+ * Counts payload bytes per S3 operation in {@code s3.client.bytes}, tagged {@code direction=sent} for
+ * request bodies and {@code direction=received} for response bodies. Sizes come from Content-Length,
+ * so a download the client abandons early is still counted in full.
+ */
+@Component
+public class S3TransferInterceptor implements ExecutionInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public S3TransferInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        context.requestBody()
+                .flatMap(RequestBody::optionalContentLength)
+                .or(() -> context.asyncRequestBody().flatMap(AsyncRequestBody::contentLength))
+                .ifPresent(length -> count(operation, "sent", length));
+        context.httpResponse().firstMatchingHeader("Content-Length")
+                .map(Long::parseLong)
+                .ifPresent(length -> count(operation, "received", length));
+    }
+
+    private void count(String operation, String direction, long bytes) {
+        if (bytes > 0) {
+            Counter.builder("s3.client.bytes")
+                    .description("Payload bytes exchanged with S3")
+                    .baseUnit("bytes")
+                    .tag("operation", operation == null ? "unknown" : operation)
+                    .tag("direction", direction)
+                    .register(meterRegistry)
+                    .increment(bytes);
+        }
+    }
+}
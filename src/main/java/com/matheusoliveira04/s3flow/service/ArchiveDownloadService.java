@@ -0,0 +1,245 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams many objects as one ZIP archive, writing each entry straight to the response. While one
+ * entry is written, the next {@code s3flow.archive.prefetch} objects are already being fetched, each
+ * with up to {@code s3flow.archive.prefetch-buffer} of its body read ahead, so heap use per archive is
+ * bounded by their product and small objects are usually complete before the writer reaches them.
+ * <p>
+ * Objects of an already-compressed type ({@code s3flow.archive.stored-types}) are not deflated again:
+ * those that fit in the prefetch buffer become STORED entries, and larger ones, whose CRC is not known
+ * before their header has to be written, are deflated at level 0, which only frames the bytes.
+ */
+@Service
+public class ArchiveDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveDownloadService.class);
+
+    private static final int NOT_FOUND = 404;
+
+    private S3Service s3Service;
+
+    private DedupService dedupService;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    private BufferPool bufferPool;
+
+    @Value("${s3flow.archive.prefetch:4}")
+    private int prefetch;
+
+    @Value("${s3flow.archive.prefetch-buffer:8MB}")
+    private DataSize prefetchBuffer;
+
+    @Value("${s3flow.archive.stored-types:image/*,video/*,audio/*,application/zip,application/gzip,application/x-gzip,application/x-7z-compressed,application/x-bzip2,application/x-xz,application/zstd}")
+    private List<MediaType> storedTypes;
+
+    public ArchiveDownloadService(S3Service s3Service, DedupService dedupService, S3TaskExecutor s3TaskExecutor,
+                                  BufferPool bufferPool) {
+        this.s3Service = s3Service;
+        this.dedupService = dedupService;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Writes one entry per key, named after the key with {@code prefix} removed. Keys that no longer
+     * exist by the time they are fetched are left out, since the response is already under way.
+     */
+    public void writeZip(Iterator<String> keys, String prefix, OutputStream outputStream) throws IOException {
+        Deque<CompletableFuture<Prefetched>> window = new ArrayDeque<>();
+        Set<String> names = new HashSet<>();
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        try {
+            while (keys.hasNext() || !window.isEmpty()) {
+                while (keys.hasNext() && window.size() < prefetch) {
+                    String key = keys.next();
+                    String name = entryName(key, prefix);
+                    if (!name.isEmpty() && !key.endsWith("/") && names.add(name)) {
+                        window.add(s3TaskExecutor.supply(() -> fetch(key, name)));
+                    }
+                }
+                if (window.isEmpty()) {
+                    continue;
+                }
+                Prefetched object = await(window.poll());
+                if (object != null) {
+                    try (object) {
+                        writeEntry(zip, object);
+                    }
+                }
+            }
+            zip.finish();
+            outputStream.flush();
+        } finally {
+            window.forEach(future -> future.thenAccept(object -> {
+                if (object != null) {
+                    object.close();
+                }
+            }));
+        }
+    }
+
+    private Prefetched fetch(String key, String name) {
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = s3Service.openDownload(dedupService.isEnabled() ? dedupService.resolve(key) : key);
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                log.warn("Leaving {} out of the archive, it no longer exists", key);
+                return null;
+            }
+            throw e;
+        }
+        GetObjectResponse response = object.response();
+        try {
+            InputStream body = S3Service.GZIP.equalsIgnoreCase(response.contentEncoding()) ? new GZIPInputStream(object) : object;
+            byte[] head = body.readNBytes(Math.toIntExact(prefetchBuffer.toBytes()));
+            boolean complete = head.length < prefetchBuffer.toBytes();
+            if (complete) {
+                body.close();
+            }
+            return new Prefetched(name, isStored(name, response.contentType()), head, complete ? null : body, object);
+        } catch (IOException e) {
+            object.abort();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, Prefetched object) throws IOException {
+        ZipEntry entry = new ZipEntry(object.name);
+        if (object.stored && object.rest == null) {
+            CRC32 crc = new CRC32();
+            crc.update(object.head);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(object.head.length);
+            entry.setCompressedSize(object.head.length);
+            entry.setCrc(crc.getValue());
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+            zip.setLevel(object.stored ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        }
+        zip.putNextEntry(entry);
+        zip.write(object.head);
+        if (object.rest != null) {
+            bufferPool.transfer(object.rest, zip);
+            object.consumed = true;
+        }
+        zip.closeEntry();
+    }
+
+    private boolean isStored(String name, String contentType) {
+        MediaType mediaType = null;
+        if (contentType != null) {
+            try {
+                mediaType = MediaType.parseMediaType(contentType);
+            } catch (InvalidMediaTypeException ignored) {
+            }
+        }
+        if (mediaType == null || MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(mediaType)) {
+            mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        }
+        MediaType type = mediaType;
+        return storedTypes.stream().anyMatch(stored -> stored.includes(type));
+    }
+
+    /**
+     * The key relative to {@code prefix}, with backslashes turned into slashes and empty, {@code .} and
+     * {@code ..} segments dropped, so no entry can point outside the folder it is extracted into.
+     */
+    private static String entryName(String key, String prefix) {
+        String name = prefix != null && key.startsWith(prefix) ? key.substring(prefix.length()) : key;
+        return Arrays.stream(name.replace('\\', '/').split("/"))
+                .filter(segment -> !segment.isEmpty() && !segment.equals(".") && !segment.equals(".."))
+                .collect(Collectors.joining("/"));
+    }
+
+    private static Prefetched await(CompletableFuture<Prefetched> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an archive entry");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * An object whose first bytes are in {@code head}; {@code rest} is the still-open remainder, or
+     * {@code null} when {@code head} is the whole object. Closing it before the remainder was read to
+     * the end aborts the GET instead of draining it.
+     */
+    private static final class Prefetched implements Closeable {
+
+        private final String name;
+        private final boolean stored;
+        private final byte[] head;
+        private final InputStream rest;
+        private final ResponseInputStream<GetObjectResponse> object;
+        private boolean consumed;
+
+        private Prefetched(String name, boolean stored, byte[] head, InputStream rest,
+                           ResponseInputStream<GetObjectResponse> object) {
+            this.name = name;
+            this.stored = stored;
+            this.head = head;
+            this.rest = rest;
+            this.object = object;
+            this.consumed = rest == null;
+        }
+
+        @Override
+        public void close() {
+            if (!consumed) {
+                object.abort();
+            }
+            try {
+                object.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
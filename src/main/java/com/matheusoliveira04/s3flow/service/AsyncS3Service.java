@@ -0,0 +1,108 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link S3Service} built on {@link S3AsyncClient}. Every operation returns
+ * as soon as the request is issued, so the calling request thread is free while S3 I/O is in flight.
+ */
+@Service
+@ConditionalOnProperty(name = "s3flow.async.enabled", havingValue = "true")
+public class AsyncS3Service {
+
+    private S3AsyncClient s3AsyncClient;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${aws.bucket.name}")
+    private String bucketName;
+
+    public AsyncS3Service(S3AsyncClient s3AsyncClient, S3TaskExecutor s3TaskExecutor,
+                          ApplicationEventPublisher eventPublisher) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CompletableFuture<Void> uploadFile(MultipartFile file) throws IOException {
+        String key = file.getOriginalFilename();
+        InputStream inputStream = file.getInputStream();
+        return s3AsyncClient.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType(file.getContentType())
+                                .build(),
+                        AsyncRequestBody.fromInputStream(inputStream, file.getSize(), s3TaskExecutor.executorService())
+                )
+                .whenComplete((response, throwable) -> closeQuietly(inputStream))
+                .thenAccept(response -> eventPublisher.publishEvent(new ObjectChangedEvent(key, false)));
+    }
+
+    /**
+     * Completes once the response headers arrive. The body is buffered by the SDK with backpressure,
+     * so reading the returned stream never blocks the client's event loop.
+     */
+    public CompletableFuture<ResponseInputStream<GetObjectResponse>> downloadFile(String key) {
+        return s3AsyncClient.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build(),
+                AsyncResponseTransformer.toBlockingInputStream()
+        );
+    }
+
+    public CompletableFuture<Void> deleteFile(String key) {
+        return s3AsyncClient.deleteObject(
+                        DeleteObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build()
+                )
+                .thenAccept(response -> eventPublisher.publishEvent(new ObjectChangedEvent(key, true)));
+    }
+
+    public CompletableFuture<List<String>> listAll(String prefix, String delimiter) {
+        List<String> keys = new ArrayList<>();
+        return s3AsyncClient.listObjectsV2Paginator(
+                        ListObjectsV2Request.builder()
+                                .bucket(bucketName)
+                                .prefix(prefix)
+                                .delimiter(delimiter)
+                                .build()
+                )
+                .subscribe(response -> {
+                    response.commonPrefixes().forEach(commonPrefix -> keys.add(commonPrefix.prefix()));
+                    response.contents().forEach(object -> keys.add(object.key()));
+                })
+                .thenApply(unused -> List.copyOf(keys));
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // the upload already finished, nothing left to release
+        }
+    }
+}
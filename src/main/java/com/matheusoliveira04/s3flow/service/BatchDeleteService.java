@@ -0,0 +1,85 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.BoundedTaskWindow;
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Deletes many keys as 1000-key DeleteObjects calls, keeping at most {@code parallelism} calls in
+ * flight. Keys are pulled from the iterator only when a slot frees up, so a prefix walk never runs
+ * far ahead of the deletes.
+ */
+@Service
+public class BatchDeleteService {
+
+    static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private S3Service s3Service;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    private DedupService dedupService;
+
+    @Value("${s3flow.batch-delete.parallelism:4}")
+    private int parallelism;
+
+    public BatchDeleteService(S3Service s3Service, S3TaskExecutor s3TaskExecutor, DedupService dedupService) {
+        this.s3Service = s3Service;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.dedupService = dedupService;
+    }
+
+    /**
+     * Reports one result per key to {@code results} as soon as its batch completes. Keys reserved for
+     * deduplicated content are reported as failures without being deleted. The consumer is called from
+     * executor threads and must be thread-safe.
+     */
+    public void delete(Iterator<String> keys, Consumer<ObjectResult> results) throws IOException {
+        try (BoundedTaskWindow window = new BoundedTaskWindow(s3TaskExecutor, parallelism)) {
+            while (keys.hasNext()) {
+                List<String> batch = nextBatch(keys, results);
+                if (!batch.isEmpty()) {
+                    window.submit(() -> deleteBatch(batch, results));
+                }
+            }
+            window.await();
+        }
+    }
+
+    private void deleteBatch(List<String> batch, Consumer<ObjectResult> results) {
+        DeleteObjectsResponse response;
+        try {
+            response = s3Service.deleteObjects(batch);
+        } catch (SdkException e) {
+            batch.forEach(key -> results.accept(ObjectResult.failure(key, e.getMessage())));
+            return;
+        }
+        response.deleted().forEach(deleted -> results.accept(ObjectResult.success(deleted.key())));
+        response.errors().forEach(error -> results.accept(ObjectResult.failure(error.key(), error.code() + ": " + error.message())));
+    }
+
+    private List<String> nextBatch(Iterator<String> keys, Consumer<ObjectResult> results) {
+        List<String> batch = new ArrayList<>(MAX_KEYS_PER_REQUEST);
+        while (keys.hasNext() && batch.size() < MAX_KEYS_PER_REQUEST) {
+            String key = keys.next();
+            try {
+                dedupService.requireNotInternal(key);
+                batch.add(key);
+            } catch (InvalidRequestException e) {
+                results.accept(ObjectResult.failure(key, e.getMessage()));
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,133 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.BoundedTaskWindow;
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Uploads many objects from one request, keeping up to {@code window} PutObject calls in flight. The
+ * request is consumed only as fast as slots free up, so a slow bucket pushes back on the client
+ * instead of filling the heap.
+ */
+@Service
+public class BatchUploadService {
+
+    private S3Service s3Service;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    private DedupService dedupService;
+
+    @Value("${s3flow.batch-upload.window:16}")
+    private int window;
+
+    @Value("${s3flow.batch-upload.max-buffered-size:8MB}")
+    private DataSize maxBufferedSize;
+
+    public BatchUploadService(S3Service s3Service, S3TaskExecutor s3TaskExecutor, DedupService dedupService) {
+        this.s3Service = s3Service;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.dedupService = dedupService;
+    }
+
+    /**
+     * Uploads every part under its original filename. The consumer is called from executor threads and
+     * must be thread-safe.
+     */
+    public void uploadFiles(List<MultipartFile> files, Consumer<ObjectResult> results) throws IOException {
+        try (BoundedTaskWindow tasks = new BoundedTaskWindow(s3TaskExecutor, window)) {
+            for (MultipartFile file : files) {
+                tasks.submit(() -> results.accept(upload(file)));
+            }
+            tasks.await();
+        }
+    }
+
+    /**
+     * Unpacks a zip stream on the fly and uploads each file entry under {@code prefix + entryName}.
+     * Entries up to {@code max-buffered-size} are read into memory and uploaded concurrently; larger
+     * entries are streamed through a multipart upload on the calling thread while the window drains.
+     */
+    public void uploadArchive(InputStream archive, String prefix, Consumer<ObjectResult> results) throws IOException {
+        int limit = Math.toIntExact(maxBufferedSize.toBytes());
+        try (BoundedTaskWindow tasks = new BoundedTaskWindow(s3TaskExecutor, window);
+             ZipInputStream zip = new ZipInputStream(archive)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String key = keyOf(prefix, entry.getName());
+                String contentType = contentTypeOf(entry.getName());
+                byte[] head = zip.readNBytes(limit + 1);
+                if (head.length <= limit) {
+                    tasks.submit(() -> results.accept(upload(key, () -> uploadBuffered(key, contentType, head))));
+                    continue;
+                }
+                InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(head), StreamUtils.nonClosing(zip));
+                results.accept(upload(key, () -> s3Service.uploadStream(key, contentType, remaining)));
+            }
+            tasks.await();
+        }
+    }
+
+    private ObjectResult upload(MultipartFile file) {
+        String key = file.getOriginalFilename();
+        return upload(key, () -> {
+            if (file.getSize() <= maxBufferedSize.toBytes()) {
+                uploadBuffered(key, file.getContentType(), file.getBytes());
+            } else {
+                s3Service.uploadFile(file);
+            }
+        });
+    }
+
+    private void uploadBuffered(String key, String contentType, byte[] content) throws IOException {
+        if (s3Service.compresses(contentType)) {
+            s3Service.uploadStream(key, contentType, new ByteArrayInputStream(content));
+        } else {
+            s3Service.uploadBytes(key, contentType, content, content.length);
+        }
+    }
+
+    private ObjectResult upload(String key, UploadAction action) {
+        try {
+            dedupService.requireNotInternal(key);
+            action.run();
+            return ObjectResult.success(key);
+        } catch (IOException | SdkException | InvalidRequestException e) {
+            return ObjectResult.failure(key, e.getMessage());
+        }
+    }
+
+    private static String keyOf(String prefix, String entryName) {
+        String name = entryName.startsWith("/") ? entryName.substring(1) : entryName;
+        return prefix == null ? name : prefix + name;
+    }
+
+    private static String contentTypeOf(String name) {
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    @FunctionalInterface
+    private interface UploadAction {
+        void run() throws IOException;
+    }
+}
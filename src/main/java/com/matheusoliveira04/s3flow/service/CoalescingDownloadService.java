@@ -0,0 +1,326 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-flight downloads: concurrent requests for the same key and ETag share one GET. Its bytes go
+ * into a ring buffer that every joined request reads at its own pace. Whichever reader runs out of
+ * buffered bytes pulls the next chunk from S3, so the shared stream moves as fast as the fastest
+ * reader and nobody waits for a slower one. A reader that falls a whole buffer behind has had its next
+ * bytes overwritten; it leaves the flight and finishes with a ranged GET of its own.
+ * <p>
+ * Requests join a flight only while its buffer still holds the start of the object. All buffers
+ * together are bounded by {@code s3flow.download.coalescing.max-memory}; past that, requests stream
+ * on their own.
+ */
+@Service
+public class CoalescingDownloadService {
+
+    private static final int PULL_SIZE = 64 * 1024;
+
+    private S3Service s3Service;
+
+    private BufferPool bufferPool;
+
+    private MeterRegistry meterRegistry;
+
+    @Value("${s3flow.download.coalescing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.download.coalescing.buffer-size:8MB}")
+    private DataSize bufferSize;
+
+    @Value("${s3flow.download.coalescing.max-memory:256MB}")
+    private DataSize maxMemory;
+
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public CoalescingDownloadService(S3Service s3Service, BufferPool bufferPool, MeterRegistry meterRegistry) {
+        this.s3Service = s3Service;
+        this.bufferPool = bufferPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean accepts(Long contentLength) {
+        return enabled && contentLength != null && contentLength > 0;
+    }
+
+    public void writeTo(String key, String eTag, long contentLength, OutputStream outputStream) throws IOException {
+        Flight flight = join(new FlightKey(key, eTag), contentLength);
+        if (flight == null) {
+            record("bypassed");
+            transferFrom(key, eTag, 0, outputStream);
+            return;
+        }
+        flight.transferTo(outputStream);
+    }
+
+    private Flight join(FlightKey flightKey, long contentLength) {
+        int capacity = (int) Math.min(bufferSize.toBytes(), contentLength);
+        Flight[] joined = new Flight[1];
+        flights.compute(flightKey, (unused, flight) -> {
+            if (flight != null && flight.join()) {
+                record("joined");
+                joined[0] = flight;
+                return flight;
+            }
+            if (!reserve(capacity)) {
+                return flight;
+            }
+            Flight created = new Flight(flightKey, contentLength, capacity);
+            created.join();
+            record("opened");
+            joined[0] = created;
+            return created;
+        });
+        return joined[0];
+    }
+
+    private boolean reserve(int capacity) {
+        long limit = maxMemory.toBytes();
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + capacity > limit) {
+                return false;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + capacity));
+        return true;
+    }
+
+    private void transferFrom(String key, String eTag, long start, OutputStream outputStream) throws IOException {
+        try (InputStream object = s3Service.openFrom(key, eTag, start)) {
+            bufferPool.transfer(object, outputStream);
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("s3flow.download.coalescing", "outcome", outcome).increment();
+    }
+
+    /**
+     * One shared GET. {@code written} counts the object bytes received so far; bytes before
+     * {@code overwritten} may already have been replaced in the ring and are no longer readable.
+     * Readers copy a slice out of the ring without holding the lock and check {@code overwritten}
+     * again afterwards, so a slice that was overwritten while it was being copied is never sent.
+     */
+    private final class Flight {
+
+        private final FlightKey flightKey;
+        private final long contentLength;
+        private final byte[] ring;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private ResponseInputStream<GetObjectResponse> upstream;
+        private long written;
+        private long overwritten;
+        private boolean pulling;
+        private boolean failed;
+        private boolean closed;
+        private int readers;
+
+        private Flight(FlightKey flightKey, long contentLength, int capacity) {
+            this.flightKey = flightKey;
+            this.contentLength = contentLength;
+            this.ring = new byte[capacity];
+        }
+
+        boolean join() {
+            lock.lock();
+            try {
+                if (closed || failed || overwritten > 0) {
+                    return false;
+                }
+                readers++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void transferTo(OutputStream outputStream) throws IOException {
+            byte[] buffer = bufferPool.acquire();
+            boolean joined = true;
+            try {
+                long position = 0;
+                while (position < contentLength) {
+                    int length = next(position, buffer.length);
+                    if (length == 0) {
+                        pull();
+                        continue;
+                    }
+                    if (length < 0 || !copy(position, buffer, length)) {
+                        joined = false;
+                        leave();
+                        record("fallback");
+                        transferFrom(flightKey.key(), flightKey.eTag(), position, outputStream);
+                        return;
+                    }
+                    outputStream.write(buffer, 0, length);
+                    position += length;
+                }
+                outputStream.flush();
+            } finally {
+                bufferPool.release(buffer);
+                if (joined) {
+                    leave();
+                }
+            }
+        }
+
+        /**
+         * Returns how many bytes from {@code position} can be copied, {@code 0} when the caller has to
+         * pull the next chunk, or {@code -1} when it has to fall back to its own GET.
+         */
+        private int next(long position, int maxLength) throws IOException {
+            lock.lock();
+            try {
+                while (true) {
+                    if (failed || position < overwritten) {
+                        return -1;
+                    }
+                    if (position < written) {
+                        long contiguous = ring.length - position % ring.length;
+                        return (int) Math.min(Math.min(written - position, contiguous), maxLength);
+                    }
+                    if (!pulling) {
+                        pulling = true;
+                        return 0;
+                    }
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a shared download");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean copy(long position, byte[] buffer, int length) {
+            System.arraycopy(ring, (int) (position % ring.length), buffer, 0, length);
+            lock.lock();
+            try {
+                return position >= overwritten;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Reads the next chunk into the ring. Only the reader that set {@code pulling} gets here, so
+         * {@code upstream} and the ring slice being filled are never touched by two threads at once.
+         */
+        private void pull() {
+            int offset;
+            int length;
+            lock.lock();
+            try {
+                offset = (int) (written % ring.length);
+                length = (int) Math.min(Math.min(PULL_SIZE, ring.length - offset), contentLength - written);
+                overwritten = Math.max(overwritten, written + length - ring.length);
+            } finally {
+                lock.unlock();
+            }
+
+            int read;
+            try {
+                if (upstream == null) {
+                    upstream = s3Service.openFrom(flightKey.key(), flightKey.eTag(), 0);
+                }
+                read = upstream.read(ring, offset, length);
+                if (read < 0) {
+                    throw new EOFException("Object ended before its content length");
+                }
+            } catch (IOException | RuntimeException e) {
+                finishPull(0, true);
+                return;
+            }
+            finishPull(read, false);
+        }
+
+        private void finishPull(int read, boolean failure) {
+            boolean done;
+            lock.lock();
+            try {
+                written += read;
+                failed |= failure;
+                pulling = false;
+                done = failed || written == contentLength;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (done) {
+                flights.remove(flightKey, this);
+                closeUpstream();
+            }
+        }
+
+        private void leave() {
+            lock.lock();
+            try {
+                if (--readers > 0) {
+                    return;
+                }
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            flights.remove(flightKey, this);
+            reservedBytes.addAndGet(-ring.length);
+            closeUpstream();
+        }
+
+        /**
+         * Called once the object is complete, the GET failed, or the last reader left; in the last
+         * case the stream is aborted rather than drained.
+         */
+        private void closeUpstream() {
+            ResponseInputStream<GetObjectResponse> stream;
+            boolean complete;
+            lock.lock();
+            try {
+                stream = upstream;
+                upstream = null;
+                complete = written == contentLength;
+            } finally {
+                lock.unlock();
+            }
+            if (stream == null) {
+                return;
+            }
+            if (!complete) {
+                stream.abort();
+            }
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private record FlightKey(String key, String eTag) {}
+}
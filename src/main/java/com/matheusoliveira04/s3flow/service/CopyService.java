@@ -0,0 +1,167 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.BoundedTaskWindow;
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Copies and moves objects without their bytes leaving S3. Objects up to
+ * {@code s3flow.copy.multipart-threshold}, and never more than the 5 GB CopyObject accepts, take one
+ * CopyObject call; larger ones are copied as UploadPartCopy ranges with up to
+ * {@code s3flow.copy.parallelism} parts in flight. A move is a copy followed by a delete of the source.
+ * <p>
+ * Prefix moves fan out over up to {@code s3flow.copy.prefix-parallelism} objects at once. Each object
+ * is already a task on the executor there, so its parts are copied one after another rather than
+ * waiting on a second window for executor threads.
+ */
+@Service
+public class CopyService {
+
+    static final long MAX_COPY_OBJECT_SIZE = DataSize.ofGigabytes(5).toBytes();
+
+    static final int MAX_PARTS = 10_000;
+
+    private S3Service s3Service;
+
+    private DedupService dedupService;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    @Value("${s3flow.copy.multipart-threshold:5GB}")
+    private DataSize multipartThreshold;
+
+    @Value("${s3flow.copy.part-size:512MB}")
+    private DataSize partSize;
+
+    @Value("${s3flow.copy.parallelism:8}")
+    private int parallelism;
+
+    @Value("${s3flow.copy.prefix-parallelism:16}")
+    private int prefixParallelism;
+
+    public CopyService(S3Service s3Service, DedupService dedupService, S3TaskExecutor s3TaskExecutor) {
+        this.s3Service = s3Service;
+        this.dedupService = dedupService;
+        this.s3TaskExecutor = s3TaskExecutor;
+    }
+
+    public void copy(String source, String destination) throws IOException {
+        requireDifferent(source, destination);
+        dedupService.requireNotInternal(destination);
+        copy(source, destination, true);
+    }
+
+    public void move(String source, String destination) throws IOException {
+        requireDifferent(source, destination);
+        dedupService.requireNotInternal(source);
+        dedupService.requireNotInternal(destination);
+        move(source, destination, true);
+    }
+
+    /**
+     * Moves every key under {@code sourcePrefix} to the same name under {@code destinationPrefix},
+     * reporting one result per key as soon as it is done. Neither prefix may start with the other, or
+     * moved keys would show up again in the listing being walked. The consumer is called from executor
+     * threads and must be thread-safe.
+     */
+    public void movePrefix(String sourcePrefix, String destinationPrefix, Consumer<ObjectResult> results) throws IOException {
+        try (Stream<String> keys = s3Service.streamKeys(sourcePrefix, null);
+             BoundedTaskWindow window = new BoundedTaskWindow(s3TaskExecutor, prefixParallelism)) {
+            for (Iterator<String> iterator = keys.iterator(); iterator.hasNext(); ) {
+                String key = iterator.next();
+                String destination = destinationPrefix + key.substring(sourcePrefix.length());
+                window.submit(() -> results.accept(moveObject(key, destination)));
+            }
+            window.await();
+        }
+    }
+
+    private ObjectResult moveObject(String source, String destination) {
+        try {
+            dedupService.requireNotInternal(destination);
+            move(source, destination, false);
+            return ObjectResult.success(source);
+        } catch (IOException | SdkException | InvalidRequestException e) {
+            return ObjectResult.failure(source, e.getMessage());
+        }
+    }
+
+    private void move(String source, String destination, boolean parallelParts) throws IOException {
+        if (dedupService.isEnabled() && dedupService.copy(source, destination)) {
+            dedupService.delete(source);
+            return;
+        }
+        copyObject(source, destination, parallelParts);
+        s3Service.deleteFile(source);
+    }
+
+    private void copy(String source, String destination, boolean parallelParts) throws IOException {
+        if (dedupService.isEnabled() && dedupService.copy(source, destination)) {
+            return;
+        }
+        copyObject(source, destination, parallelParts);
+    }
+
+    private void copyObject(String source, String destination, boolean parallelParts) throws IOException {
+        HeadObjectResponse head = s3Service.headObject(source);
+        if (head.contentLength() <= Math.min(multipartThreshold.toBytes(), MAX_COPY_OBJECT_SIZE)) {
+            s3Service.copyObject(source, head.eTag(), destination);
+            return;
+        }
+
+        long size = head.contentLength();
+        long part = Math.max(partSize.toBytes(), Math.ceilDiv(size, MAX_PARTS));
+        CompletedPart[] parts = new CompletedPart[Math.toIntExact(Math.ceilDiv(size, part))];
+        String uploadId = s3Service.createMultipartUpload(destination, head.contentType(), head.contentEncoding(), head.metadata());
+        try {
+            if (parallelParts) {
+                try (BoundedTaskWindow window = new BoundedTaskWindow(s3TaskExecutor, parallelism)) {
+                    for (int i = 0; i < parts.length; i++) {
+                        int index = i;
+                        window.submit(() -> parts[index] = copyPart(source, head.eTag(), destination, uploadId, index, part, size));
+                    }
+                    window.await();
+                }
+            } else {
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = copyPart(source, head.eTag(), destination, uploadId, i, part, size);
+                }
+            }
+            s3Service.completeUpload(destination, uploadId, List.of(parts));
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3Service.abortUpload(destination, uploadId);
+            } catch (RuntimeException abortException) {
+                e.addSuppressed(abortException);
+            }
+            throw e;
+        }
+    }
+
+    private CompletedPart copyPart(String source, String eTag, String destination, String uploadId,
+                                   int index, long part, long size) {
+        long start = index * part;
+        long end = Math.min(start + part, size) - 1;
+        return s3Service.uploadPartCopy(source, eTag, destination, uploadId, index + 1, start, end);
+    }
+
+    private static void requireDifferent(String source, String destination) {
+        if (!StringUtils.hasText(destination) || source.equals(destination)) {
+            throw new InvalidRequestException("Destination must be a key other than the source.");
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Content-addressed storage for uploads. Bytes are stored once under {@code <prefix>content/<sha256>};
+ * the name the client used becomes an empty pointer object carrying the hash in its metadata, and
+ * every pointer owns a marker under {@code <prefix>refs/<sha256>/<name>}. Uploading content that is
+ * already stored costs two tiny PUTs instead of the full body, and the content is deleted once its
+ * last marker is gone.
+ * <p>
+ * Writes are ordered marker, content, pointer, so a failure never leaves a pointer without content.
+ * S3 offers no transactions, so a delete racing an upload of the same bytes can still remove content
+ * the upload has just referenced.
+ */
+@Service
+public class DedupService {
+
+    static final String CONTENT_HASH_METADATA = "s3flow-content-sha256";
+
+    private static final int NOT_FOUND = 404;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private S3Service s3Service;
+
+    @Value("${s3flow.dedup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.dedup.prefix:.dedup/}")
+    private String prefix;
+
+    @Value("${s3flow.dedup.spool-directory:${java.io.tmpdir}}")
+    private Path spoolDirectory;
+
+    public DedupService(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    @PostConstruct
+    void initialize() {
+        if (enabled) {
+            s3Service.hideKeys(this::isInternal);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the key is one of the content objects or markers kept under {@code s3flow.dedup.prefix}.
+     */
+    public boolean isInternal(String key) {
+        return enabled && key.startsWith(prefix);
+    }
+
+    /**
+     * Rejects names under {@code s3flow.dedup.prefix}, so no client write or delete can overwrite shared
+     * content or drop the markers that keep it alive.
+     */
+    public void requireNotInternal(String name) {
+        if (name != null && isInternal(name)) {
+            throw new InvalidRequestException("Names under " + prefix + " are reserved for deduplicated content.");
+        }
+    }
+
+    /**
+     * Whether {@code name} is currently a pointer to deduplicated content. Always {@code false} while
+     * dedup is disabled.
+     */
+    public boolean isPointer(String name) {
+        return enabled && hashOf(name) != null;
+    }
+
+    /**
+     * Spools the stream to a local file while hashing it, then uploads the content only if no object
+     * with the same hash exists yet.
+     */
+    public void upload(String name, String contentType, InputStream inputStream) throws IOException {
+        requireNotInternal(name);
+        Path spool = Files.createTempFile(spoolDirectory, "s3flow-dedup-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            Files.copy(new DigestInputStream(inputStream, digest), spool, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String previousHash = hashOf(name);
+
+            s3Service.uploadBytes(refKey(hash, name), null, EMPTY, 0);
+            if (!exists(contentKey(hash))) {
+                try (InputStream content = Files.newInputStream(spool)) {
+                    s3Service.uploadStream(contentKey(hash), contentType, content);
+                }
+            }
+            s3Service.uploadBytes(name, contentType, Map.of(CONTENT_HASH_METADATA, hash), EMPTY, 0);
+
+            if (previousHash != null && !previousHash.equals(hash)) {
+                release(name, previousHash);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * Returns the key holding the bytes for {@code name}: its content object when {@code name} is a
+     * pointer, otherwise {@code name} itself, so objects stored before dedup was enabled still resolve.
+     */
+    public String resolve(String name) {
+        if (!enabled) {
+            return name;
+        }
+        String hash = hashOf(name);
+        return hash == null ? name : contentKey(hash);
+    }
+
+    /**
+     * Copies a pointer by giving {@code destination} its own marker and pointer to the same content,
+     * so the content outlives either name. Returns {@code false}, copying nothing, when {@code source}
+     * is not a pointer and its bytes have to be copied as a plain object.
+     */
+    public boolean copy(String source, String destination) {
+        requireNotInternal(destination);
+        HeadObjectResponse head = s3Service.headObject(source);
+        String hash = head.metadata().get(CONTENT_HASH_METADATA);
+        if (hash == null) {
+            return false;
+        }
+        String previousHash = hashOf(destination);
+        s3Service.uploadBytes(refKey(hash, destination), null, EMPTY, 0);
+        s3Service.uploadBytes(destination, head.contentType(), Map.of(CONTENT_HASH_METADATA, hash), EMPTY, 0);
+        if (previousHash != null && !previousHash.equals(hash)) {
+            release(destination, previousHash);
+        }
+        return true;
+    }
+
+    public void delete(String name) {
+        requireNotInternal(name);
+        String hash = hashOf(name);
+        s3Service.deleteFile(name);
+        if (hash != null) {
+            release(name, hash);
+        }
+    }
+
+    private void release(String name, String hash) {
+        s3Service.deleteFile(refKey(hash, name));
+        if (!s3Service.hasKeys(refsPrefix(hash))) {
+            s3Service.deleteFile(contentKey(hash));
+        }
+    }
+
+    private String hashOf(String name) {
+        try {
+            return s3Service.headObject(name).metadata().get(CONTENT_HASH_METADATA);
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private boolean exists(String key) {
+        try {
+            s3Service.headObject(key);
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private String contentKey(String hash) {
+        return prefix + "content/" + hash;
+    }
+
+    private String refsPrefix(String hash) {
+        return prefix + "refs/" + hash + "/";
+    }
+
+    private String refKey(String hash, String name) {
+        return refsPrefix(hash) + name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
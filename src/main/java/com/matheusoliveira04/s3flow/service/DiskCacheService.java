@@ -0,0 +1,282 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import com.matheusoliveira04.s3flow.event.ObjectsDeletedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache of whole objects on local disk. Entries are validated against the ETag and
+ * Last-Modified of the current HeadObject response, filled once per key no matter how many requests
+ * miss at the same time, and evicted least-recently-used once the byte budget is exceeded.
+ * <p>
+ * Cache files are named {@code s3flow-cache-<uuid>}; at startup only files with that prefix are
+ * removed from {@code s3flow.disk-cache.directory}, so the directory can be shared with other data.
+ */
+@Service
+public class DiskCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCacheService.class);
+
+    static final String FILE_PREFIX = "s3flow-cache-";
+
+    private S3Service s3Service;
+
+    @Value("${s3flow.disk-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.disk-cache.directory:${java.io.tmpdir}/s3flow-cache}")
+    private Path directory;
+
+    @Value("${s3flow.disk-cache.max-size:1GB}")
+    private DataSize maxSize;
+
+    @Value("${s3flow.disk-cache.max-object-size:256MB}")
+    private DataSize maxObjectSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<CachedObject>> fills = new ConcurrentHashMap<>();
+    private long usedBytes;
+
+    public DiskCacheService(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    @PostConstruct
+    void initialize() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean accepts(HeadObjectResponse head) {
+        return enabled && head.contentLength() != null && head.contentLength() <= maxObjectSize.toBytes();
+    }
+
+    /**
+     * Returns the cached copy of the object described by {@code head}, downloading it first if the
+     * cache holds no copy or a copy of a different version.
+     */
+    public CachedObject get(String key, HeadObjectResponse head) throws IOException {
+        CachedObject cached = lookup(key, head);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<CachedObject> fill = new CompletableFuture<>();
+        CompletableFuture<CachedObject> existing = fills.putIfAbsent(key, fill);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            fill.complete(download(key));
+        } catch (IOException | RuntimeException e) {
+            fill.completeExceptionally(e);
+        } finally {
+            fills.remove(key, fill);
+        }
+        return await(fill);
+    }
+
+    /**
+     * Writes the cached file with {@link FileChannel#transferTo}. If the entry was evicted between
+     * lookup and open, the same version of the object is streamed from S3 instead; the response
+     * already announced the cached size, so a body of any other length fails the response.
+     */
+    public void transferTo(String key, CachedObject cached, OutputStream outputStream) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(cached.path(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            try (ResponseInputStream<GetObjectResponse> object = s3Service.openFrom(key, cached.eTag(), 0)) {
+                Long contentLength = object.response().contentLength();
+                if (contentLength == null || contentLength != cached.size()) {
+                    object.abort();
+                    throw new IOException("Object " + key + " is " + contentLength + " bytes, " + cached.size() + " were announced");
+                }
+                object.transferTo(outputStream);
+            }
+            outputStream.flush();
+            return;
+        }
+        try (channel) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = 0;
+            while (position < cached.size()) {
+                position += channel.transferTo(position, cached.size() - position, target);
+            }
+        }
+        outputStream.flush();
+    }
+
+    @EventListener
+    public void onObjectChanged(ObjectChangedEvent event) {
+        if (enabled) {
+            evict(event.key());
+        }
+    }
+
+    @EventListener
+    public void onObjectsDeleted(ObjectsDeletedEvent event) {
+        if (enabled) {
+            event.keys().forEach(this::evict);
+        }
+    }
+
+    public void evict(String key) {
+        CachedObject removed;
+        lock.lock();
+        try {
+            removed = entries.remove(key);
+            if (removed != null) {
+                usedBytes -= removed.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(removed);
+    }
+
+    private CachedObject lookup(String key, HeadObjectResponse head) {
+        CachedObject stale;
+        lock.lock();
+        try {
+            CachedObject cached = entries.get(key);
+            if (cached == null || cached.matches(head)) {
+                return cached;
+            }
+            stale = entries.remove(key);
+            usedBytes -= stale.size();
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(stale);
+        return null;
+    }
+
+    private CachedObject download(String key) throws IOException {
+        Path path = directory.resolve(FILE_PREFIX + UUID.randomUUID());
+        Path temporary = directory.resolve(path.getFileName() + ".part");
+        CachedObject cached;
+        try (ResponseInputStream<GetObjectResponse> object = s3Service.openDownload(key)) {
+            long size = Files.copy(object, temporary);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            cached = new CachedObject(path, size, object.response().eTag(), object.response().lastModified());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        store(key, cached);
+        return cached;
+    }
+
+    private void store(String key, CachedObject cached) {
+        List<CachedObject> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            CachedObject previous = entries.put(key, cached);
+            if (previous != null) {
+                usedBytes -= previous.size();
+                evicted.add(previous);
+            }
+            usedBytes += cached.size();
+
+            Iterator<CachedObject> eldest = entries.values().iterator();
+            while (usedBytes > maxSize.toBytes() && eldest.hasNext()) {
+                CachedObject candidate = eldest.next();
+                if (candidate == cached) {
+                    continue;
+                }
+                eldest.remove();
+                usedBytes -= candidate.size();
+                evicted.add(candidate);
+            }
+        } finally {
+            lock.unlock();
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    private void deleteQuietly(CachedObject cached) {
+        if (cached == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(cached.path());
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}", cached.path(), e);
+        }
+    }
+
+    private static CachedObject await(CompletableFuture<CachedObject> fill) throws IOException {
+        try {
+            return fill.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a cache fill");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    public record CachedObject(Path path, long size, String eTag, Instant lastModified) {
+
+        boolean matches(HeadObjectResponse head) {
+            return Objects.equals(eTag, head.eTag()) && Objects.equals(lastModified, head.lastModified());
+        }
+    }
+}
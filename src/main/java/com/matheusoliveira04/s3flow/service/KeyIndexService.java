@@ -0,0 +1,181 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.IndexStats;
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import com.matheusoliveira04.s3flow.event.ObjectsDeletedEvent;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import com.matheusoliveira04.s3flow.index.KeyIndex;
+import com.matheusoliveira04.s3flow.index.KeyQuery;
+import com.matheusoliveira04.s3flow.index.KeySnapshot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link KeyIndex} of the whole bucket for prefix, glob and size queries that would otherwise
+ * walk the listing. A full scan rebuilds the index every {@code s3flow.index.refresh-interval}; in
+ * between, uploads and deletes reported through {@link ObjectChangedEvent} and
+ * {@link ObjectsDeletedEvent} are applied as they happen. Uploads are looked up with HeadObject, off
+ * the request thread, to get their size and ETag.
+ * <p>
+ * With {@code s3flow.index.snapshot-file} set, every scan is saved and the last one is loaded at
+ * startup, so queries are answered before the first scan of the new process finishes.
+ */
+@Service
+@ConditionalOnProperty(name = "s3flow.index.enabled", havingValue = "true")
+public class KeyIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyIndexService.class);
+
+    static final int MAX_SEARCH_LIMIT = 10_000;
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private S3Service s3Service;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    @Value("${s3flow.index.snapshot-file:}")
+    private String snapshotFile;
+
+    private final KeyIndex index;
+    private final Set<String> pendingLookups = ConcurrentHashMap.newKeySet();
+
+    public KeyIndexService(S3Service s3Service, S3TaskExecutor s3TaskExecutor,
+                           @Value("${s3flow.index.max-overlay-size:100000}") int maxOverlaySize) {
+        this.s3Service = s3Service;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.index = new KeyIndex(maxOverlaySize, s3TaskExecutor.executorService());
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        Path path = snapshotPath();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), IO_BUFFER_SIZE))) {
+            KeySnapshot snapshot = KeySnapshot.readFrom(input);
+            index.replace(snapshot, index.beginScan());
+            log.info("Loaded key index snapshot of {} keys scanned at {}", snapshot.count(), snapshot.scannedAt());
+        } catch (IOException e) {
+            log.warn("Could not load key index snapshot {}, waiting for a full scan", path, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${s3flow.index.refresh-interval:1h}")
+    public void rebuild() {
+        long scanStart = index.beginScan();
+        Instant startedAt = Instant.now();
+        KeySnapshot.Builder builder = KeySnapshot.builder(startedAt);
+        try (Stream<S3Object> objects = s3Service.streamObjects(null)) {
+            objects.forEach(object -> builder.add(object.key(), object.size(), object.eTag(), object.lastModified()));
+        } catch (SdkException | IllegalStateException e) {
+            log.warn("Key index scan failed, keeping the previous index", e);
+            return;
+        }
+        KeySnapshot snapshot = builder.build();
+        index.replace(snapshot, scanStart);
+        log.info("Indexed {} keys in {} ms", snapshot.count(), Instant.now().toEpochMilli() - startedAt.toEpochMilli());
+        saveSnapshot(snapshot);
+    }
+
+    @EventListener
+    public void onObjectChanged(ObjectChangedEvent event) {
+        String key = event.key();
+        if (s3Service.isHidden(key)) {
+            return;
+        }
+        if (event.deleted()) {
+            index.remove(key);
+        } else if (pendingLookups.add(key)) {
+            s3TaskExecutor.executorService().execute(() -> lookUp(key));
+        }
+    }
+
+    @EventListener
+    public void onObjectsDeleted(ObjectsDeletedEvent event) {
+        event.keys().stream()
+                .filter(key -> !s3Service.isHidden(key))
+                .forEach(index::remove);
+    }
+
+    public IndexStats stats(String prefix, String glob, Long minSize, Long maxSize) {
+        return index.stats(query(prefix, glob, minSize, maxSize));
+    }
+
+    public List<IndexedObject> search(String prefix, String glob, Long minSize, Long maxSize, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_SEARCH_LIMIT + ".");
+        }
+        return index.search(query(prefix, glob, minSize, maxSize), limit);
+    }
+
+    private void lookUp(String key) {
+        pendingLookups.remove(key);
+        try {
+            HeadObjectResponse head = s3Service.headObject(key);
+            index.put(new IndexedObject(key, head.contentLength(), head.eTag(), head.lastModified()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                index.remove(key);
+            } else {
+                log.warn("Could not index {}, it will be picked up by the next scan", key, e);
+            }
+        } catch (SdkException e) {
+            log.warn("Could not index {}, it will be picked up by the next scan", key, e);
+        }
+    }
+
+    private void saveSnapshot(KeySnapshot snapshot) {
+        Path path = snapshotPath();
+        if (path == null) {
+            return;
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".part");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), IO_BUFFER_SIZE))) {
+                snapshot.writeTo(output);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not save key index snapshot {}", path, e);
+        }
+    }
+
+    private Path snapshotPath() {
+        return snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+    }
+
+    private static KeyQuery query(String prefix, String glob, Long minSize, Long maxSize) {
+        if (minSize != null && maxSize != null && minSize > maxSize) {
+            throw new InvalidRequestException("minSize must not be greater than maxSize.");
+        }
+        return KeyQuery.of(prefix, glob, minSize, maxSize);
+    }
+}
@@ -0,0 +1,86 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Downloads one object as several ranged GETs in flight at once and writes the chunks back in order.
+ * At most {@code parallelism} chunks are buffered, so heap use is bounded by
+ * {@code parallelism * chunk-size} regardless of object size.
+ */
+@Service
+public class ParallelDownloadService {
+
+    private S3Service s3Service;
+
+    private S3TaskExecutor s3TaskExecutor;
+
+    @Value("${s3flow.download.parallel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.download.parallel.threshold:64MB}")
+    private DataSize threshold;
+
+    @Value("${s3flow.download.parallel.chunk-size:8MB}")
+    private DataSize chunkSize;
+
+    @Value("${s3flow.download.parallel.parallelism:8}")
+    private int parallelism;
+
+    public ParallelDownloadService(S3Service s3Service, S3TaskExecutor s3TaskExecutor) {
+        this.s3Service = s3Service;
+        this.s3TaskExecutor = s3TaskExecutor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean accepts(Long contentLength) {
+        return enabled && contentLength != null && contentLength >= threshold.toBytes();
+    }
+
+    public void writeTo(String key, String eTag, long contentLength, OutputStream outputStream) throws IOException {
+        long chunk = chunkSize.toBytes();
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>();
+        long nextStart = 0;
+
+        try {
+            while (nextStart < contentLength || !window.isEmpty()) {
+                while (nextStart < contentLength && window.size() < parallelism) {
+                    long start = nextStart;
+                    long end = Math.min(start + chunk, contentLength) - 1;
+                    window.add(s3TaskExecutor.supply(() -> s3Service.downloadRange(key, eTag, start, end)));
+                    nextStart = end + 1;
+                }
+                outputStream.write(await(window.poll()));
+            }
+        } finally {
+            window.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a ranged download");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
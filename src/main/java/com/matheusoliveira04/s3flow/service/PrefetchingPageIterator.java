@@ -0,0 +1,67 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Iterates listing pages while the next page is already being fetched, so the caller's work on one
+ * page overlaps with the LIST round trip for the following one. At most two pages are held at a time.
+ */
+class PrefetchingPageIterator implements Iterator<ListObjectsV2Response>, AutoCloseable {
+
+    private final Function<String, ListObjectsV2Response> listPage;
+    private final S3TaskExecutor s3TaskExecutor;
+    private CompletableFuture<ListObjectsV2Response> next;
+    private boolean started;
+
+    PrefetchingPageIterator(Function<String, ListObjectsV2Response> listPage, S3TaskExecutor s3TaskExecutor) {
+        this.listPage = listPage;
+        this.s3TaskExecutor = s3TaskExecutor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            next = CompletableFuture.completedFuture(listPage.apply(null));
+        }
+        return next != null;
+    }
+
+    @Override
+    public ListObjectsV2Response next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ListObjectsV2Response page;
+        try {
+            page = next.join();
+        } catch (CompletionException e) {
+            next = null;
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        if (Boolean.TRUE.equals(page.isTruncated())) {
+            String continuationToken = page.nextContinuationToken();
+            next = s3TaskExecutor.supply(() -> listPage.apply(continuationToken));
+        } else {
+            next = null;
+        }
+        return page;
+    }
+
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.config.CacheConfig;
+import com.matheusoliveira04.s3flow.dto.CompleteMultipartRequest;
+import com.matheusoliveira04.s3flow.dto.MultipartUploadUrls;
+import com.matheusoliveira04.s3flow.dto.PresignedUrl;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out presigned S3 requests so clients move object bytes directly to and from the bucket. Only
+ * the multipart bookkeeping calls go through this service.
+ * <p>
+ * Signing is local CPU work, but download URLs are the hot path, so they are cached for
+ * {@code s3flow.cache.ttl}. That TTL must stay below half of {@code s3flow.presign.expiry}, so a
+ * cached URL always has most of its lifetime left when handed out.
+ */
+@Service
+public class PresignService {
+
+    static final int MAX_PARTS = 10_000;
+
+    private S3Presigner s3Presigner;
+
+    private S3Service s3Service;
+
+    @Value("${aws.bucket.name}")
+    private String bucketName;
+
+    @Value("${s3flow.presign.expiry:15m}")
+    private Duration expiry;
+
+    @Value("${s3flow.cache.ttl:30s}")
+    private Duration cacheTtl;
+
+    public PresignService(S3Presigner s3Presigner, S3Service s3Service) {
+        this.s3Presigner = s3Presigner;
+        this.s3Service = s3Service;
+    }
+
+    @PostConstruct
+    void validateExpiry() {
+        if (cacheTtl.compareTo(expiry.dividedBy(2)) > 0) {
+            throw new IllegalStateException("s3flow.cache.ttl (" + cacheTtl + ") must not exceed half of s3flow.presign.expiry ("
+                    + expiry + "), or cached presigned URLs could be handed out close to expiry");
+        }
+    }
+
+    @Cacheable(cacheNames = CacheConfig.PRESIGNED_URLS, key = "#key", sync = true)
+    public PresignedUrl presignDownload(String key) {
+        return toPresignedUrl(s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .getObjectRequest(request -> request.bucket(bucketName).key(key))
+                .build()));
+    }
+
+    public PresignedUrl presignUpload(String key, String contentType) {
+        return toPresignedUrl(s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .putObjectRequest(request -> request.bucket(bucketName).key(key).contentType(contentType))
+                .build()));
+    }
+
+    public MultipartUploadUrls startMultipartUpload(String key, String contentType, int partCount) {
+        if (partCount < 1 || partCount > MAX_PARTS) {
+            throw new InvalidRequestException("Part count must be between 1 and " + MAX_PARTS + ".");
+        }
+        String uploadId = s3Service.createMultipartUpload(key, contentType, null);
+        List<MultipartUploadUrls.PartUrl> parts = IntStream.rangeClosed(1, partCount)
+                .mapToObj(partNumber -> new MultipartUploadUrls.PartUrl(partNumber, presignPart(key, uploadId, partNumber)))
+                .toList();
+        return new MultipartUploadUrls(key, uploadId, parts);
+    }
+
+    public void completeMultipartUpload(String key, String uploadId, CompleteMultipartRequest request) {
+        if (request.parts() == null || request.parts().isEmpty()) {
+            throw new InvalidRequestException("At least one uploaded part is required.");
+        }
+        List<CompletedPart> parts = request.parts().stream()
+                .sorted(Comparator.comparingInt(CompleteMultipartRequest.Part::partNumber))
+                .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                .toList();
+        s3Service.completeUpload(key, uploadId, parts);
+    }
+
+    public void abortMultipartUpload(String key, String uploadId) {
+        s3Service.abortUpload(key, uploadId);
+    }
+
+    private PresignedUrl presignPart(String key, String uploadId, int partNumber) {
+        return toPresignedUrl(s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(expiry)
+                .uploadPartRequest(request -> request.bucket(bucketName).key(key).uploadId(uploadId).partNumber(partNumber))
+                .build()));
+    }
+
+    private static PresignedUrl toPresignedUrl(PresignedRequest request) {
+        return new PresignedUrl(request.url().toString(), request.httpRequest().method().name(),
+                request.signedHeaders(), request.expiration());
+    }
+}
@@ -0,0 +1,326 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheusoliveira04.s3flow.dto.UploadSession;
+import com.matheusoliveira04.s3flow.exceptions.FileNotFoundException;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * Resumable uploads. A session fixes the object's size and splits it into chunks of
+ * {@code s3flow.resumable.chunk-size} (raised when needed to stay within S3's 10,000 parts); each
+ * chunk is sent by its offset, in any order and in parallel, and is streamed into one UploadPart of
+ * the session's multipart upload without being buffered. A client whose connection drops asks for the
+ * session, sends only the chunks that are missing and then completes it.
+ * <p>
+ * Session state is saved under {@code s3flow.resumable.directory} after every chunk, so sessions
+ * survive a restart. Sessions left without a chunk for {@code s3flow.resumable.session-ttl} are
+ * aborted by a periodic sweep, which also discards their parts in S3.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    static final int MAX_PARTS = 10_000;
+
+    static final long MIN_CHUNK_SIZE = DataSize.ofMegabytes(5).toBytes();
+
+    static final long MAX_OBJECT_SIZE = DataSize.ofTerabytes(5).toBytes();
+
+    private static final int NOT_FOUND = 404;
+    private static final String SESSION = ".json";
+
+    private S3Service s3Service;
+
+    private DedupService dedupService;
+
+    private ObjectMapper objectMapper;
+
+    @Value("${s3flow.resumable.directory:${java.io.tmpdir}/s3flow-sessions}")
+    private Path directory;
+
+    @Value("${s3flow.resumable.chunk-size:16MB}")
+    private DataSize chunkSize;
+
+    @Value("${s3flow.resumable.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    private final Map<String, OpenSession> sessions = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(S3Service s3Service, DedupService dedupService, ObjectMapper objectMapper) {
+        this.s3Service = s3Service;
+        this.dedupService = dedupService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void loadSessions() throws IOException {
+        if (chunkSize.toBytes() < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("s3flow.resumable.chunk-size must be at least 5MB, the smallest part S3 accepts");
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SESSION)) {
+            for (Path file : files) {
+                try {
+                    Session session = objectMapper.readValue(file.toFile(), Session.class);
+                    sessions.put(session.id(), new OpenSession(session));
+                } catch (IOException e) {
+                    log.warn("Could not read upload session {}, leaving it for the sweep", file, e);
+                }
+            }
+        }
+        if (!sessions.isEmpty()) {
+            log.info("Loaded {} resumable upload sessions", sessions.size());
+        }
+    }
+
+    public UploadSession create(String key, String contentType, long size) throws IOException {
+        if (!StringUtils.hasText(key)) {
+            throw new InvalidRequestException("Filename must not be blank.");
+        }
+        dedupService.requireNotInternal(key);
+        if (size <= 0 || size > MAX_OBJECT_SIZE) {
+            throw new InvalidRequestException("Size must be greater than zero and at most 5TB.");
+        }
+        long chunk = Math.max(chunkSize.toBytes(), Math.ceilDiv(size, MAX_PARTS));
+        String uploadId = s3Service.createUpload(key, contentType);
+        Instant now = Instant.now();
+        Session session = new Session(UUID.randomUUID().toString(), key, contentType, uploadId, size, chunk, now, now, Map.of());
+        try {
+            save(session);
+        } catch (IOException e) {
+            s3Service.abortUpload(key, uploadId);
+            throw e;
+        }
+        sessions.put(session.id(), new OpenSession(session));
+        return view(session);
+    }
+
+    /**
+     * Sends the chunk starting at {@code offset}. The body must be exactly one chunk long, or shorter
+     * only for the last chunk; a declared {@code contentLength} is checked before anything is sent,
+     * pass a negative one when it is not known. Sending a chunk again replaces it.
+     */
+    public UploadSession uploadChunk(String id, long offset, long contentLength, InputStream inputStream) throws IOException {
+        OpenSession openSession = open(id);
+        Session session = openSession.session;
+        if (offset < 0 || offset >= session.size() || offset % session.chunkSize() != 0) {
+            throw new InvalidRequestException("Offset must be a multiple of " + session.chunkSize()
+                    + " below " + session.size() + ".");
+        }
+        long length = Math.min(session.chunkSize(), session.size() - offset);
+        if (contentLength >= 0 && contentLength != length) {
+            throw new InvalidRequestException("Chunk at offset " + offset + " must be exactly " + length + " bytes.");
+        }
+        int partNumber = Math.toIntExact(offset / session.chunkSize()) + 1;
+        CompletedPart part = s3Service.uploadPart(session.key(), session.uploadId(), partNumber, inputStream, length);
+        if (inputStream.read() != -1) {
+            throw new InvalidRequestException("Chunk at offset " + offset + " must be exactly " + length + " bytes.");
+        }
+        return view(openSession.update(current -> current.withPart(Part.of(part))));
+    }
+
+    public UploadSession status(String id) {
+        return view(open(id).session);
+    }
+
+    public void complete(String id) throws IOException {
+        OpenSession openSession = open(id);
+        openSession.lock.lock();
+        try {
+            Session session = openSession.session;
+            List<Long> missing = session.missingOffsets();
+            if (!missing.isEmpty()) {
+                throw new InvalidRequestException("Missing " + missing.size() + " chunks, the first at offset "
+                        + missing.get(0) + ".");
+            }
+            List<CompletedPart> parts = session.parts().values().stream()
+                    .sorted(Comparator.comparingInt(Part::partNumber))
+                    .map(Part::toCompletedPart)
+                    .toList();
+            s3Service.completeUpload(session.key(), session.uploadId(), parts);
+            close(openSession);
+        } finally {
+            openSession.lock.unlock();
+        }
+    }
+
+    public void abort(String id) throws IOException {
+        OpenSession openSession = open(id);
+        openSession.lock.lock();
+        try {
+            abortUpload(openSession.session);
+            close(openSession);
+        } finally {
+            openSession.lock.unlock();
+        }
+    }
+
+    /**
+     * Aborts sessions that have not received a chunk within {@code s3flow.resumable.session-ttl}.
+     * Sessions whose abort fails are kept and tried again at the next sweep.
+     */
+    @Scheduled(fixedDelayString = "${s3flow.resumable.sweep-interval:15m}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        int aborted = 0;
+        for (OpenSession openSession : sessions.values()) {
+            if (!openSession.session.updatedAt().isBefore(cutoff) || !openSession.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (openSession.closed || !openSession.session.updatedAt().isBefore(cutoff)) {
+                    continue;
+                }
+                abortUpload(openSession.session);
+                close(openSession);
+                aborted++;
+            } catch (SdkException | IOException e) {
+                log.warn("Could not abort stale upload session {}", openSession.session.id(), e);
+            } finally {
+                openSession.lock.unlock();
+            }
+        }
+        if (aborted > 0) {
+            log.info("Aborted {} stale upload sessions", aborted);
+        }
+    }
+
+    private void abortUpload(Session session) {
+        try {
+            s3Service.abortUpload(session.key(), session.uploadId());
+        } catch (S3Exception e) {
+            if (e.statusCode() != NOT_FOUND) {
+                throw e;
+            }
+        }
+    }
+
+    private OpenSession open(String id) {
+        OpenSession openSession = sessions.get(id);
+        if (openSession == null) {
+            throw new FileNotFoundException("No upload session with id " + id + ".");
+        }
+        return openSession;
+    }
+
+    private void close(OpenSession openSession) throws IOException {
+        openSession.closed = true;
+        sessions.remove(openSession.session.id());
+        Files.deleteIfExists(sessionPath(openSession.session.id()));
+    }
+
+    private void save(Session session) throws IOException {
+        Path part = directory.resolve(session.id() + SESSION + ".part");
+        Files.write(part, objectMapper.writeValueAsBytes(session),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(part, sessionPath(session.id()), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path sessionPath(String id) {
+        return directory.resolve(id + SESSION);
+    }
+
+    private UploadSession view(Session session) {
+        List<Long> received = session.parts().keySet().stream()
+                .sorted()
+                .map(partNumber -> (partNumber - 1) * session.chunkSize())
+                .toList();
+        return new UploadSession(session.id(), session.key(), session.size(), session.chunkSize(), received,
+                session.updatedAt().plus(sessionTtl));
+    }
+
+    /**
+     * A session as held in memory; {@code lock} orders updates so the saved state never goes back to
+     * an older version.
+     */
+    private final class OpenSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Session session;
+        private volatile boolean closed;
+
+        private OpenSession(Session session) {
+            this.session = session;
+        }
+
+        private Session update(UnaryOperator<Session> change) throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new FileNotFoundException("No upload session with id " + session.id() + ".");
+                }
+                Session updated = change.apply(session);
+                save(updated);
+                session = updated;
+                return updated;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    record Session(String id, String key, String contentType, String uploadId, long size, long chunkSize,
+                   Instant createdAt, Instant updatedAt, Map<Integer, Part> parts) {
+
+        Session withPart(Part part) {
+            Map<Integer, Part> updated = new TreeMap<>(parts);
+            updated.put(part.partNumber(), part);
+            return new Session(id, key, contentType, uploadId, size, chunkSize, createdAt, Instant.now(), updated);
+        }
+
+        List<Long> missingOffsets() {
+            return LongStream.range(0, Math.ceilDiv(size, chunkSize))
+                    .filter(index -> !parts.containsKey(Math.toIntExact(index) + 1))
+                    .map(index -> index * chunkSize)
+                    .boxed()
+                    .toList();
+        }
+    }
+
+    record Part(int partNumber, String eTag, String checksumCRC32C, String checksumSHA256) {
+
+        static Part of(CompletedPart part) {
+            return new Part(part.partNumber(), part.eTag(), part.checksumCRC32C(), part.checksumSHA256());
+        }
+
+        CompletedPart toCompletedPart() {
+            return CompletedPart.builder()
+                    .partNumber(partNumber)
+                    .eTag(eTag)
+                    .checksumCRC32C(checksumCRC32C)
+                    .checksumSHA256(checksumSHA256)
+                    .build();
+        }
+    }
+}
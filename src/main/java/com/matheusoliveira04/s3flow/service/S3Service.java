@@ -1,39 +1,354 @@
 package com.matheusoliveira04.s3flow.service;
 
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.config.CacheConfig;
+import com.matheusoliveira04.s3flow.dto.ListPage;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import com.matheusoliveira04.s3flow.event.ObjectsDeletedEvent;
 import com.matheusoliveira04.s3flow.exceptions.FileNotFoundException;
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator;
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator.Checksum;
+import com.matheusoliveira04.s3flow.io.GzipCompressingInputStream;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class S3Service {
 
+    public static final String GZIP = "gzip";
+
+    static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
     private S3Client s3Client;
 
+    private S3TaskExecutor s3TaskExecutor;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ChecksumCalculator checksumCalculator;
+
     @Value("${aws.bucket.name}")
     private String bucketName;
 
-    public S3Service(S3Client s3Client) {
+    @Value("${s3flow.upload.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${s3flow.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${s3flow.compression.content-types:text/*,application/json,application/xml,application/javascript,application/x-ndjson}")
+    private List<MediaType> compressibleTypes;
+
+    @Value("${s3flow.compression.min-size:1KB}")
+    private DataSize compressionMinSize;
+
+    @Value("${s3flow.compression.level:6}")
+    private int compressionLevel;
+
+    private volatile Predicate<String> hiddenKeys = key -> false;
+
+    public S3Service(S3Client s3Client, S3TaskExecutor s3TaskExecutor, ApplicationEventPublisher eventPublisher,
+                     ChecksumCalculator checksumCalculator) {
         this.s3Client = s3Client;
+        this.s3TaskExecutor = s3TaskExecutor;
+        this.eventPublisher = eventPublisher;
+        this.checksumCalculator = checksumCalculator;
+    }
+
+    @PostConstruct
+    void validatePartSize() {
+        if (partSize.toBytes() < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("s3flow.upload.part-size must be at least 5MB, the smallest part S3 accepts");
+        }
     }
 
     public void uploadFile(MultipartFile file) throws IOException {
-        s3Client.putObject(
-                PutObjectRequest.builder()
+        try (InputStream inputStream = file.getInputStream()) {
+            uploadStream(file.getOriginalFilename(), file.getContentType(), inputStream);
+        }
+    }
+
+    /**
+     * Uploads the stream reading at most one part at a time, so heap use per call is bounded by
+     * {@code s3flow.upload.part-size}. Streams that fit in a single part are sent with a plain PutObject,
+     * larger ones go through S3 multipart upload. S3 accepts at most 10,000 parts per upload, so the largest
+     * stream this can store is 10,000 times the part size (about 78GB with the 8MB default).
+     * <p>
+     * With {@code s3flow.compression.enabled}, streams of a compressible content type that reach
+     * {@code s3flow.compression.min-size} are gzip-compressed on the way and stored with
+     * {@code Content-Encoding: gzip}.
+     */
+    public void uploadStream(String key, String contentType, InputStream inputStream) throws IOException {
+        if (!compresses(contentType)) {
+            upload(key, contentType, null, inputStream);
+            return;
+        }
+        byte[] head = inputStream.readNBytes(Math.toIntExact(compressionMinSize.toBytes()));
+        InputStream whole = new SequenceInputStream(new ByteArrayInputStream(head), inputStream);
+        if (head.length < compressionMinSize.toBytes()) {
+            upload(key, contentType, null, whole);
+            return;
+        }
+        try (InputStream compressed = new GzipCompressingInputStream(whole, compressionLevel)) {
+            upload(key, contentType, GZIP, compressed);
+        }
+    }
+
+    public boolean compresses(String contentType) {
+        if (!compressionEnabled || contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return compressibleTypes.stream().anyMatch(type -> type.includes(mediaType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private void upload(String key, String contentType, String contentEncoding, InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[Math.toIntExact(partSize.toBytes())];
+        int read = inputStream.readNBytes(buffer, 0, buffer.length);
+
+        if (read < buffer.length) {
+            putBytes(key, contentType, contentEncoding, Map.of(), buffer, read);
+            return;
+        }
+        uploadMultipart(key, contentType, contentEncoding, inputStream, buffer);
+        eventPublisher.publishEvent(new ObjectChangedEvent(key, false));
+    }
+
+    /**
+     * Uploads the first {@code length} bytes of {@code content} with a single PutObject.
+     */
+    public void uploadBytes(String key, String contentType, byte[] content, int length) {
+        uploadBytes(key, contentType, Map.of(), content, length);
+    }
+
+    public void uploadBytes(String key, String contentType, Map<String, String> metadata, byte[] content, int length) {
+        putBytes(key, contentType, null, metadata, content, length);
+    }
+
+    private void putBytes(String key, String contentType, String contentEncoding, Map<String, String> metadata,
+                          byte[] content, int length) {
+        PutObjectRequest.Builder request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentEncoding(contentEncoding)
+                .metadata(metadata);
+        Checksum checksum = checksumCalculator.compute(content, length);
+        if (checksum != null) {
+            request.checksumAlgorithm(checksum.algorithm());
+            switch (checksum.algorithm()) {
+                case CRC32_C -> request.checksumCRC32C(checksum.value());
+                case SHA256 -> request.checksumSHA256(checksum.value());
+                default -> throw new IllegalStateException("Unexpected checksum algorithm " + checksum.algorithm());
+            }
+        }
+        s3Client.putObject(request.build(), partBody(content, length));
+        eventPublisher.publishEvent(new ObjectChangedEvent(key, false));
+    }
+
+    private void uploadMultipart(String key, String contentType, String contentEncoding, InputStream inputStream,
+                                 byte[] buffer) throws IOException {
+        String uploadId = createMultipartUpload(key, contentType, contentEncoding, null, checksumCalculator.algorithm());
+
+        try {
+            List<CompletedPart> completedParts = new ArrayList<>();
+            int read = buffer.length;
+            while (read > 0) {
+                completedParts.add(uploadPart(key, uploadId, completedParts.size() + 1, buffer, read));
+                read = inputStream.readNBytes(buffer, 0, buffer.length);
+            }
+            completeMultipartUpload(key, uploadId, completedParts);
+        } catch (IOException | RuntimeException e) {
+            abortMultipartUpload(key, uploadId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a multipart upload whose parts are sent by someone else, typically a client holding
+     * presigned part URLs. Returns the upload id.
+     */
+    public String createMultipartUpload(String key, String contentType, String contentEncoding) {
+        return createMultipartUpload(key, contentType, contentEncoding, null, null);
+    }
+
+    /**
+     * Starts a multipart upload whose parts are sent through {@link #uploadPart}, declaring the
+     * configured checksum algorithm those parts carry.
+     */
+    public String createUpload(String key, String contentType) {
+        return createMultipartUpload(key, contentType, null, null, checksumCalculator.algorithm());
+    }
+
+    /**
+     * Starts a multipart upload that will receive copied parts, carrying over the source's user
+     * metadata, which UploadPartCopy does not.
+     */
+    public String createMultipartUpload(String key, String contentType, String contentEncoding,
+                                        Map<String, String> metadata) {
+        return createMultipartUpload(key, contentType, contentEncoding, metadata, null);
+    }
+
+    private String createMultipartUpload(String key, String contentType, String contentEncoding,
+                                         Map<String, String> metadata, ChecksumAlgorithm checksumAlgorithm) {
+        return s3Client.createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
                         .bucket(bucketName)
-                        .key(file.getOriginalFilename())
+                        .key(key)
+                        .contentType(contentType)
+                        .contentEncoding(contentEncoding)
+                        .metadata(metadata)
+                        .checksumAlgorithm(checksumAlgorithm)
+                        .build()
+        ).uploadId();
+    }
+
+    public void completeUpload(String key, String uploadId, List<CompletedPart> parts) {
+        completeMultipartUpload(key, uploadId, parts);
+        eventPublisher.publishEvent(new ObjectChangedEvent(key, false));
+    }
+
+    public void abortUpload(String key, String uploadId) {
+        s3Client.abortMultipartUpload(
+                AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build()
+        );
+    }
+
+    private void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) {
+        s3Client.completeMultipartUpload(
+                CompleteMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build()
+        );
+    }
+
+    /**
+     * Sends one part with its checksum. The same value goes into the {@link CompletedPart}, which S3
+     * requires for uploads created with a checksum algorithm.
+     */
+    public CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
+        UploadPartRequest.Builder request = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) length);
+        CompletedPart.Builder completedPart = CompletedPart.builder().partNumber(partNumber);
+        Checksum checksum = checksumCalculator.compute(buffer, length);
+        if (checksum != null) {
+            request.checksumAlgorithm(checksum.algorithm());
+            switch (checksum.algorithm()) {
+                case CRC32_C -> {
+                    request.checksumCRC32C(checksum.value());
+                    completedPart.checksumCRC32C(checksum.value());
+                }
+                case SHA256 -> {
+                    request.checksumSHA256(checksum.value());
+                    completedPart.checksumSHA256(checksum.value());
+                }
+                default -> throw new IllegalStateException("Unexpected checksum algorithm " + checksum.algorithm());
+            }
+        }
+        UploadPartResponse response = s3Client.uploadPart(request.build(), partBody(buffer, length));
+        return completedPart.eTag(response.eTag()).build();
+    }
+
+    /**
+     * Streams one part of {@code length} bytes from {@code inputStream} without holding it in memory.
+     * The SDK computes the configured checksum while sending the body and passes it as a trailer;
+     * the value S3 verified goes into the {@link CompletedPart}. The stream cannot be replayed, so a
+     * part that fails midway is not retried here.
+     */
+    public CompletedPart uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length) {
+        UploadPartResponse response = s3Client.uploadPart(
+                UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .checksumAlgorithm(checksumCalculator.algorithm())
                         .build(),
-                RequestBody.fromBytes(file.getBytes())
+                RequestBody.fromInputStream(inputStream, length)
         );
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .checksumCRC32C(response.checksumCRC32C())
+                .checksumSHA256(response.checksumSHA256())
+                .build();
+    }
+
+    /**
+     * Copies the inclusive byte range {@code [start, end]} of {@code sourceKey} into a part of
+     * {@code uploadId} without the bytes leaving S3. {@code eTag} pins the source version.
+     */
+    public CompletedPart uploadPartCopy(String sourceKey, String eTag, String destinationKey, String uploadId,
+                                        int partNumber, long start, long end) {
+        UploadPartCopyResponse response = s3Client.uploadPartCopy(
+                UploadPartCopyRequest.builder()
+                        .sourceBucket(bucketName)
+                        .sourceKey(sourceKey)
+                        .copySourceIfMatch(eTag)
+                        .destinationBucket(bucketName)
+                        .destinationKey(destinationKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .copySourceRange("bytes=" + start + "-" + end)
+                        .build()
+        );
+        return CompletedPart.builder().partNumber(partNumber).eTag(response.copyPartResult().eTag()).build();
+    }
+
+    private void abortMultipartUpload(String key, String uploadId, Exception cause) {
+        try {
+            abortUpload(key, uploadId);
+        } catch (RuntimeException abortException) {
+            cause.addSuppressed(abortException);
+        }
+    }
+
+    private static RequestBody partBody(byte[] buffer, int length) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, "application/octet-stream");
     }
 
     public Resource downloadFile(String key) {
@@ -41,30 +356,239 @@ public class S3Service {
                 GetObjectRequest.builder()
                         .bucket(bucketName)
                         .key(key)
+                        .checksumMode(ChecksumMode.ENABLED)
                         .build()
         );
         return new ByteArrayResource(objectAsBytes.asByteArray());
     }
 
+    /**
+     * Opens the object as a stream without reading its body, so the caller can start writing the
+     * response as soon as S3 answers. The caller is responsible for closing the returned stream.
+     * <p>
+     * Whole-object reads ask S3 for the stored checksum, and the SDK verifies it incrementally as the
+     * stream is consumed, failing the read at the end if the bytes do not match. Checksums of
+     * multipart objects are composites of their part checksums and cannot be verified this way.
+     */
+    public ResponseInputStream<GetObjectResponse> openDownload(String key) {
+        return openDownload(key, null, null, null);
+    }
+
+    public ResponseInputStream<GetObjectResponse> openDownload(String key, String range) {
+        return openDownload(key, range, null, null);
+    }
+
+    /**
+     * Conditional variant of {@link #openDownload(String, String)}. When the stored object still
+     * matches {@code ifNoneMatch} or has not changed since {@code ifModifiedSince}, S3 answers 304
+     * without a body and the SDK throws an {@link S3Exception} with that status code.
+     */
+    public ResponseInputStream<GetObjectResponse> openDownload(String key, String range, String ifNoneMatch, Instant ifModifiedSince) {
+        return s3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .range(range)
+                        .ifNoneMatch(ifNoneMatch)
+                        .ifModifiedSince(ifModifiedSince)
+                        .checksumMode(range == null ? ChecksumMode.ENABLED : null)
+                        .build()
+        );
+    }
+
+    /**
+     * Opens the object from byte {@code start} to its end, failing with 412 if it no longer has ETag
+     * {@code eTag}. Whole-object reads are checksum-validated like {@link #openDownload(String)}.
+     */
+    public ResponseInputStream<GetObjectResponse> openFrom(String key, String eTag, long start) {
+        return s3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .ifMatch(eTag)
+                        .range(start > 0 ? "bytes=" + start + "-" : null)
+                        .checksumMode(start > 0 ? null : ChecksumMode.ENABLED)
+                        .build()
+        );
+    }
+
+    /**
+     * Opens the given {@code Range} header value as a stream, failing with 412 if the object no longer
+     * has ETag {@code eTag}, so several ranges served in one response all come from the same version.
+     */
+    public ResponseInputStream<GetObjectResponse> openRange(String key, String eTag, String range) {
+        return s3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .ifMatch(eTag)
+                        .range(range)
+                        .build()
+        );
+    }
+
+    /**
+     * Reads the inclusive byte range {@code [start, end]}. The ETag guards against stitching together
+     * ranges of two different versions when the object is overwritten mid-download.
+     */
+    public byte[] downloadRange(String key, String eTag, long start, long end) {
+        return s3Client.getObjectAsBytes(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .ifMatch(eTag)
+                        .range("bytes=" + start + "-" + end)
+                        .build()
+        ).asByteArray();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.OBJECT_METADATA, key = "#key", sync = true)
+    public HeadObjectResponse headObject(String key) {
+        return s3Client.headObject(
+                HeadObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build()
+        );
+    }
+
     public void deleteFile(String key) {
         DeleteObjectRequest build = DeleteObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .build();
         s3Client.deleteObject(build);
+        eventPublisher.publishEvent(new ObjectChangedEvent(key, true));
+    }
+
+    /**
+     * Copies an object of up to 5 GB inside the bucket with CopyObject. {@code eTag} pins the source
+     * version, so an overwrite racing the copy fails it with 412 instead of copying the new bytes.
+     */
+    public void copyObject(String sourceKey, String eTag, String destinationKey) {
+        s3Client.copyObject(
+                CopyObjectRequest.builder()
+                        .sourceBucket(bucketName)
+                        .sourceKey(sourceKey)
+                        .copySourceIfMatch(eTag)
+                        .destinationBucket(bucketName)
+                        .destinationKey(destinationKey)
+                        .build()
+        );
+        eventPublisher.publishEvent(new ObjectChangedEvent(destinationKey, false));
+    }
+
+    /**
+     * Deletes up to 1000 keys in one DeleteObjects call and returns the per-key outcome reported by S3.
+     */
+    public DeleteObjectsResponse deleteObjects(List<String> keys) {
+        DeleteObjectsResponse response = s3Client.deleteObjects(
+                DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder()
+                                .objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                .quiet(false)
+                                .build())
+                        .build()
+        );
+        if (!response.deleted().isEmpty()) {
+            eventPublisher.publishEvent(new ObjectsDeletedEvent(response.deleted().stream().map(DeletedObject::key).toList()));
+        }
+        return response;
     }
 
+    /**
+     * Cached on its own: the call to {@link #listAll(String, String)} does not go through the proxy.
+     */
+    @Cacheable(cacheNames = CacheConfig.LISTINGS, sync = true)
     public List<String> listAll() {
-        ListObjectsV2Request request = buildListRequest(bucketName);
+        return listAll(null, null);
+    }
+
+    /**
+     * Walks every page of the listing. Keys are accumulated in memory, so large buckets should
+     * use {@link #listPage} or {@link #streamKeys} instead.
+     */
+    @Cacheable(cacheNames = CacheConfig.LISTINGS, sync = true)
+    public List<String> listAll(String prefix, String delimiter) {
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+        ListObjectsV2Response response;
+        do {
+            ListObjectsV2Request request = buildListRequest(bucketName, prefix, delimiter, null, continuationToken);
+            response = executeListRequest(request);
+            keys.addAll(extractKeyFile(response));
+            continuationToken = response.nextContinuationToken();
+        } while (Boolean.TRUE.equals(response.isTruncated()));
+
+        validateNotEmptyS3FileList(keys);
+        return keys;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.LISTINGS, sync = true)
+    public ListPage listPage(String prefix, String delimiter, Integer maxKeys, String continuationToken) {
+        ListObjectsV2Request request = buildListRequest(bucketName, prefix, delimiter, maxKeys, continuationToken);
         ListObjectsV2Response response = executeListRequest(request);
 
-        validateNotEmptyS3FileList(response);
-        return extractKeyFile(response);
+        String nextContinuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+        return new ListPage(extractKeyFile(response), nextContinuationToken);
+    }
+
+    /**
+     * Lazily walks every page: only the page being consumed and the one being prefetched are held in
+     * memory. The stream must be closed to cancel a pending prefetch.
+     */
+    public Stream<String> streamKeys(String prefix, String delimiter) {
+        return streamPages(prefix, delimiter).flatMap(response -> extractKeyFile(response).stream());
+    }
+
+    /**
+     * Same walk as {@link #streamKeys} without a delimiter, keeping the size, ETag and last-modified
+     * time of every listed object.
+     */
+    public Stream<S3Object> streamObjects(String prefix) {
+        return streamPages(prefix, null).flatMap(response -> response.contents().stream().filter(object -> !isHidden(object.key())));
+    }
+
+    /**
+     * Whether the key belongs to storage internals, such as deduplicated content, that listings hide.
+     */
+    public boolean isHidden(String key) {
+        return hiddenKeys.test(key);
+    }
+
+    /**
+     * Hides the keys matching {@code predicate} from listings, on top of those already hidden.
+     */
+    public void hideKeys(Predicate<String> predicate) {
+        hiddenKeys = hiddenKeys.or(predicate);
+    }
+
+    private Stream<ListObjectsV2Response> streamPages(String prefix, String delimiter) {
+        PrefetchingPageIterator pages = new PrefetchingPageIterator(
+                continuationToken -> executeListRequest(buildListRequest(bucketName, prefix, delimiter, null, continuationToken)),
+                s3TaskExecutor
+        );
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close);
+    }
+
+    /**
+     * Uncached check for at least one key under {@code prefix}, including keys hidden from listings.
+     */
+    public boolean hasKeys(String prefix) {
+        ListObjectsV2Response response = executeListRequest(buildListRequest(bucketName, prefix, null, 1, null));
+        return !response.contents().isEmpty();
     }
 
-    private ListObjectsV2Request buildListRequest(String bucketName) {
+    private ListObjectsV2Request buildListRequest(String bucketName, String prefix, String delimiter,
+                                                  Integer maxKeys, String continuationToken) {
         return ListObjectsV2Request.builder()
                 .bucket(bucketName)
+                .prefix(prefix)
+                .delimiter(delimiter)
+                .maxKeys(maxKeys)
+                .continuationToken(continuationToken)
                 .build();
     }
 
@@ -72,13 +596,15 @@ public class S3Service {
         return s3Client.listObjectsV2(request);
     }
 
-    private static List<String> extractKeyFile(ListObjectsV2Response listObjectsV2Response) {
-        return listObjectsV2Response.contents().stream().map(S3Object::key).toList();
+    private List<String> extractKeyFile(ListObjectsV2Response listObjectsV2Response) {
+        return Stream.concat(
+                listObjectsV2Response.commonPrefixes().stream().map(CommonPrefix::prefix),
+                listObjectsV2Response.contents().stream().map(S3Object::key)
+        ).filter(key -> !isHidden(key)).toList();
     }
 
-    private static void validateNotEmptyS3FileList(ListObjectsV2Response responseObjectList) {
-        List<S3Object> contents = responseObjectList.contents();
-        if (contents == null || contents.isEmpty()) {
+    private static void validateNotEmptyS3FileList(List<String> keys) {
+        if (keys.isEmpty()) {
             throw new FileNotFoundException("No files found in S3 bucket.");
         }
     }
@@ -0,0 +1,395 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matheusoliveira04.s3flow.dto.UploadJob;
+import com.matheusoliveira04.s3flow.dto.UploadJob.Status;
+import com.matheusoliveira04.s3flow.exceptions.FileNotFoundException;
+import com.matheusoliveira04.s3flow.exceptions.SpoolFullException;
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind uploads. The request body is written to {@code s3flow.spool.directory} and fsynced,
+ * then a job manifest is moved into place next to it, and only then is the upload acknowledged; a
+ * job whose manifest exists survives a crash and is picked up again at the next startup.
+ * {@code s3flow.spool.workers} threads drain the spool to S3, retrying failures with exponential
+ * backoff up to {@code s3flow.spool.max-attempts} times. Jobs that still fail are moved to
+ * {@code failed/} for an operator to look at; they no longer count against the budget, so clearing
+ * that folder is left to the operator.
+ * <p>
+ * Pending jobs count against {@code s3flow.spool.max-size}. An upload with a known length reserves
+ * all of it before reading the body; one without takes space as the body arrives and, once it holds
+ * some, fails at once instead of waiting on uploads that may be waiting on it. When the budget is
+ * used up, uploads wait up to {@code s3flow.spool.max-wait} for the workers to free space and are
+ * then rejected with 503, which pushes back on clients instead of filling the disk. Uploads larger
+ * than the whole budget are rejected without waiting.
+ * <p>
+ * The newest spooled upload of a key wins: an older job that has not reached S3 when a newer one for
+ * the same key is accepted is dropped, and uploads of one key never run at the same time.
+ */
+@Service
+public class UploadSpoolService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSpoolService.class);
+
+    private static final String DATA = ".data";
+    private static final String MANIFEST = ".json";
+    private static final String PART = ".part";
+    private static final String FAILED = "failed";
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+    private static final int KEY_LOCKS = 64;
+
+    private S3Service s3Service;
+
+    private DedupService dedupService;
+
+    private BufferPool bufferPool;
+
+    private ObjectMapper objectMapper;
+
+    @Value("${s3flow.spool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${s3flow.spool.directory:${java.io.tmpdir}/s3flow-spool}")
+    private Path directory;
+
+    @Value("${s3flow.spool.max-size:10GB}")
+    private DataSize maxSize;
+
+    @Value("${s3flow.spool.max-wait:30s}")
+    private Duration maxWait;
+
+    @Value("${s3flow.spool.workers:4}")
+    private int workers;
+
+    @Value("${s3flow.spool.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${s3flow.spool.retry-delay:5s}")
+    private Duration retryDelay;
+
+    private final Map<String, UploadJob> pending = new ConcurrentHashMap<>();
+    private final Map<String, String> latestByKey = new ConcurrentHashMap<>();
+    private final Cache<String, UploadJob> finished = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+    private final ReentrantLock[] keyLocks = new ReentrantLock[KEY_LOCKS];
+    private final ReentrantLock budgetLock = new ReentrantLock();
+    private final Condition spaceFreed = budgetLock.newCondition();
+    private long usedBytes;
+    private ScheduledExecutorService executor;
+
+    public UploadSpoolService(S3Service s3Service, DedupService dedupService, BufferPool bufferPool,
+                              ObjectMapper objectMapper) {
+        this.s3Service = s3Service;
+        this.dedupService = dedupService;
+        this.bufferPool = bufferPool;
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Replays the jobs left in the spool by the previous process, oldest first. Leftover
+     * {@code .part} files are uploads that were never acknowledged and are deleted.
+     */
+    @PostConstruct
+    void initialize() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory.resolve(FAILED));
+        executor = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "s3flow-spool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<Job> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PART)) {
+                    Files.delete(file);
+                } else if (name.endsWith(MANIFEST)) {
+                    Job job = objectMapper.readValue(file.toFile(), Job.class);
+                    if (Files.exists(dataPath(job.id()))) {
+                        jobs.add(job);
+                    } else {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DATA)) {
+            for (Path file : files) {
+                String id = file.getFileName().toString().replace(DATA, "");
+                if (Files.notExists(manifestPath(id))) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        jobs.sort(Comparator.comparing(Job::createdAt));
+        for (Job job : jobs) {
+            usedBytes += job.size();
+            accept(job);
+        }
+        if (!jobs.isEmpty()) {
+            log.info("Replaying {} spooled uploads", jobs.size());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Spools the stream and schedules its upload. Returns once the bytes and the job manifest are
+     * durable on disk. Pass a negative {@code contentLength} when the length is not known.
+     */
+    public UploadJob submit(String key, String contentType, long contentLength, InputStream inputStream) throws IOException {
+        long reserved = 0;
+        if (contentLength > 0) {
+            reserve(contentLength, true);
+            reserved = contentLength;
+        }
+        String id = UUID.randomUUID().toString();
+        Path part = directory.resolve(id + DATA + PART);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = bufferPool.acquire();
+            try {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    size += read;
+                    if (size > reserved) {
+                        reserve(size - reserved, reserved == 0);
+                        reserved = size;
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                }
+            } finally {
+                bufferPool.release(buffer);
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            release(reserved);
+            throw e;
+        }
+        if (reserved > size) {
+            release(reserved - size);
+        }
+
+        Job job = new Job(id, key, contentType, size, Instant.now());
+        try {
+            Files.move(part, dataPath(id), StandardCopyOption.ATOMIC_MOVE);
+            writeManifest(job);
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(dataPath(id));
+            release(size);
+            throw e;
+        }
+        return accept(job);
+    }
+
+    public UploadJob status(String id) {
+        UploadJob result = pending.get(id);
+        if (result == null) {
+            result = finished.getIfPresent(id);
+        }
+        if (result == null) {
+            throw new FileNotFoundException("No upload job with id " + id + ".");
+        }
+        return result;
+    }
+
+    private UploadJob accept(Job job) {
+        UploadJob status = job.status(Status.PENDING, 0, null);
+        pending.put(job.id(), status);
+        latestByKey.put(job.key(), job.id());
+        executor.execute(() -> drain(job, 0));
+        return status;
+    }
+
+    private void drain(Job job, int attempts) {
+        ReentrantLock keyLock = keyLocks[Math.floorMod(job.key().hashCode(), KEY_LOCKS)];
+        keyLock.lock();
+        try {
+            if (!job.id().equals(latestByKey.get(job.key()))) {
+                complete(job, job.status(Status.SUPERSEDED, attempts, null));
+                return;
+            }
+            try (InputStream content = Files.newInputStream(dataPath(job.id()))) {
+                if (dedupService.isEnabled()) {
+                    dedupService.upload(job.key(), job.contentType(), content);
+                } else {
+                    s3Service.uploadStream(job.key(), job.contentType(), content);
+                }
+            }
+            latestByKey.remove(job.key(), job.id());
+            complete(job, job.status(Status.UPLOADED, attempts + 1, null));
+        } catch (IOException | RuntimeException e) {
+            retryOrFail(job, attempts + 1, e);
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    private void retryOrFail(Job job, int attempts, Exception cause) {
+        if (attempts < maxAttempts) {
+            long delay = Math.min(retryDelay.toMillis() << Math.min(attempts - 1, 20), MAX_RETRY_DELAY.toMillis());
+            log.warn("Spooled upload {} of {} failed, attempt {} of {}, retrying in {} ms",
+                    job.id(), job.key(), attempts, maxAttempts, delay, cause);
+            pending.put(job.id(), job.status(Status.PENDING, attempts, cause.getMessage()));
+            executor.schedule(() -> drain(job, attempts), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        log.error("Spooled upload {} of {} failed {} times, moving it to {}", job.id(), job.key(), attempts,
+                directory.resolve(FAILED), cause);
+        latestByKey.remove(job.key(), job.id());
+        try {
+            Files.move(dataPath(job.id()), directory.resolve(FAILED).resolve(job.id() + DATA), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(manifestPath(job.id()), directory.resolve(FAILED).resolve(job.id() + MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not move failed spooled upload {}", job.id(), e);
+        }
+        finished.put(job.id(), job.status(Status.FAILED, attempts, cause.getMessage()));
+        pending.remove(job.id());
+        release(job.size());
+    }
+
+    private void complete(Job job, UploadJob result) {
+        try {
+            Files.deleteIfExists(manifestPath(job.id()));
+            Files.deleteIfExists(dataPath(job.id()));
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}", job.id(), e);
+        }
+        finished.put(job.id(), result);
+        pending.remove(job.id());
+        release(job.size());
+    }
+
+    /**
+     * Writes the manifest under a temporary name and renames it, so a manifest is either complete or
+     * absent, then syncs the directory so the rename itself survives a crash.
+     */
+    private void writeManifest(Job job) throws IOException {
+        Path part = directory.resolve(job.id() + MANIFEST + PART);
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(objectMapper.writeValueAsBytes(job));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(part, manifestPath(job.id()), StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // not every platform can sync a directory
+        }
+    }
+
+    /**
+     * Adds {@code bytes} to the budget, waiting up to {@code s3flow.spool.max-wait} for space only when
+     * {@code wait} is set.
+     */
+    private void reserve(long bytes, boolean wait) throws IOException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        budgetLock.lock();
+        try {
+            if (bytes > maxSize.toBytes()) {
+                throw new SpoolFullException("The upload is larger than the upload spool.");
+            }
+            while (usedBytes + bytes > maxSize.toBytes()) {
+                long remaining = deadline - System.nanoTime();
+                if (!wait || remaining <= 0) {
+                    throw new SpoolFullException("The upload spool is full, try again later.");
+                }
+                spaceFreed.awaitNanos(remaining);
+            }
+            usedBytes += bytes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for spool space");
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private void release(long bytes) {
+        budgetLock.lock();
+        try {
+            usedBytes -= bytes;
+            spaceFreed.signalAll();
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private Path dataPath(String id) {
+        return directory.resolve(id + DATA);
+    }
+
+    private Path manifestPath(String id) {
+        return directory.resolve(id + MANIFEST);
+    }
+
+    /**
+     * The manifest written next to each spooled body; it is all that is needed to replay the job.
+     */
+    record Job(String id, String key, String contentType, long size, Instant createdAt) {
+
+        UploadJob status(Status status, int attempts, String error) {
+            return new UploadJob(id, key, status, size, attempts, error);
+        }
+    }
+}
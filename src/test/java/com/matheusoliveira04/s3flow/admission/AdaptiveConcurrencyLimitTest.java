@@ -0,0 +1,95 @@
+package com.matheusoliveira04.s3flow.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @BeforeEach
+    void setUp() {
+        concurrencyLimit = new AdaptiveConcurrencyLimit(meterRegistry);
+        ReflectionTestUtils.setField(concurrencyLimit, "enabled", true);
+        ReflectionTestUtils.setField(concurrencyLimit, "minConcurrency", 8);
+        ReflectionTestUtils.setField(concurrencyLimit, "maxConcurrency", 100);
+        ReflectionTestUtils.setField(concurrencyLimit, "latencyTarget", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(concurrencyLimit, "backoffRatio", 0.5);
+        concurrencyLimit.initialize();
+    }
+
+    @Nested
+    class publish {
+
+        @Test
+        @DisplayName("should back off once per interval when S3 throttles")
+        void shouldBackOffOncePerIntervalWhenS3Throttles() {
+            concurrencyLimit.publish(call("PutObject", false, "Throttling", Duration.ofMillis(10)));
+            concurrencyLimit.publish(call("GetObject", false, "Throttling", Duration.ofMillis(10)));
+
+            assertEquals(50, concurrencyLimit.current());
+            assertEquals(50, meterRegistry.get("s3flow.admission.limit").gauge().value());
+        }
+
+        @Test
+        @DisplayName("should back off when the first byte is slower than the target")
+        void shouldBackOffWhenFirstByteIsSlowerThanTarget() {
+            concurrencyLimit.publish(call("HeadObject", true, null, Duration.ofMillis(500)));
+
+            assertEquals(50, concurrencyLimit.current());
+        }
+
+        @Test
+        @DisplayName("should not back off for slow uploads")
+        void shouldNotBackOffForSlowUploads() {
+            concurrencyLimit.publish(call("PutObject", true, null, Duration.ofSeconds(5)));
+            concurrencyLimit.publish(call("UploadPart", true, null, Duration.ofSeconds(5)));
+
+            assertEquals(100, concurrencyLimit.current());
+        }
+
+        @Test
+        @DisplayName("should grow back by about one per limit's worth of fast calls")
+        void shouldGrowBackWithFastCalls() {
+            concurrencyLimit.publish(call("ListObjectsV2", true, null, Duration.ofMillis(500)));
+            for (int i = 0; i < 51; i++) {
+                concurrencyLimit.publish(call("GetObject", true, null, Duration.ofMillis(10)));
+            }
+
+            assertEquals(51, concurrencyLimit.current());
+        }
+
+        @Test
+        @DisplayName("should ignore calls that failed for reasons other than throttling")
+        void shouldIgnoreCallsThatFailedForOtherReasons() {
+            concurrencyLimit.publish(call("GetObject", false, "ServerError", Duration.ofSeconds(5)));
+
+            assertEquals(100, concurrencyLimit.current());
+        }
+    }
+
+    private static MetricCollection call(String operation, boolean successful, String errorType, Duration timeToFirstByte) {
+        MetricCollector call = MetricCollector.create("ApiCall");
+        call.reportMetric(CoreMetric.OPERATION_NAME, operation);
+        call.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, successful);
+        MetricCollector attempt = call.createChild("ApiCallAttempt");
+        attempt.reportMetric(CoreMetric.TIME_TO_FIRST_BYTE, timeToFirstByte);
+        if (errorType != null) {
+            attempt.reportMetric(CoreMetric.ERROR_TYPE, errorType);
+        }
+        return call.collect();
+    }
+}
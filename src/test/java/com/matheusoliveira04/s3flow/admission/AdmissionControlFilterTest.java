@@ -0,0 +1,141 @@
+package com.matheusoliveira04.s3flow.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControlFilterTest {
+
+    @Mock
+    AdaptiveConcurrencyLimit concurrencyLimit;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AdmissionControlFilter admissionControlFilter;
+
+    AtomicInteger passed = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        admissionControlFilter = new AdmissionControlFilter(concurrencyLimit, new ObjectMapper().findAndRegisterModules(), meterRegistry);
+        ReflectionTestUtils.setField(admissionControlFilter, "enabled", true);
+        ReflectionTestUtils.setField(admissionControlFilter, "trustedClientHeader", "");
+        ReflectionTestUtils.setField(admissionControlFilter, "perClientConcurrency", 1);
+        ReflectionTestUtils.setField(admissionControlFilter, "perClientBandwidth", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(admissionControlFilter, "retryAfter", Duration.ofSeconds(2));
+    }
+
+    @Nested
+    class doFilter {
+
+        @Test
+        @DisplayName("should reject a client's request while its earlier one is still streaming")
+        void shouldRejectClientRequestWhileEarlierOneIsStillStreaming() throws Exception {
+            when(concurrencyLimit.current()).thenReturn(10);
+            var streaming = request("a");
+
+            admissionControlFilter.doFilter(streaming, new MockHttpServletResponse(), startAsync());
+            var rejected = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(request("a"), rejected, pass());
+            var otherClient = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(request("b"), otherClient, pass());
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+            assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+            assertTrue(rejected.getContentAsString().contains("Too many concurrent requests from this client."));
+            assertEquals(HttpStatus.OK.value(), otherClient.getStatus());
+            assertEquals(1, meterRegistry.get("s3flow.admission.rejected").tag("reason", "client").counter().count());
+
+            ((MockAsyncContext) streaming.getAsyncContext()).complete();
+            var afterwards = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(request("a"), afterwards, pass());
+            assertEquals(HttpStatus.OK.value(), afterwards.getStatus());
+            assertEquals(2, passed.get());
+        }
+
+        @Test
+        @DisplayName("should reject requests over the global limit")
+        void shouldRejectRequestsOverGlobalLimit() throws Exception {
+            when(concurrencyLimit.current()).thenReturn(1);
+            admissionControlFilter.doFilter(request("a"), new MockHttpServletResponse(), startAsync());
+
+            var rejected = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(request("b"), rejected, pass());
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+            assertEquals(0, passed.get());
+            assertEquals(1, meterRegistry.get("s3flow.admission.rejected").tag("reason", "global").counter().count());
+        }
+
+        @Test
+        @DisplayName("should tell clients apart by the trusted header only when one is configured")
+        void shouldTellClientsApartByTrustedHeaderOnlyWhenConfigured() throws Exception {
+            when(concurrencyLimit.current()).thenReturn(10);
+            admissionControlFilter.doFilter(request("a"), new MockHttpServletResponse(), startAsync());
+
+            var spoofed = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(sameAddress("a", "b"), spoofed, pass());
+            ReflectionTestUtils.setField(admissionControlFilter, "trustedClientHeader", "X-Client-Id");
+            var trusted = new MockHttpServletResponse();
+            admissionControlFilter.doFilter(sameAddress("a", "b"), trusted, pass());
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), spoofed.getStatus());
+            assertEquals(HttpStatus.OK.value(), trusted.getStatus());
+        }
+
+        @Test
+        @DisplayName("should leave requests outside the API alone")
+        void shouldLeaveRequestsOutsideApiAlone() throws Exception {
+            var request = new MockHttpServletRequest("GET", "/actuator/health");
+
+            admissionControlFilter.doFilter(request, new MockHttpServletResponse(), pass());
+
+            assertEquals(1, passed.get());
+            verifyNoInteractions(concurrencyLimit);
+        }
+    }
+
+    private static MockHttpServletRequest request(String client) {
+        var request = new MockHttpServletRequest("GET", "/v1/s3bucket/download/file.txt");
+        request.setRemoteAddr("10.0.0." + (client.charAt(0) - 'a' + 1));
+        request.addHeader("X-Client-Id", client);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockHttpServletRequest sameAddress(String client, String header) {
+        var request = request(client);
+        request.removeHeader("X-Client-Id");
+        request.addHeader("X-Client-Id", header);
+        return request;
+    }
+
+    private FilterChain pass() {
+        return (request, response) -> passed.incrementAndGet();
+    }
+
+    private static FilterChain startAsync() {
+        return (request, response) -> request.startAsync();
+    }
+}
@@ -0,0 +1,52 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedTaskWindowTest {
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(1, false);
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class submit {
+
+        @Test
+        @DisplayName("should give the slot back when the executor rejects the task")
+        void shouldGiveSlotBackWhenExecutorRejectsTask() {
+            BoundedTaskWindow window = new BoundedTaskWindow(s3TaskExecutor, 1);
+            s3TaskExecutor.shutdown();
+
+            assertThrows(RejectedExecutionException.class, () -> window.submit(() -> {}));
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertThrows(RejectedExecutionException.class, () -> window.submit(() -> {})));
+        }
+
+        @Test
+        @DisplayName("should run every task and wait for them in await")
+        void shouldRunEveryTaskAndWaitForThemInAwait() throws IOException {
+            AtomicInteger ran = new AtomicInteger();
+            try (BoundedTaskWindow window = new BoundedTaskWindow(s3TaskExecutor, 2)) {
+                for (int i = 0; i < 5; i++) {
+                    window.submit(ran::incrementAndGet);
+                }
+                window.await();
+            }
+
+            assertEquals(5, ran.get());
+        }
+    }
+}
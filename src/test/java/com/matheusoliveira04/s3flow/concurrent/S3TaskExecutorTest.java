@@ -0,0 +1,58 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3TaskExecutorTest {
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(2, true);
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class supply {
+
+        @Test
+        @DisplayName("should run at most max-threads virtual-thread tasks at once")
+        void shouldRunAtMostMaxThreadsVirtualThreadTasksAtOnce() throws InterruptedException {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+
+            var futures = IntStream.range(0, 6)
+                    .mapToObj(i -> s3TaskExecutor.supply(() -> {
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                        return i;
+                    }))
+                    .toList();
+            while (running.get() < 2) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+
+            assertEquals(2, running.get());
+            release.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            assertEquals(2, peak.get());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.matheusoliveira04.s3flow.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    AtomicLong now = new AtomicLong();
+
+    TokenBucket tokenBucket = new TokenBucket(100, now::get);
+
+    @Nested
+    class reserve {
+
+        @Test
+        @DisplayName("should let a burst of one second's worth through without waiting")
+        void shouldLetBurstThroughWithoutWaiting() {
+            assertEquals(0, tokenBucket.reserve(60));
+            assertEquals(0, tokenBucket.reserve(40));
+        }
+
+        @Test
+        @DisplayName("should make callers wait for the shortfall in order")
+        void shouldMakeCallersWaitForShortfallInOrder() {
+            tokenBucket.reserve(100);
+
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(500), tokenBucket.reserve(50));
+            assertEquals(TimeUnit.SECONDS.toNanos(1), tokenBucket.reserve(50));
+        }
+
+        @Test
+        @DisplayName("should refill at the configured rate up to one second's worth")
+        void shouldRefillAtConfiguredRate() {
+            tokenBucket.reserve(100);
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+            assertEquals(0, tokenBucket.reserve(25));
+
+            now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+            assertEquals(0, tokenBucket.reserve(100));
+            assertTrue(tokenBucket.reserve(1) > 0);
+        }
+    }
+}
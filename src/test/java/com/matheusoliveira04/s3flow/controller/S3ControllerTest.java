@@ -1,6 +1,18 @@
 package com.matheusoliveira04.s3flow.controller;
 
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import com.matheusoliveira04.s3flow.dto.ListPage;
+import com.matheusoliveira04.s3flow.dto.UploadJob;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import com.matheusoliveira04.s3flow.exceptions.RangeNotSatisfiableException;
+import com.matheusoliveira04.s3flow.service.CoalescingDownloadService;
+import com.matheusoliveira04.s3flow.service.CopyService;
+import com.matheusoliveira04.s3flow.service.DedupService;
+import com.matheusoliveira04.s3flow.service.DiskCacheService;
+import com.matheusoliveira04.s3flow.service.ParallelDownloadService;
 import com.matheusoliveira04.s3flow.service.S3Service;
+import com.matheusoliveira04.s3flow.service.UploadSpoolService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -9,16 +21,35 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +60,27 @@ class S3ControllerTest {
     @Mock
     S3Service s3Service;
 
+    @Mock
+    ParallelDownloadService parallelDownloadService;
+
+    @Mock
+    DiskCacheService diskCacheService;
+
+    @Mock
+    CoalescingDownloadService coalescingDownloadService;
+
+    @Mock
+    CopyService copyService;
+
+    @Mock
+    DedupService dedupService;
+
+    @Mock
+    UploadSpoolService uploadSpoolService;
+
+    @Spy
+    BufferPool bufferPool = new BufferPool(DataSize.ofKilobytes(4), 2);
+
     @InjectMocks
     S3Controller s3Controller;
 
@@ -38,9 +90,25 @@ class S3ControllerTest {
     @Captor
     ArgumentCaptor<String> stringCaptor;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3Controller, "cacheControl", "no-cache");
+    }
+
     @Nested
     class upload {
 
+        @Test
+        @DisplayName("should refuse to upload to a name reserved for deduplicated content")
+        void shouldRefuseToUploadToNameReservedForDeduplicatedContent() {
+            MultipartFile file = new MockMultipartFile("file", ".dedup/content/abc", "text/plain", "evil".getBytes());
+            doThrow(new InvalidRequestException("reserved")).when(dedupService).requireNotInternal(".dedup/content/abc");
+
+            assertThrows(InvalidRequestException.class, () -> s3Controller.upload(file));
+
+            verifyNoInteractions(s3Service, uploadSpoolService);
+        }
+
         @Test
         @DisplayName("should return 200 OK with success message after file upload")
         void shouldReturn200OkWithMessageAfterFileUpload() throws IOException {
@@ -97,6 +165,44 @@ class S3ControllerTest {
 
     }
 
+    @Nested
+    class uploadStream {
+
+        @Test
+        @DisplayName("should stream request body to uploadStream on S3Service")
+        void shouldStreamRequestBodyToUploadStreamOnS3Service() throws IOException {
+            var filename = "file.txt";
+            var request = new MockHttpServletRequest();
+            request.setContentType("text/plain");
+            request.setContent("Testing content".getBytes());
+
+            var response = s3Controller.uploadStream(filename, request);
+
+            assertEquals("File uploaded successfully", response.getBody());
+            assertEquals(HttpStatus.OK.value(), response.getStatusCode().value());
+
+            verify(s3Service, times(1)).uploadStream(eq(filename), eq("text/plain"), any(InputStream.class));
+        }
+
+        @Test
+        @DisplayName("should return 202 Accepted with the job location when the spool is enabled")
+        void shouldReturn202AcceptedWhenSpoolIsEnabled() throws IOException {
+            var request = new MockHttpServletRequest();
+            request.setContentType("text/plain");
+            request.setContent("Testing content".getBytes());
+            when(uploadSpoolService.isEnabled()).thenReturn(true);
+            when(uploadSpoolService.submit(eq("file.txt"), eq("text/plain"), eq(15L), any(InputStream.class)))
+                    .thenReturn(new UploadJob("job-1", "file.txt", UploadJob.Status.PENDING, 15, 0, null));
+
+            var response = s3Controller.uploadStream("file.txt", request);
+
+            assertEquals(HttpStatus.ACCEPTED.value(), response.getStatusCode().value());
+            assertEquals("/v1/s3bucket/upload/jobs/job-1", response.getHeaders().getLocation().toString());
+            assertEquals("Upload accepted. Job: job-1", response.getBody());
+            verifyNoInteractions(s3Service);
+        }
+    }
+
     @Nested
     class download {
 
@@ -105,49 +211,503 @@ class S3ControllerTest {
         void shouldReturn200OkAndContentDispositionAfterFileDownload() throws IOException {
             var filename = "fileTesting";
             byte[] content = "Testing content".getBytes();
-            Resource resource = new ByteArrayResource(content);
 
-            doReturn(resource).when(s3Service).downloadFile(any());
+            doReturn(objectStream(content)).when(s3Service).openDownload(any());
 
-            var response = s3Controller.download(filename);
+            var response = s3Controller.download(filename, null, null, null, null);
 
             assertNotNull(response);
             assertNotNull(response.getBody());
-            assertArrayEquals(content, response.getBody().getInputStream().readAllBytes());
+            assertArrayEquals(content, writeBody(response.getBody()));
             assertEquals(HttpStatus.OK.value(), response.getStatusCode().value());
             assertEquals("attachment; filename=" + filename, response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
 
-            verify(s3Service, times(1)).downloadFile(eq(filename));
+            verify(s3Service, times(1)).openDownload(eq(filename));
         }
 
         @Test
-        @DisplayName("should call DownloadFile on S3Service")
-        void shouldCallDownloadFileOnS3Service() {
+        @DisplayName("should download the content key of a deduplicated name")
+        void shouldDownloadContentKeyOfDeduplicatedName() throws IOException {
+            byte[] content = "Testing content".getBytes();
+            when(dedupService.isEnabled()).thenReturn(true);
+            when(dedupService.resolve("fileTesting")).thenReturn(".dedup/content/abc");
+            doReturn(objectStream(content)).when(s3Service).openDownload(".dedup/content/abc");
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+
+            assertArrayEquals(content, writeBody(response.getBody()));
+            assertEquals("attachment; filename=fileTesting", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        }
+
+        @Test
+        @DisplayName("should return Content-Length, Content-Type and ETag from GetObjectResponse")
+        void shouldReturnHeadersFromGetObjectResponse() throws IOException {
+            byte[] content = "Testing content".getBytes();
+
+            doReturn(objectStream(content)).when(s3Service).openDownload(any());
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+
+            assertEquals(content.length, response.getHeaders().getContentLength());
+            assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+        }
+
+        @Test
+        @DisplayName("should call OpenDownload on S3Service")
+        void shouldCallOpenDownloadOnS3Service() throws IOException {
             var filename = "fileTesting";
             byte[] content = "Testing content".getBytes();
-            Resource resource = new ByteArrayResource(content);
 
-            doReturn(resource).when(s3Service).downloadFile(any());
+            doReturn(objectStream(content)).when(s3Service).openDownload(any());
 
-            s3Controller.download(filename);
+            s3Controller.download(filename, null, null, null, null);
 
-            verify(s3Service, times(1)).downloadFile(any());
+            verify(s3Service, times(1)).openDownload(any());
         }
 
         @Test
-        @DisplayName("should capture DownloadFile arguments on S3Service")
-        void shouldCaptureDownloadFileArgumentsOnS3Service() {
+        @DisplayName("should capture OpenDownload arguments on S3Service")
+        void shouldCaptureOpenDownloadArgumentsOnS3Service() throws IOException {
             var filename = "fileTesting";
             byte[] content = "Testing content".getBytes();
-            Resource resource = new ByteArrayResource(content);
 
-            doReturn(resource).when(s3Service).downloadFile(stringCaptor.capture());
+            doReturn(objectStream(content)).when(s3Service).openDownload(stringCaptor.capture());
 
-            s3Controller.download(filename);
+            s3Controller.download(filename, null, null, null, null);
 
             assertEquals(filename, stringCaptor.getValue());
 
-            verify(s3Service, times(1)).downloadFile(eq(filename));
+            verify(s3Service, times(1)).openDownload(eq(filename));
+        }
+
+        @Test
+        @DisplayName("should return 206 Partial Content for a single range")
+        void shouldReturn206PartialContentForSingleRange() throws IOException {
+            byte[] content = "Test".getBytes();
+            GetObjectResponse objectResponse = GetObjectResponse.builder()
+                    .contentLength((long) content.length)
+                    .contentRange("bytes 0-3/15")
+                    .build();
+
+            doReturn(new ResponseInputStream<>(objectResponse, new ByteArrayInputStream(content)))
+                    .when(s3Service).openDownload(eq("fileTesting"), eq("bytes=0-3"));
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3", null, null, null);
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+            assertEquals("bytes 0-3/15", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+            assertArrayEquals(content, writeBody(response.getBody()));
+        }
+
+        @Test
+        @DisplayName("should return multipart/byteranges for multiple ranges")
+        void shouldReturnMultipartByterangesForMultipleRanges() throws IOException {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").contentLength(15L).contentType("text/plain").build())
+                    .when(s3Service).headObject("fileTesting");
+            doReturn(objectStream("Test".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=0-3");
+            doReturn(objectStream("tent".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=11-14");
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3,-4", null, null, null);
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+            assertEquals("multipart", response.getHeaders().getContentType().getType());
+            assertEquals("byteranges", response.getHeaders().getContentType().getSubtype());
+
+            var body = new String(writeBody(response.getBody()));
+            assertTrue(body.contains("Content-Range: bytes 0-3/15\r\n\r\nTest"));
+            assertTrue(body.contains("Content-Range: bytes 11-14/15\r\n\r\ntent"));
+        }
+
+        @Test
+        @DisplayName("should merge overlapping and adjacent ranges into one part each")
+        void shouldMergeOverlappingAndAdjacentRanges() throws IOException {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").contentLength(15L).contentType("text/plain").build())
+                    .when(s3Service).headObject("fileTesting");
+            doReturn(objectStream("Testing".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=0-6");
+            doReturn(objectStream("tent".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=11-14");
+
+            var response = s3Controller.download("fileTesting", "bytes=11-14,0-3,2-5,6-6", null, null, null);
+
+            var body = new String(writeBody(response.getBody()));
+            assertTrue(body.indexOf("Content-Range: bytes 0-6/15\r\n\r\nTesting") < body.indexOf("Content-Range: bytes 11-14/15"));
+            verify(s3Service, times(2)).openRange(anyString(), anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("should fail the response when the object changes between ranges")
+        void shouldFailResponseWhenObjectChangesBetweenRanges() throws IOException {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").contentLength(15L).contentType("text/plain").build())
+                    .when(s3Service).headObject("fileTesting");
+            doReturn(objectStream("Test".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=0-3");
+            doThrow(S3Exception.builder().statusCode(HttpStatus.PRECONDITION_FAILED.value()).build())
+                    .when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=11-14");
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3,-4", null, null, null);
+
+            var exception = assertThrows(S3Exception.class, () -> writeBody(response.getBody()));
+            assertEquals(HttpStatus.PRECONDITION_FAILED.value(), exception.statusCode());
+        }
+
+        @Test
+        @DisplayName("should send the whole object when more ranges are asked for than allowed")
+        void shouldSendWholeObjectWhenTooManyRanges() throws IOException {
+            var range = "bytes=" + IntStream.rangeClosed(0, S3Controller.MAX_RANGES)
+                    .mapToObj(i -> i * 2 + "-" + i * 2)
+                    .collect(Collectors.joining(","));
+            doReturn(objectStream("Testing content".getBytes())).when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", range, null, null, null);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("Testing content", new String(writeBody(response.getBody())));
+            verify(s3Service, never()).headObject(anyString());
+        }
+
+        @Test
+        @DisplayName("should throw RangeNotSatisfiableException when ranges are outside the object")
+        void shouldThrowRangeNotSatisfiableExceptionWhenRangesAreOutsideObject() {
+            doReturn(HeadObjectResponse.builder().contentLength(15L).build())
+                    .when(s3Service).headObject("fileTesting");
+
+            var exception = assertThrows(RangeNotSatisfiableException.class,
+                    () -> s3Controller.download("fileTesting", "bytes=20-30,40-", null, null, null));
+            assertEquals(15L, exception.getContentLength());
+        }
+
+        @Test
+        @DisplayName("should use ParallelDownloadService for large objects")
+        void shouldUseParallelDownloadServiceForLargeObjects() throws IOException {
+            HeadObjectResponse head = HeadObjectResponse.builder().contentLength(1024L).eTag("\"etag\"").build();
+
+            doReturn(true).when(parallelDownloadService).isEnabled();
+            doReturn(true).when(parallelDownloadService).accepts(1024L);
+            doReturn(head).when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+            writeBody(response.getBody());
+
+            assertEquals(1024L, response.getHeaders().getContentLength());
+            verify(parallelDownloadService, times(1))
+                    .writeTo(eq("fileTesting"), eq("\"etag\""), eq(1024L), any());
+            verify(s3Service, never()).openDownload(any());
+        }
+
+        @Test
+        @DisplayName("should share concurrent downloads through CoalescingDownloadService")
+        void shouldShareConcurrentDownloadsThroughCoalescingDownloadService() throws IOException {
+            HeadObjectResponse head = HeadObjectResponse.builder().contentLength(1024L).eTag("\"etag\"").build();
+
+            doReturn(true).when(coalescingDownloadService).isEnabled();
+            doReturn(true).when(coalescingDownloadService).accepts(1024L);
+            doReturn(head).when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+            writeBody(response.getBody());
+
+            assertEquals(1024L, response.getHeaders().getContentLength());
+            verify(coalescingDownloadService, times(1))
+                    .writeTo(eq("fileTesting"), eq("\"etag\""), eq(1024L), any());
+            verify(parallelDownloadService, never()).writeTo(any(), any(), anyLong(), any());
+            verify(s3Service, never()).openDownload(any());
+        }
+
+        @Test
+        @DisplayName("should serve cached objects from DiskCacheService")
+        void shouldServeCachedObjectsFromDiskCacheService() throws IOException {
+            HeadObjectResponse head = HeadObjectResponse.builder().contentLength(15L).eTag("\"etag\"").build();
+            var cached = new DiskCacheService.CachedObject(Path.of("cached"), 15L, "\"etag\"", null);
+
+            doReturn(true).when(diskCacheService).isEnabled();
+            doReturn(true).when(diskCacheService).accepts(head);
+            doReturn(head).when(s3Service).headObject("fileTesting");
+            doReturn(cached).when(diskCacheService).get("fileTesting", head);
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+            writeBody(response.getBody());
+
+            assertEquals(15L, response.getHeaders().getContentLength());
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+            verify(diskCacheService, times(1)).transferTo(eq("fileTesting"), eq(cached), any());
+            verify(s3Service, never()).openDownload(any());
+        }
+
+        @Test
+        @DisplayName("should pass gzip-stored objects through to clients that accept gzip")
+        void shouldPassGzipStoredObjectsThroughToClientsThatAcceptGzip() throws IOException {
+            byte[] compressed = gzip("Testing content".getBytes());
+            doReturn(gzipObjectStream(compressed)).when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, "br, gzip;q=0.8", null, null);
+
+            assertArrayEquals(compressed, writeBody(response.getBody()));
+            assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(compressed.length, response.getHeaders().getContentLength());
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+        }
+
+        @Test
+        @DisplayName("should decompress gzip-stored objects for clients that do not accept gzip")
+        void shouldDecompressGzipStoredObjectsForClientsThatDoNotAcceptGzip() throws IOException {
+            byte[] content = "Testing content".getBytes();
+            doReturn(gzipObjectStream(gzip(content))).when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, "gzip;q=0, deflate", null, null);
+
+            assertArrayEquals(content, writeBody(response.getBody()));
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(-1, response.getHeaders().getContentLength());
+            assertEquals("W/\"etag\"", response.getHeaders().getETag());
+        }
+
+        @Test
+        @DisplayName("should send the whole decoded body for a range of a gzip-stored object to clients that do not accept gzip")
+        void shouldSendWholeDecodedBodyForRangeOfGzipStoredObject() throws IOException {
+            byte[] content = "Testing content".getBytes();
+            byte[] compressed = gzip(content);
+            GetObjectResponse partResponse = GetObjectResponse.builder()
+                    .contentLength(4L)
+                    .contentRange("bytes 0-3/" + compressed.length)
+                    .contentEncoding("gzip")
+                    .build();
+            doReturn(new ResponseInputStream<>(partResponse, new ByteArrayInputStream(compressed, 0, 4)))
+                    .when(s3Service).openDownload("fileTesting", "bytes=0-3");
+            doReturn(gzipObjectStream(compressed)).when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3", null, null, null);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertArrayEquals(content, writeBody(response.getBody()));
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        }
+
+        @Test
+        @DisplayName("should send the whole decoded body for multiple ranges of a gzip-stored object to clients that do not accept gzip")
+        void shouldSendWholeDecodedBodyForMultipleRangesOfGzipStoredObject() throws IOException {
+            byte[] content = "Testing content".getBytes();
+            doReturn(HeadObjectResponse.builder().contentLength(30L).contentEncoding("gzip").build())
+                    .when(s3Service).headObject("fileTesting");
+            doReturn(gzipObjectStream(gzip(content))).when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3,-4", "identity", null, null);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertArrayEquals(content, writeBody(response.getBody()));
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            verify(s3Service, never()).openDownload(eq("fileTesting"), anyString());
+        }
+
+        @Test
+        @DisplayName("should label multiple ranges of a gzip-stored object as gzip for clients that accept it")
+        void shouldLabelMultipleRangesOfGzipStoredObjectAsGzip() throws IOException {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").contentLength(15L).contentType("text/plain").contentEncoding("gzip").build())
+                    .when(s3Service).headObject("fileTesting");
+            doReturn(objectStream("Test".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=0-3");
+            doReturn(objectStream("tent".getBytes())).when(s3Service).openRange("fileTesting", "\"etag\"", "bytes=11-14");
+
+            var response = s3Controller.download("fileTesting", "bytes=0-3,-4", "gzip", null, null);
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+            assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+            assertTrue(new String(writeBody(response.getBody())).contains("Content-Range: bytes 0-3/15\r\n\r\nTest"));
+        }
+
+        @Test
+        @DisplayName("should return Last-Modified and Cache-Control validators")
+        void shouldReturnLastModifiedAndCacheControl() throws IOException {
+            var lastModified = Instant.parse("2024-01-02T03:04:05Z");
+            GetObjectResponse objectResponse = GetObjectResponse.builder().eTag("\"etag\"").lastModified(lastModified).build();
+            doReturn(new ResponseInputStream<>(objectResponse, new ByteArrayInputStream(new byte[0])))
+                    .when(s3Service).openDownload("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, null, null);
+
+            assertEquals(lastModified.toEpochMilli(), response.getHeaders().getLastModified());
+            assertEquals("no-cache", response.getHeaders().getCacheControl());
+        }
+
+        @Test
+        @DisplayName("should pass If-None-Match to S3 and return 304 when S3 reports Not Modified")
+        void shouldReturn304WhenS3ReportsNotModified() throws IOException {
+            var notModified = (S3Exception) S3Exception.builder()
+                    .statusCode(304)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(304).putHeader("ETag", "\"etag\"").build())
+                            .build())
+                    .build();
+            doThrow(notModified).when(s3Service).openDownload("fileTesting", null, "\"etag\"", null);
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").build()).when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, "W/\"etag\"", null);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+            assertNull(response.getBody());
+        }
+
+        @Test
+        @DisplayName("should return a weak ETag on 304 for a gzip-stored object the client would get decoded")
+        void shouldReturnWeakETagOn304ForDecodedGzipObject() throws IOException {
+            var notModified = (S3Exception) S3Exception.builder()
+                    .statusCode(304)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(304).putHeader("ETag", "\"etag\"").build())
+                            .build())
+                    .build();
+            doThrow(notModified).when(s3Service).openDownload("fileTesting", null, "\"etag\"", null);
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").contentEncoding("gzip").build())
+                    .when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, "W/\"etag\"", null);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            assertEquals("W/\"etag\"", response.getHeaders().getETag());
+        }
+
+        @Test
+        @DisplayName("should keep the strong ETag on 304 for clients that accept gzip")
+        void shouldKeepStrongETagOn304ForClientsAcceptingGzip() throws IOException {
+            var notModified = (S3Exception) S3Exception.builder()
+                    .statusCode(304)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(304).putHeader("ETag", "\"etag\"").build())
+                            .build())
+                    .build();
+            doThrow(notModified).when(s3Service).openDownload("fileTesting", null, "\"etag\"", null);
+
+            var response = s3Controller.download("fileTesting", null, "gzip", "\"etag\"", null);
+
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+            verify(s3Service, never()).headObject(anyString());
+        }
+
+        @Test
+        @DisplayName("should pass If-Modified-Since to S3 when no If-None-Match is given")
+        void shouldPassIfModifiedSinceToS3() throws IOException {
+            doReturn(objectStream("Testing content".getBytes())).when(s3Service)
+                    .openDownload("fileTesting", null, null, Instant.parse("2024-01-02T03:04:05Z"));
+
+            var response = s3Controller.download("fileTesting", null, null, null, "Tue, 02 Jan 2024 03:04:05 GMT");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("should answer 304 from HeadObject without reading cached objects")
+        void shouldAnswer304FromHeadObjectBeforeReadingCachedObjects() throws IOException {
+            HeadObjectResponse head = HeadObjectResponse.builder().contentLength(15L).eTag("\"etag\"").build();
+            doReturn(true).when(diskCacheService).isEnabled();
+            doReturn(head).when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.download("fileTesting", null, null, "\"other\", \"etag\"", null);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            verify(diskCacheService, never()).get(any(), any());
+        }
+
+        private static ResponseInputStream<GetObjectResponse> gzipObjectStream(byte[] compressed) {
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength((long) compressed.length)
+                    .contentType("text/plain")
+                    .contentEncoding("gzip")
+                    .eTag("\"etag\"")
+                    .build();
+            return new ResponseInputStream<>(response, new ByteArrayInputStream(compressed));
+        }
+
+        private static byte[] gzip(byte[] content) throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            try (var gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(content);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static ResponseInputStream<GetObjectResponse> objectStream(byte[] content) {
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength((long) content.length)
+                    .contentType("text/plain")
+                    .eTag("\"etag\"")
+                    .build();
+            return new ResponseInputStream<>(response, new ByteArrayInputStream(content));
+        }
+
+        private static byte[] writeBody(StreamingResponseBody body) throws IOException {
+            var outputStream = new ByteArrayOutputStream();
+            body.writeTo(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Nested
+    class head {
+
+        @Test
+        @DisplayName("should return object headers from HeadObject without opening the object")
+        void shouldReturnObjectHeadersFromHeadObject() {
+            var lastModified = Instant.parse("2024-01-02T03:04:05Z");
+            doReturn(HeadObjectResponse.builder().contentLength(15L).contentType("text/plain")
+                    .eTag("\"etag\"").lastModified(lastModified).build())
+                    .when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.head("fileTesting", null, null, null);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(15L, response.getHeaders().getContentLength());
+            assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+            assertEquals("\"etag\"", response.getHeaders().getETag());
+            assertEquals(lastModified.toEpochMilli(), response.getHeaders().getLastModified());
+            verify(s3Service, never()).openDownload(any());
+        }
+
+        @Test
+        @DisplayName("should return 304 when the object was not modified since the given date")
+        void shouldReturn304WhenNotModifiedSince() {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"")
+                    .lastModified(Instant.parse("2024-01-02T03:04:05.500Z")).build())
+                    .when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.head("fileTesting", null, null, "Tue, 02 Jan 2024 03:04:05 GMT");
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        }
+
+        @Test
+        @DisplayName("should describe the decoded representation of gzip-stored objects for clients that do not accept gzip")
+        void shouldDescribeDecodedRepresentationOfGzipStoredObjects() {
+            doReturn(HeadObjectResponse.builder().contentLength(10L).contentEncoding("gzip").eTag("\"etag\"").build())
+                    .when(s3Service).headObject("fileTesting");
+
+            var response = s3Controller.head("fileTesting", null, null, null);
+
+            assertEquals("W/\"etag\"", response.getHeaders().getETag());
+            assertEquals(-1, response.getHeaders().getContentLength());
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        }
+    }
+
+    @Nested
+    class copyAndMove {
+
+        @Test
+        @DisplayName("should copy inside S3 through CopyService")
+        void shouldCopyInsideS3ThroughCopyService() throws IOException {
+            var response = s3Controller.copy("fileTest", "copy/fileTest");
+
+            assertEquals("File copied successfully. Destination: copy/fileTest", response.getBody());
+            verify(copyService, times(1)).copy("fileTest", "copy/fileTest");
+            verify(s3Service, never()).openDownload(any());
+        }
+
+        @Test
+        @DisplayName("should move inside S3 through CopyService")
+        void shouldMoveInsideS3ThroughCopyService() throws IOException {
+            var response = s3Controller.move("fileTest", "moved/fileTest");
+
+            assertEquals("File moved successfully. Destination: moved/fileTest", response.getBody());
+            verify(copyService, times(1)).move("fileTest", "moved/fileTest");
         }
     }
 
@@ -188,6 +748,28 @@ class S3ControllerTest {
 
             verify(s3Service, times(1)).deleteFile(eq(filename));
         }
+
+        @Test
+        @DisplayName("should release a deduplicated name through DedupService")
+        void shouldReleaseDeduplicatedNameThroughDedupService() {
+            when(dedupService.isEnabled()).thenReturn(true);
+
+            s3Controller.delete("fileTest");
+
+            verify(dedupService, times(1)).delete("fileTest");
+            verify(s3Service, never()).deleteFile(any());
+        }
+
+        @Test
+        @DisplayName("should refuse to delete a name reserved for deduplicated content")
+        void shouldRefuseToDeleteNameReservedForDeduplicatedContent() {
+            doThrow(new InvalidRequestException("reserved")).when(dedupService).requireNotInternal(".dedup/content/abc");
+
+            assertThrows(InvalidRequestException.class, () -> s3Controller.delete(".dedup/content/abc"));
+
+            verify(dedupService, never()).delete(any());
+            verifyNoInteractions(s3Service);
+        }
     }
 
     @Nested
@@ -198,9 +780,9 @@ class S3ControllerTest {
         void shouldReturn200OkAndFilenameList() {
             var filenames = List.of("fileTesting1", "fileTesting2", "fileTesting3");
 
-            doReturn(filenames).when(s3Service).listAll();
+            doReturn(filenames).when(s3Service).listAll(null, null);
 
-            var response = s3Controller.listAll();
+            var response = s3Controller.listAll(null, null, null, null);
 
             assertNotNull(response);
             assertNotNull(response.getBody());
@@ -209,7 +791,51 @@ class S3ControllerTest {
             assertArrayEquals(filenames.toArray(), response.getBody().toArray());
             assertEquals(HttpStatus.OK, response.getStatusCode());
 
-            verify(s3Service, times(1)).listAll();
+            verify(s3Service, times(1)).listAll(null, null);
+        }
+
+        @Test
+        @DisplayName("should return a single page and continuation token header when paging")
+        void shouldReturnSinglePageAndContinuationTokenHeaderWhenPaging() {
+            var filenames = List.of("docs/file1", "docs/file2");
+
+            doReturn(new ListPage(filenames, "next-token")).when(s3Service).listPage("docs/", null, 2, null);
+
+            var response = s3Controller.listAll("docs/", null, 2, null);
+
+            assertEquals(filenames, response.getBody());
+            assertEquals("next-token", response.getHeaders().getFirst(S3Controller.CONTINUATION_TOKEN_HEADER));
+            verify(s3Service, never()).listAll(any(), any());
+        }
+    }
+
+    @Nested
+    class listStream {
+
+        @Test
+        @DisplayName("should write keys as NDJSON")
+        void shouldWriteKeysAsNdjson() throws IOException {
+            doReturn(Stream.of("file1", "file\"2")).when(s3Service).streamKeys(null, null);
+
+            var response = s3Controller.listStream(null, null, "ndjson");
+            var outputStream = new ByteArrayOutputStream();
+            response.getBody().writeTo(outputStream);
+
+            assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+            assertEquals("\"file1\"\n\"file\\\"2\"\n", outputStream.toString());
+        }
+
+        @Test
+        @DisplayName("should write keys as a JSON array")
+        void shouldWriteKeysAsJsonArray() throws IOException {
+            doReturn(Stream.of("file1", "file2")).when(s3Service).streamKeys("docs/", "/");
+
+            var response = s3Controller.listStream("docs/", "/", "json");
+            var outputStream = new ByteArrayOutputStream();
+            response.getBody().writeTo(outputStream);
+
+            assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+            assertEquals("[\"file1\",\"file2\"]", outputStream.toString());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.matheusoliveira04.s3flow.index;
+
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+import com.matheusoliveira04.s3flow.exceptions.IndexNotReadyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyIndexTest {
+
+    static final Instant MODIFIED = Instant.parse("2024-01-02T03:04:05Z");
+
+    KeyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new KeyIndex(100, Runnable::run);
+        index.replace(snapshot("a/1.txt", 10, "a/2.log", 20, "a/b/3.txt", 30, "b/4.txt", 40), index.beginScan());
+    }
+
+    @Nested
+    class stats {
+
+        @Test
+        @DisplayName("should count keys and bytes under a prefix from the snapshot")
+        void shouldCountKeysAndBytesUnderPrefix() {
+            var stats = index.stats(KeyQuery.of("a/", null, null, null));
+
+            assertEquals(3, stats.count());
+            assertEquals(60, stats.bytes());
+        }
+
+        @Test
+        @DisplayName("should apply overlay uploads and deletes over the snapshot")
+        void shouldApplyOverlayOverSnapshot() {
+            index.put(new IndexedObject("a/1.txt", 15, "\"new\"", MODIFIED));
+            index.put(new IndexedObject("a/0.txt", 5, "\"new\"", MODIFIED));
+            index.remove("a/2.log");
+
+            var stats = index.stats(KeyQuery.of("a/", null, null, null));
+
+            assertEquals(3, stats.count());
+            assertEquals(50, stats.bytes());
+        }
+
+        @Test
+        @DisplayName("should filter by glob and size range")
+        void shouldFilterByGlobAndSizeRange() {
+            assertEquals(2, index.stats(KeyQuery.of(null, "a/*.*", null, null)).count());
+            assertEquals(3, index.stats(KeyQuery.of(null, "**.txt", null, null)).count());
+            assertEquals(2, index.stats(KeyQuery.of(null, "**.txt", 20L, null)).count());
+            assertEquals(70, index.stats(KeyQuery.of(null, null, 30L, 40L)).bytes());
+        }
+
+        @Test
+        @DisplayName("should throw IndexNotReadyException before the first snapshot")
+        void shouldThrowIndexNotReadyExceptionBeforeFirstSnapshot() {
+            assertThrows(IndexNotReadyException.class, () -> new KeyIndex(100, Runnable::run).stats(KeyQuery.of(null, null, null, null)));
+        }
+    }
+
+    @Nested
+    class search {
+
+        @Test
+        @DisplayName("should return snapshot and overlay entries merged in key order")
+        void shouldReturnEntriesMergedInKeyOrder() {
+            index.put(new IndexedObject("a/10.txt", 1, "\"new\"", MODIFIED));
+            index.remove("a/2.log");
+
+            var keys = index.search(KeyQuery.of("a/", null, null, null), 10).stream().map(IndexedObject::key).toList();
+
+            assertEquals(List.of("a/1.txt", "a/10.txt", "a/b/3.txt"), keys);
+        }
+
+        @Test
+        @DisplayName("should stop at the limit")
+        void shouldStopAtLimit() {
+            index.put(new IndexedObject("0.txt", 1, "\"new\"", MODIFIED));
+
+            var keys = index.search(KeyQuery.of(null, null, null, null), 2).stream().map(IndexedObject::key).toList();
+
+            assertEquals(List.of("0.txt", "a/1.txt"), keys);
+        }
+    }
+
+    @Nested
+    class maintenance {
+
+        @Test
+        @DisplayName("should keep only changes recorded after the scan started when replacing the snapshot")
+        void shouldKeepChangesRecordedAfterScanStarted() {
+            index.put(new IndexedObject("c/before.txt", 1, "\"e\"", MODIFIED));
+            long scanStart = index.beginScan();
+            index.put(new IndexedObject("c/after.txt", 2, "\"e\"", MODIFIED));
+
+            index.replace(snapshot("c/listed.txt", 3), scanStart);
+
+            var keys = index.search(KeyQuery.of(null, null, null, null), 10).stream().map(IndexedObject::key).toList();
+            assertEquals(List.of("c/after.txt", "c/listed.txt"), keys);
+        }
+
+        @Test
+        @DisplayName("should fold the overlay into a new snapshot off the recording thread once it exceeds its limit")
+        void shouldFoldOverlayIntoSnapshot() {
+            List<Runnable> compactions = new ArrayList<>();
+            index = new KeyIndex(2, compactions::add);
+            index.replace(snapshot("a", 1, "c", 3), index.beginScan());
+
+            index.put(new IndexedObject("b", 2, "\"e\"", MODIFIED));
+            index.remove("c");
+            index.put(new IndexedObject("d", 4, "\"e\"", MODIFIED));
+            index.put(new IndexedObject("e", 5, "\"e\"", MODIFIED));
+
+            assertEquals(1, compactions.size());
+            assertEquals(4, index.stats(KeyQuery.of(null, null, null, null)).count());
+            compactions.removeFirst().run();
+            index.remove("e");
+
+            var stats = index.stats(KeyQuery.of(null, null, null, null));
+            assertEquals(3, stats.count());
+            assertEquals(7, stats.bytes());
+            assertEquals(List.of("a", "b", "d"),
+                    index.search(KeyQuery.of(null, null, null, null), 10).stream().map(IndexedObject::key).toList());
+        }
+    }
+
+    @Nested
+    class snapshots {
+
+        @Test
+        @DisplayName("should order keys by UTF-8 bytes like S3 listings")
+        void shouldOrderKeysByUtf8Bytes() {
+            assertTrue(KeySnapshot.compareKeys("\uFFFD", "\uD83D\uDE00") < 0);
+            assertTrue("\uFFFD".compareTo("\uD83D\uDE00") > 0);
+            assertThrows(IllegalStateException.class, () -> KeySnapshot.builder(null).add("b", 1, null, null).add("a", 1, null, null));
+        }
+
+        @Test
+        @DisplayName("should read back what it writes")
+        void shouldReadBackWhatItWrites() throws IOException {
+            var snapshot = snapshot("a/1.txt", 10, "b/\u00E9.txt", 20);
+            var bytes = new ByteArrayOutputStream();
+            snapshot.writeTo(new DataOutputStream(bytes));
+
+            var read = KeySnapshot.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(2, read.count());
+            assertEquals(snapshot.get(1), read.get(1));
+            assertEquals(30, read.bytes(0, 2));
+            assertEquals(snapshot.scannedAt(), read.scannedAt());
+        }
+    }
+
+    static KeySnapshot snapshot(Object... keysAndSizes) {
+        var builder = KeySnapshot.builder(MODIFIED);
+        for (int i = 0; i < keysAndSizes.length; i += 2) {
+            builder.add((String) keysAndSizes[i], ((Integer) keysAndSizes[i + 1]).longValue(), "\"etag\"", MODIFIED);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.matheusoliveira04.s3flow.io;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumCalculatorTest {
+
+    @Test
+    @DisplayName("should compute the base64 big-endian CRC32C of the buffer prefix")
+    void shouldComputeCrc32c() {
+        var checksum = new ChecksumCalculator(new SimpleMeterRegistry(), "CRC32C")
+                .compute("123456789 ignored".getBytes(), 9);
+
+        assertEquals(ChecksumAlgorithm.CRC32_C, checksum.algorithm());
+        assertEquals("4waSgw==", checksum.value());
+    }
+
+    @Test
+    @DisplayName("should compute the base64 SHA-256 and record its cost")
+    void shouldComputeSha256AndRecordCost() {
+        var meterRegistry = new SimpleMeterRegistry();
+
+        var checksum = new ChecksumCalculator(meterRegistry, "sha-256").compute("hello".getBytes(), 5);
+
+        assertEquals("LPJNul+wow4m6DsqxbninhsWHlwfp0JecwQzYpOLmCQ=", checksum.value());
+        assertEquals(1, meterRegistry.get("s3flow.checksum.duration").tag("algorithm", "SHA256").timer().count());
+        assertEquals(5, meterRegistry.get("s3flow.checksum.bytes").tag("algorithm", "SHA256").counter().count());
+    }
+
+    @Test
+    @DisplayName("should return no checksum when disabled and reject unknown algorithms")
+    void shouldReturnNoChecksumWhenDisabled() {
+        assertNull(new ChecksumCalculator(new SimpleMeterRegistry(), "NONE").compute(new byte[1], 1));
+        assertThrows(IllegalArgumentException.class, () -> new ChecksumCalculator(new SimpleMeterRegistry(), "MD5"));
+    }
+}
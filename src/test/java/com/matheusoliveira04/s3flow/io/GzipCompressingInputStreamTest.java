@@ -0,0 +1,70 @@
+package com.matheusoliveira04.s3flow.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipCompressingInputStreamTest {
+
+    @Nested
+    class read {
+
+        @Test
+        @DisplayName("should produce gzip that decompresses to the source bytes")
+        void shouldProduceGzipThatDecompressesToSourceBytes() throws IOException {
+            byte[] content = new byte[300_000];
+            new Random(42).nextBytes(content);
+
+            byte[] compressed;
+            try (var compressing = new GzipCompressingInputStream(new ByteArrayInputStream(content), Deflater.DEFAULT_COMPRESSION)) {
+                compressed = readInSmallChunks(compressing);
+            }
+
+            try (var decompressing = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                assertArrayEquals(content, decompressing.readAllBytes());
+            }
+        }
+
+        @Test
+        @DisplayName("should shrink repetitive content")
+        void shouldShrinkRepetitiveContent() throws IOException {
+            byte[] content = "{\"key\":\"value\"}\n".repeat(10_000).getBytes();
+
+            try (var compressing = new GzipCompressingInputStream(new ByteArrayInputStream(content), Deflater.BEST_SPEED)) {
+                assertTrue(compressing.readAllBytes().length < content.length / 10);
+            }
+        }
+
+        @Test
+        @DisplayName("should produce a valid gzip stream for empty input")
+        void shouldProduceValidGzipStreamForEmptyInput() throws IOException {
+            byte[] compressed;
+            try (var compressing = new GzipCompressingInputStream(new ByteArrayInputStream(new byte[0]), Deflater.DEFAULT_COMPRESSION)) {
+                compressed = compressing.readAllBytes();
+            }
+
+            try (var decompressing = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                assertEquals(0, decompressing.readAllBytes().length);
+            }
+        }
+    }
+
+    private static byte[] readInSmallChunks(GzipCompressingInputStream inputStream) throws IOException {
+        var output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[7];
+        int read;
+        while ((read = inputStream.read(chunk, 0, chunk.length)) != -1) {
+            output.write(chunk, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
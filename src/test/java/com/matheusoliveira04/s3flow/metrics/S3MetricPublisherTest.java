@@ -0,0 +1,75 @@
+package com.matheusoliveira04.s3flow.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3MetricPublisherTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    S3MetricPublisher metricPublisher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metricPublisher = new S3MetricPublisher(meterRegistry);
+    }
+
+    @Nested
+    class publish {
+
+        @Test
+        @DisplayName("should record call latency, attempts and per-attempt timings")
+        void shouldRecordCallLatencyAttemptsAndPerAttemptTimings() {
+            MetricCollector call = MetricCollector.create("ApiCall");
+            call.reportMetric(CoreMetric.OPERATION_NAME, "GetObject");
+            call.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, true);
+            call.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(120));
+            call.reportMetric(CoreMetric.RETRY_COUNT, 1);
+            attempt(call, Duration.ofMillis(40), Duration.ofMillis(5));
+            attempt(call, Duration.ofMillis(30), Duration.ofMillis(1));
+
+            metricPublisher.publish(call.collect());
+
+            var requests = meterRegistry.get("s3.client.requests")
+                    .tags("operation", "GetObject", "outcome", "SUCCESS", "error", "none").timer();
+            assertEquals(120, requests.totalTime(TimeUnit.MILLISECONDS));
+            assertEquals(2, meterRegistry.get("s3.client.attempts").summary().totalAmount());
+            assertEquals(1, meterRegistry.get("s3.client.retries").counter().count());
+            assertEquals(70, meterRegistry.get("s3.client.time-to-first-byte").timer().totalTime(TimeUnit.MILLISECONDS));
+            assertEquals(6, meterRegistry.get("s3.client.connection-acquire").timer().totalTime(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("should tag failed calls with the error type of the last attempt")
+        void shouldTagFailedCallsWithErrorTypeOfLastAttempt() {
+            MetricCollector call = MetricCollector.create("ApiCall");
+            call.reportMetric(CoreMetric.OPERATION_NAME, "PutObject");
+            call.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, false);
+            call.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(900));
+            call.createChild("ApiCallAttempt").reportMetric(CoreMetric.ERROR_TYPE, "Throttling");
+
+            metricPublisher.publish(call.collect());
+
+            assertEquals(1, meterRegistry.get("s3.client.requests")
+                    .tags("operation", "PutObject", "outcome", "ERROR", "error", "Throttling").timer().count());
+        }
+    }
+
+    private static void attempt(MetricCollector call, Duration timeToFirstByte, Duration acquire) {
+        MetricCollector attempt = call.createChild("ApiCallAttempt");
+        attempt.reportMetric(CoreMetric.TIME_TO_FIRST_BYTE, timeToFirstByte);
+        attempt.createChild("HttpClient").reportMetric(HttpMetric.CONCURRENCY_ACQUIRE_DURATION, acquire);
+    }
+}
@@ -0,0 +1,150 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveDownloadServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    @Mock
+    DedupService dedupService;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(4, false);
+
+    ArchiveDownloadService archiveDownloadService;
+
+    @BeforeEach
+    void setUp() {
+        archiveDownloadService = new ArchiveDownloadService(
+                s3Service, dedupService, s3TaskExecutor, new BufferPool(DataSize.ofBytes(4), 2));
+        ReflectionTestUtils.setField(archiveDownloadService, "prefetch", 2);
+        ReflectionTestUtils.setField(archiveDownloadService, "prefetchBuffer", DataSize.ofBytes(16));
+        ReflectionTestUtils.setField(archiveDownloadService, "storedTypes", List.of(MediaType.parseMediaType("image/*")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class writeZip {
+
+        @Test
+        @DisplayName("should write one entry per key in order, named relative to the prefix")
+        void shouldWriteOneEntryPerKeyInOrder() throws IOException {
+            stub("docs/a.txt", "text/plain", null, "first file".getBytes());
+            stub("docs/sub/b.txt", "text/plain", null, "second file, longer than the prefetch buffer".getBytes());
+            stub("docs/c.txt", "text/plain", null, "third".getBytes());
+
+            var entries = zip(List.of("docs/a.txt", "docs/sub/b.txt", "docs/c.txt"), "docs/");
+
+            assertEquals(List.of("a.txt", "sub/b.txt", "c.txt"), List.copyOf(entries.keySet()));
+            assertEquals("first file", new String(entries.get("a.txt").content()));
+            assertEquals("second file, longer than the prefetch buffer", new String(entries.get("sub/b.txt").content()));
+            assertEquals(ZipEntry.DEFLATED, entries.get("a.txt").method());
+        }
+
+        @Test
+        @DisplayName("should store already-compressed objects instead of deflating them")
+        void shouldStoreAlreadyCompressedObjects() throws IOException {
+            stub("photo.jpg", "image/jpeg", null, "jpeg bytes".getBytes());
+            stub("raw.png", "application/octet-stream", null, "png bytes".getBytes());
+
+            var entries = zip(List.of("photo.jpg", "raw.png"), null);
+
+            assertEquals(ZipEntry.STORED, entries.get("photo.jpg").method());
+            assertEquals(ZipEntry.STORED, entries.get("raw.png").method());
+            assertEquals("jpeg bytes", new String(entries.get("photo.jpg").content()));
+        }
+
+        @Test
+        @DisplayName("should decode objects stored gzip-compressed")
+        void shouldDecodeObjectsStoredGzipCompressed() throws IOException {
+            var compressed = new ByteArrayOutputStream();
+            try (var gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("{\"a\":1}".getBytes());
+            }
+            stub("data.json", "application/json", S3Service.GZIP, compressed.toByteArray());
+
+            var entries = zip(List.of("data.json"), null);
+
+            assertEquals("{\"a\":1}", new String(entries.get("data.json").content()));
+        }
+
+        @Test
+        @DisplayName("should keep entry names inside the archive folder")
+        void shouldKeepEntryNamesInsideArchiveFolder() throws IOException {
+            stub("docs/../../etc/passwd", "text/plain", null, "escaped".getBytes());
+            stub("docs/sub\\..\\win.txt", "text/plain", null, "backslashes".getBytes());
+            stub("docs/./a.txt", "text/plain", null, "dot".getBytes());
+
+            var entries = zip(List.of("docs/../../etc/passwd", "docs/sub\\..\\win.txt", "docs/./a.txt", "docs/.."), "docs/");
+
+            assertEquals(List.of("etc/passwd", "sub/win.txt", "a.txt"), List.copyOf(entries.keySet()));
+            assertEquals("escaped", new String(entries.get("etc/passwd").content()));
+        }
+
+        @Test
+        @DisplayName("should leave out keys that no longer exist")
+        void shouldLeaveOutKeysThatNoLongerExist() throws IOException {
+            stub("a.txt", "text/plain", null, "kept".getBytes());
+            when(s3Service.openDownload("gone.txt")).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+            var entries = zip(List.of("gone.txt", "a.txt", "a.txt", "folder/"), null);
+
+            assertEquals(List.of("a.txt"), List.copyOf(entries.keySet()));
+            verify(s3Service, times(1)).openDownload("a.txt");
+        }
+    }
+
+    private void stub(String key, String contentType, String contentEncoding, byte[] content) {
+        var response = GetObjectResponse.builder().contentType(contentType).contentEncoding(contentEncoding).build();
+        doReturn(new ResponseInputStream<>(response, new ByteArrayInputStream(content))).when(s3Service).openDownload(key);
+    }
+
+    private Map<String, Entry> zip(List<String> keys, String prefix) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        archiveDownloadService.writeZip(keys.iterator(), prefix, outputStream);
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (var zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new Entry(entry.getMethod(), zip.readAllBytes()));
+            }
+        }
+        return entries;
+    }
+
+    private record Entry(int method, byte[] content) {}
+}
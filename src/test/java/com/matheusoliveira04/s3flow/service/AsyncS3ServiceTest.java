@@ -0,0 +1,109 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncS3ServiceTest {
+
+    @Mock
+    S3AsyncClient s3AsyncClient;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Captor
+    ArgumentCaptor<PutObjectRequest> putObjectRequestCaptor;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(2, false);
+
+    AsyncS3Service asyncS3Service;
+
+    @BeforeEach
+    void setUp() {
+        asyncS3Service = new AsyncS3Service(s3AsyncClient, s3TaskExecutor, eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class uploadFile {
+
+        @Test
+        @DisplayName("should publish ObjectChangedEvent once PutObject completes")
+        void shouldPublishObjectChangedEventOncePutObjectCompletes() throws IOException {
+            var putObject = new CompletableFuture<PutObjectResponse>();
+            doReturn(putObject).when(s3AsyncClient).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+
+            var result = asyncS3Service.uploadFile(new MockMultipartFile("file", "file.txt", "text/plain", "content".getBytes()));
+
+            assertFalse(result.isDone());
+            verifyNoInteractions(eventPublisher);
+
+            putObject.complete(PutObjectResponse.builder().build());
+
+            assertTrue(result.isDone());
+            verify(s3AsyncClient).putObject(putObjectRequestCaptor.capture(), any(AsyncRequestBody.class));
+            assertEquals("file.txt", putObjectRequestCaptor.getValue().key());
+            verify(eventPublisher, times(1)).publishEvent(new ObjectChangedEvent("file.txt", false));
+        }
+    }
+
+    @Nested
+    class downloadFile {
+
+        @Test
+        @DisplayName("should request the object as a blocking input stream")
+        void shouldRequestObjectAsBlockingInputStream() {
+            doReturn(new CompletableFuture<>()).when(s3AsyncClient)
+                    .getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class));
+
+            var result = asyncS3Service.downloadFile("file.txt");
+
+            assertFalse(result.isDone());
+            verify(s3AsyncClient, times(1)).getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class));
+        }
+    }
+
+    @Nested
+    class deleteFile {
+
+        @Test
+        @DisplayName("should not publish ObjectChangedEvent when DeleteObject fails")
+        void shouldNotPublishObjectChangedEventWhenDeleteObjectFails() {
+            doReturn(CompletableFuture.failedFuture(S3Exception.builder().message("failed").build()))
+                    .when(s3AsyncClient).deleteObject(any(DeleteObjectRequest.class));
+
+            var result = asyncS3Service.deleteFile("file.txt");
+
+            assertTrue(result.isCompletedExceptionally());
+            verifyNoInteractions(eventPublisher);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.DeletedObject;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchDeleteServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(4, false);
+
+    DedupService dedupService;
+
+    BatchDeleteService batchDeleteService;
+
+    @BeforeEach
+    void setUp() {
+        dedupService = new DedupService(s3Service);
+        ReflectionTestUtils.setField(dedupService, "enabled", true);
+        ReflectionTestUtils.setField(dedupService, "prefix", ".dedup/");
+        batchDeleteService = new BatchDeleteService(s3Service, s3TaskExecutor, dedupService);
+        ReflectionTestUtils.setField(batchDeleteService, "parallelism", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class delete {
+
+        @Test
+        @DisplayName("should split keys into batches of at most 1000")
+        void shouldSplitKeysIntoBatchesOfAtMost1000() throws IOException {
+            List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "file-" + i).toList();
+            when(s3Service.deleteObjects(anyList())).thenAnswer(invocation -> {
+                List<String> batch = invocation.getArgument(0);
+                return DeleteObjectsResponse.builder()
+                        .deleted(batch.stream().map(key -> DeletedObject.builder().key(key).build()).toList())
+                        .build();
+            });
+            Queue<ObjectResult> results = new ConcurrentLinkedQueue<>();
+
+            batchDeleteService.delete(keys.iterator(), results::add);
+
+            verify(s3Service, times(2)).deleteObjects(argThat(batch -> batch.size() == 1000));
+            verify(s3Service, times(1)).deleteObjects(argThat(batch -> batch.size() == 500));
+            assertEquals(2500, results.size());
+            assertTrue(results.stream().allMatch(ObjectResult::success));
+        }
+
+        @Test
+        @DisplayName("should report per-key errors returned by S3")
+        void shouldReportPerKeyErrorsReturnedByS3() throws IOException {
+            when(s3Service.deleteObjects(List.of("a.txt", "b.txt"))).thenReturn(DeleteObjectsResponse.builder()
+                    .deleted(DeletedObject.builder().key("a.txt").build())
+                    .errors(S3Error.builder().key("b.txt").code("AccessDenied").message("Access Denied").build())
+                    .build());
+            Queue<ObjectResult> results = new ConcurrentLinkedQueue<>();
+
+            batchDeleteService.delete(List.of("a.txt", "b.txt").iterator(), results::add);
+
+            assertTrue(results.contains(ObjectResult.success("a.txt")));
+            assertTrue(results.contains(ObjectResult.failure("b.txt", "AccessDenied: Access Denied")));
+        }
+
+        @Test
+        @DisplayName("should report every key of a failed batch as failed")
+        void shouldReportEveryKeyOfFailedBatchAsFailed() throws IOException {
+            when(s3Service.deleteObjects(anyList())).thenThrow(S3Exception.builder().message("slow down").build());
+            Queue<ObjectResult> results = new ConcurrentLinkedQueue<>();
+
+            batchDeleteService.delete(List.of("a.txt", "b.txt").iterator(), results::add);
+
+            assertEquals(List.of(ObjectResult.failure("a.txt", "slow down"), ObjectResult.failure("b.txt", "slow down")),
+                    List.copyOf(results));
+        }
+
+        @Test
+        @DisplayName("should refuse to delete keys reserved for deduplicated content")
+        void shouldRefuseToDeleteKeysReservedForDeduplicatedContent() throws IOException {
+            when(s3Service.deleteObjects(List.of("a.txt"))).thenReturn(DeleteObjectsResponse.builder()
+                    .deleted(DeletedObject.builder().key("a.txt").build())
+                    .build());
+            Queue<ObjectResult> results = new ConcurrentLinkedQueue<>();
+
+            batchDeleteService.delete(List.of(".dedup/content/abc", "a.txt", ".dedup/refs/abc/b.txt").iterator(), results::add);
+
+            verify(s3Service, times(1)).deleteObjects(anyList());
+            assertTrue(results.contains(ObjectResult.success("a.txt")));
+            assertEquals(2, results.stream().filter(result -> !result.success()).count());
+        }
+
+        @Test
+        @DisplayName("should propagate a failure to write results")
+        void shouldPropagateFailureToWriteResults() {
+            when(s3Service.deleteObjects(anyList())).thenReturn(DeleteObjectsResponse.builder()
+                    .deleted(DeletedObject.builder().key("a.txt").build())
+                    .build());
+
+            assertThrows(IllegalStateException.class, () -> batchDeleteService.delete(List.of("a.txt").iterator(),
+                    result -> { throw new IllegalStateException("client gone"); }));
+        }
+    }
+}
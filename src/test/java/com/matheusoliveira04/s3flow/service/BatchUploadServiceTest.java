@@ -0,0 +1,145 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUploadServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(4, false);
+
+    DedupService dedupService;
+
+    BatchUploadService batchUploadService;
+
+    Queue<ObjectResult> results = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        dedupService = new DedupService(s3Service);
+        ReflectionTestUtils.setField(dedupService, "enabled", true);
+        ReflectionTestUtils.setField(dedupService, "prefix", ".dedup/");
+        batchUploadService = new BatchUploadService(s3Service, s3TaskExecutor, dedupService);
+        ReflectionTestUtils.setField(batchUploadService, "window", 2);
+        ReflectionTestUtils.setField(batchUploadService, "maxBufferedSize", DataSize.ofBytes(8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class uploadFiles {
+
+        @Test
+        @DisplayName("should put small files and stream large ones")
+        void shouldPutSmallFilesAndStreamLargeOnes() throws IOException {
+            var small = new MockMultipartFile("files", "small.txt", "text/plain", "tiny".getBytes());
+            var large = new MockMultipartFile("files", "large.txt", "text/plain", "more than eight bytes".getBytes());
+
+            batchUploadService.uploadFiles(List.of(small, large), results::add);
+
+            verify(s3Service).uploadBytes(eq("small.txt"), eq("text/plain"), aryEq("tiny".getBytes()), eq(4));
+            verify(s3Service).uploadFile(large);
+            assertEquals(2, results.size());
+            assertTrue(results.stream().allMatch(ObjectResult::success));
+        }
+
+        @Test
+        @DisplayName("should report a failed upload without stopping the batch")
+        void shouldReportFailedUploadWithoutStoppingBatch() throws IOException {
+            var first = new MockMultipartFile("files", "a.txt", "text/plain", "a".getBytes());
+            var second = new MockMultipartFile("files", "b.txt", "text/plain", "b".getBytes());
+            doAnswer(invocation -> {
+                if ("a.txt".equals(invocation.getArgument(0))) {
+                    throw S3Exception.builder().message("denied").build();
+                }
+                return null;
+            }).when(s3Service).uploadBytes(anyString(), any(), any(), anyInt());
+
+            batchUploadService.uploadFiles(List.of(first, second), results::add);
+
+            assertTrue(results.contains(ObjectResult.failure("a.txt", "denied")));
+            assertTrue(results.contains(ObjectResult.success("b.txt")));
+        }
+    }
+
+    @Nested
+    class uploadArchive {
+
+        @Test
+        @DisplayName("should upload every file entry under the prefix")
+        void shouldUploadEveryFileEntryUnderPrefix() throws IOException {
+            InputStream archive = zip(Map.of("docs/", "", "docs/a.txt", "tiny", "docs/b.json", "more than eight bytes"));
+            var streamed = new ByteArrayOutputStream();
+            doAnswer(invocation -> {
+                invocation.<InputStream>getArgument(2).transferTo(streamed);
+                return null;
+            }).when(s3Service).uploadStream(eq("backup/docs/b.json"), eq("application/json"), any());
+
+            batchUploadService.uploadArchive(archive, "backup/", results::add);
+
+            verify(s3Service).uploadBytes(eq("backup/docs/a.txt"), eq("text/plain"), aryEq("tiny".getBytes()), eq(4));
+            assertEquals("more than eight bytes", streamed.toString());
+            assertEquals(2, results.size());
+            assertTrue(results.contains(ObjectResult.success("backup/docs/a.txt")));
+            assertTrue(results.contains(ObjectResult.success("backup/docs/b.json")));
+        }
+
+        @Test
+        @DisplayName("should refuse entries whose key is reserved for deduplicated content")
+        void shouldRefuseEntriesReservedForDeduplicatedContent() throws IOException {
+            InputStream archive = zip(Map.of("content/abc", "evil", "a.txt", "tiny"));
+
+            batchUploadService.uploadArchive(archive, ".dedup/", results::add);
+
+            verifyNoInteractions(s3Service);
+            assertEquals(2, results.size());
+            assertTrue(results.stream().noneMatch(ObjectResult::success));
+        }
+    }
+
+    private static InputStream zip(Map<String, String> entries) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(bytes)) {
+            for (var entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes());
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,239 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingDownloadServiceTest {
+
+    static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuv".getBytes();
+
+    @Mock
+    S3Service s3Service;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    CoalescingDownloadService coalescingDownloadService;
+
+    @BeforeEach
+    void setUp() {
+        coalescingDownloadService = new CoalescingDownloadService(
+                s3Service, new BufferPool(DataSize.ofBytes(4), 4), meterRegistry);
+        ReflectionTestUtils.setField(coalescingDownloadService, "enabled", true);
+        ReflectionTestUtils.setField(coalescingDownloadService, "bufferSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(coalescingDownloadService, "maxMemory", DataSize.ofKilobytes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Nested
+    class writeTo {
+
+        @Test
+        @DisplayName("should stream the whole object through the shared buffer")
+        void shouldStreamWholeObjectThroughSharedBuffer() throws IOException {
+            doReturn(stream(new ByteArrayInputStream(CONTENT))).when(s3Service).openFrom("file.txt", "etag", 0);
+
+            var outputStream = new ByteArrayOutputStream();
+            coalescingDownloadService.writeTo("file.txt", "etag", CONTENT.length, outputStream);
+
+            assertArrayEquals(CONTENT, outputStream.toByteArray());
+            assertEquals(1, count("opened"));
+            assertEquals(0, reservedBytes());
+        }
+
+        @Test
+        @DisplayName("should share one GET between concurrent requests")
+        void shouldShareOneGetBetweenConcurrentRequests() throws Exception {
+            CountDownLatch opened = new CountDownLatch(1);
+            doReturn(stream(new GatedInputStream(CONTENT, opened))).when(s3Service).openFrom("file.txt", "etag", 0);
+
+            var first = new ByteArrayOutputStream();
+            var second = new ByteArrayOutputStream();
+            Future<?> firstDownload = executor.submit(() -> download(first));
+            awaitCount("opened");
+            Future<?> secondDownload = executor.submit(() -> download(second));
+            awaitCount("joined");
+            opened.countDown();
+            firstDownload.get(5, TimeUnit.SECONDS);
+            secondDownload.get(5, TimeUnit.SECONDS);
+
+            assertArrayEquals(CONTENT, first.toByteArray());
+            assertArrayEquals(CONTENT, second.toByteArray());
+            verify(s3Service, times(1)).openFrom("file.txt", "etag", 0);
+            assertEquals(0, reservedBytes());
+        }
+
+        @Test
+        @DisplayName("should let a reader that fell a buffer behind continue with its own GET")
+        void shouldLetLappedReaderContinueWithItsOwnGet() throws Exception {
+            ReflectionTestUtils.setField(coalescingDownloadService, "bufferSize", DataSize.ofBytes(8));
+            CountDownLatch opened = new CountDownLatch(1);
+            CountDownLatch fastDone = new CountDownLatch(1);
+            CountDownLatch slowWrote = new CountDownLatch(1);
+            doReturn(stream(new GatedInputStream(CONTENT, opened))).when(s3Service).openFrom("file.txt", "etag", 0);
+            doReturn(stream(new ByteArrayInputStream(CONTENT, 4, CONTENT.length - 4)))
+                    .when(s3Service).openFrom("file.txt", "etag", 4);
+
+            var fast = new SlowOutputStream(new CountDownLatch(1), slowWrote);
+            var slow = new SlowOutputStream(slowWrote, fastDone);
+            Future<?> slowDownload = executor.submit(() -> download(slow));
+            awaitCount("opened");
+            Future<?> fastDownload = executor.submit(() -> download(fast));
+            awaitCount("joined");
+            opened.countDown();
+            fastDownload.get(5, TimeUnit.SECONDS);
+            fastDone.countDown();
+            slowDownload.get(5, TimeUnit.SECONDS);
+
+            assertArrayEquals(CONTENT, fast.toByteArray());
+            assertArrayEquals(CONTENT, slow.toByteArray());
+            assertEquals(1, count("fallback"));
+            assertEquals(0, reservedBytes());
+        }
+
+        @Test
+        @DisplayName("should fall back to its own GET when the shared one fails")
+        void shouldFallBackWhenSharedGetFails() throws IOException {
+            InputStream failing = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("connection reset");
+                }
+            };
+            doReturn(stream(failing), stream(new ByteArrayInputStream(CONTENT)))
+                    .when(s3Service).openFrom("file.txt", "etag", 0);
+
+            var outputStream = new ByteArrayOutputStream();
+            coalescingDownloadService.writeTo("file.txt", "etag", CONTENT.length, outputStream);
+
+            assertArrayEquals(CONTENT, outputStream.toByteArray());
+            assertEquals(1, count("fallback"));
+            assertEquals(0, reservedBytes());
+        }
+
+        @Test
+        @DisplayName("should stream on its own when the memory budget is used up")
+        void shouldStreamOnItsOwnWhenMemoryBudgetIsUsedUp() throws IOException {
+            ReflectionTestUtils.setField(coalescingDownloadService, "maxMemory", DataSize.ofBytes(16));
+            doReturn(stream(new ByteArrayInputStream(CONTENT))).when(s3Service).openFrom("file.txt", "etag", 0);
+
+            var outputStream = new ByteArrayOutputStream();
+            coalescingDownloadService.writeTo("file.txt", "etag", CONTENT.length, outputStream);
+
+            assertArrayEquals(CONTENT, outputStream.toByteArray());
+            assertEquals(1, count("bypassed"));
+            assertEquals(0, count("opened"));
+        }
+    }
+
+    private Void download(OutputStream outputStream) throws IOException {
+        coalescingDownloadService.writeTo("file.txt", "etag", CONTENT.length, outputStream);
+        return null;
+    }
+
+    private double count(String outcome) {
+        var counter = meterRegistry.find("s3flow.download.coalescing").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private void awaitCount(String outcome) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(outcome) < 1) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for " + outcome);
+            Thread.sleep(5);
+        }
+    }
+
+    private long reservedBytes() {
+        return ((AtomicLong) ReflectionTestUtils.getField(coalescingDownloadService, "reservedBytes")).get();
+    }
+
+    private static ResponseInputStream<GetObjectResponse> stream(InputStream content) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().build(), content);
+    }
+
+    /**
+     * Holds back every read until {@code opened} is released, so the test controls when the shared
+     * GET starts delivering bytes.
+     */
+    private static class GatedInputStream extends ByteArrayInputStream {
+
+        private final CountDownLatch opened;
+
+        GatedInputStream(byte[] content, CountDownLatch opened) {
+            super(content);
+            this.opened = opened;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            try {
+                opened.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read(buffer, offset, Math.min(length, 4));
+        }
+    }
+
+    /**
+     * Counts down {@code wrote} after its first write and then blocks until {@code released},
+     * standing in for a client on a slow connection.
+     */
+    private static class SlowOutputStream extends ByteArrayOutputStream {
+
+        private final CountDownLatch wrote;
+        private final CountDownLatch released;
+
+        SlowOutputStream(CountDownLatch wrote, CountDownLatch released) {
+            this.wrote = wrote;
+            this.released = released;
+        }
+
+        @Override
+        public synchronized void write(byte[] buffer, int offset, int length) {
+            super.write(buffer, offset, length);
+            if (size() == length) {
+                wrote.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.ObjectResult;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CopyServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    @Mock
+    DedupService dedupService;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(4, false);
+
+    CopyService copyService;
+
+    @BeforeEach
+    void setUp() {
+        copyService = new CopyService(s3Service, dedupService, s3TaskExecutor);
+        ReflectionTestUtils.setField(copyService, "multipartThreshold", DataSize.ofBytes(10));
+        ReflectionTestUtils.setField(copyService, "partSize", DataSize.ofBytes(4));
+        ReflectionTestUtils.setField(copyService, "parallelism", 2);
+        ReflectionTestUtils.setField(copyService, "prefixParallelism", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class copy {
+
+        @Test
+        @DisplayName("should copy small objects with one CopyObject call")
+        void shouldCopySmallObjectsWithOneCopyObjectCall() throws IOException {
+            when(s3Service.headObject("a.txt")).thenReturn(HeadObjectResponse.builder().contentLength(10L).eTag("etag").build());
+
+            copyService.copy("a.txt", "b.txt");
+
+            verify(s3Service).copyObject("a.txt", "etag", "b.txt");
+            verify(s3Service, never()).createMultipartUpload(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should copy large objects as UploadPartCopy ranges")
+        @SuppressWarnings("unchecked")
+        void shouldCopyLargeObjectsAsUploadPartCopyRanges() throws IOException {
+            when(s3Service.headObject("a.txt")).thenReturn(HeadObjectResponse.builder()
+                    .contentLength(11L).eTag("etag").contentType("text/plain").metadata(Map.of("k", "v")).build());
+            when(s3Service.createMultipartUpload("b.txt", "text/plain", null, Map.of("k", "v"))).thenReturn("upload-1");
+            when(s3Service.uploadPartCopy(eq("a.txt"), eq("etag"), eq("b.txt"), eq("upload-1"), anyInt(), anyLong(), anyLong()))
+                    .thenAnswer(invocation -> CompletedPart.builder()
+                            .partNumber(invocation.getArgument(4)).eTag("part-" + invocation.getArgument(4)).build());
+
+            copyService.copy("a.txt", "b.txt");
+
+            verify(s3Service).uploadPartCopy("a.txt", "etag", "b.txt", "upload-1", 1, 0, 3);
+            verify(s3Service).uploadPartCopy("a.txt", "etag", "b.txt", "upload-1", 2, 4, 7);
+            verify(s3Service).uploadPartCopy("a.txt", "etag", "b.txt", "upload-1", 3, 8, 10);
+            ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+            verify(s3Service).completeUpload(eq("b.txt"), eq("upload-1"), parts.capture());
+            assertEquals(List.of(1, 2, 3), parts.getValue().stream().map(CompletedPart::partNumber).toList());
+            verify(s3Service, never()).copyObject(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should abort the multipart upload when a part copy fails")
+        void shouldAbortMultipartUploadWhenPartCopyFails() {
+            when(s3Service.headObject("a.txt")).thenReturn(HeadObjectResponse.builder().contentLength(11L).eTag("etag").build());
+            when(s3Service.createMultipartUpload(eq("b.txt"), any(), any(), any())).thenReturn("upload-1");
+            when(s3Service.uploadPartCopy(any(), any(), any(), any(), anyInt(), anyLong(), anyLong()))
+                    .thenThrow(S3Exception.builder().statusCode(412).message("changed").build());
+
+            assertThrows(S3Exception.class, () -> copyService.copy("a.txt", "b.txt"));
+
+            verify(s3Service).abortUpload("b.txt", "upload-1");
+            verify(s3Service, never()).completeUpload(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should copy deduplicated names as pointers")
+        void shouldCopyDeduplicatedNamesAsPointers() throws IOException {
+            when(dedupService.isEnabled()).thenReturn(true);
+            when(dedupService.copy("a.txt", "b.txt")).thenReturn(true);
+
+            copyService.copy("a.txt", "b.txt");
+
+            verifyNoInteractions(s3Service);
+        }
+
+        @Test
+        @DisplayName("should reject copying an object onto itself")
+        void shouldRejectCopyingObjectOntoItself() {
+            assertThrows(InvalidRequestException.class, () -> copyService.copy("a.txt", "a.txt"));
+        }
+    }
+
+    @Nested
+    class move {
+
+        @Test
+        @DisplayName("should delete the source after copying it")
+        void shouldDeleteSourceAfterCopyingIt() throws IOException {
+            when(s3Service.headObject("a.txt")).thenReturn(HeadObjectResponse.builder().contentLength(3L).eTag("etag").build());
+
+            copyService.move("a.txt", "b.txt");
+
+            var order = inOrder(s3Service);
+            order.verify(s3Service).copyObject("a.txt", "etag", "b.txt");
+            order.verify(s3Service).deleteFile("a.txt");
+        }
+    }
+
+    @Nested
+    class movePrefix {
+
+        @Test
+        @DisplayName("should move every key under the prefix and report each one")
+        void shouldMoveEveryKeyUnderPrefixAndReportEachOne() throws IOException {
+            when(s3Service.streamKeys("old/", null)).thenReturn(Stream.of("old/a.txt", "old/dir/b.txt", "old/c.txt"));
+            when(s3Service.headObject(anyString())).thenReturn(HeadObjectResponse.builder().contentLength(3L).eTag("etag").build());
+            doAnswer(invocation -> {
+                if (invocation.getArgument(0).equals("old/c.txt")) {
+                    throw S3Exception.builder().message("denied").build();
+                }
+                return null;
+            }).when(s3Service).copyObject(anyString(), eq("etag"), anyString());
+
+            var results = new ConcurrentLinkedQueue<ObjectResult>();
+            copyService.movePrefix("old/", "new/", results::add);
+
+            verify(s3Service).copyObject("old/a.txt", "etag", "new/a.txt");
+            verify(s3Service).copyObject("old/dir/b.txt", "etag", "new/dir/b.txt");
+            verify(s3Service).deleteFile("old/a.txt");
+            verify(s3Service).deleteFile("old/dir/b.txt");
+            verify(s3Service, never()).deleteFile("old/c.txt");
+            assertEquals(3, results.size());
+            assertTrue(results.contains(ObjectResult.success("old/a.txt")));
+            assertTrue(results.contains(ObjectResult.failure("old/c.txt", "denied")));
+        }
+    }
+}
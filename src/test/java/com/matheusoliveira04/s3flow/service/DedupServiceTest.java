@@ -0,0 +1,260 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DedupServiceTest {
+
+    // SHA-256 of "hello"
+    static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+    static final String CONTENT_KEY = ".dedup/content/" + HASH;
+
+    @Mock
+    S3Service s3Service;
+
+    @TempDir
+    Path spoolDirectory;
+
+    DedupService dedupService;
+
+    @BeforeEach
+    void setUp() {
+        dedupService = new DedupService(s3Service);
+        ReflectionTestUtils.setField(dedupService, "enabled", true);
+        ReflectionTestUtils.setField(dedupService, "prefix", ".dedup/");
+        ReflectionTestUtils.setField(dedupService, "spoolDirectory", spoolDirectory);
+    }
+
+    @Nested
+    class initialize {
+
+        @Test
+        @DisplayName("should hide keys under the dedup prefix from listings")
+        @SuppressWarnings("unchecked")
+        void shouldHideKeysUnderDedupPrefixFromListings() {
+            dedupService.initialize();
+
+            ArgumentCaptor<Predicate<String>> hidden = ArgumentCaptor.forClass(Predicate.class);
+            verify(s3Service).hideKeys(hidden.capture());
+            assertTrue(hidden.getValue().test(CONTENT_KEY));
+            assertFalse(hidden.getValue().test("a.txt"));
+        }
+
+        @Test
+        @DisplayName("should hide nothing when dedup is disabled")
+        void shouldHideNothingWhenDedupIsDisabled() {
+            ReflectionTestUtils.setField(dedupService, "enabled", false);
+
+            dedupService.initialize();
+
+            verify(s3Service, never()).hideKeys(any());
+        }
+    }
+
+    @Nested
+    class upload {
+
+        @Test
+        @DisplayName("should store new content once and point the name at it")
+        void shouldStoreNewContentOnceAndPointNameAtIt() throws IOException {
+            when(s3Service.headObject(anyString())).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+            var uploaded = new byte[1][];
+            doAnswer(invocation -> {
+                uploaded[0] = invocation.<InputStream>getArgument(2).readAllBytes();
+                return null;
+            }).when(s3Service).uploadStream(eq(CONTENT_KEY), eq("text/plain"), any());
+
+            dedupService.upload("a.txt", "text/plain", new ByteArrayInputStream("hello".getBytes()));
+
+            InOrder order = inOrder(s3Service);
+            order.verify(s3Service).uploadBytes(eq(".dedup/refs/" + HASH + "/a.txt"), isNull(), any(), eq(0));
+            order.verify(s3Service).uploadStream(eq(CONTENT_KEY), eq("text/plain"), any());
+            order.verify(s3Service).uploadBytes(eq("a.txt"), eq("text/plain"),
+                    eq(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)), any(), eq(0));
+            assertArrayEquals("hello".getBytes(), uploaded[0]);
+            try (var spooled = Files.list(spoolDirectory)) {
+                assertEquals(0, spooled.count());
+            }
+        }
+
+        @Test
+        @DisplayName("should skip the content upload when the content already exists")
+        void shouldSkipContentUploadWhenContentAlreadyExists() throws IOException {
+            when(s3Service.headObject("b.txt")).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+            when(s3Service.headObject(CONTENT_KEY)).thenReturn(HeadObjectResponse.builder().build());
+
+            dedupService.upload("b.txt", "text/plain", new ByteArrayInputStream("hello".getBytes()));
+
+            verify(s3Service, never()).uploadStream(any(), any(), any());
+            verify(s3Service).uploadBytes(eq("b.txt"), eq("text/plain"), eq(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)), any(), eq(0));
+        }
+
+        @Test
+        @DisplayName("should release the previous content when a name is overwritten")
+        void shouldReleasePreviousContentWhenNameIsOverwritten() throws IOException {
+            when(s3Service.headObject("a.txt"))
+                    .thenReturn(HeadObjectResponse.builder().metadata(Map.of(DedupService.CONTENT_HASH_METADATA, "old")).build());
+            when(s3Service.headObject(CONTENT_KEY)).thenReturn(HeadObjectResponse.builder().build());
+            when(s3Service.hasKeys(".dedup/refs/old/")).thenReturn(false);
+
+            dedupService.upload("a.txt", "text/plain", new ByteArrayInputStream("hello".getBytes()));
+
+            verify(s3Service).deleteFile(".dedup/refs/old/a.txt");
+            verify(s3Service).deleteFile(".dedup/content/old");
+        }
+    }
+
+    @Nested
+    class resolve {
+
+        @Test
+        @DisplayName("should resolve a pointer to its content key")
+        void shouldResolvePointerToContentKey() {
+            when(s3Service.headObject("a.txt"))
+                    .thenReturn(HeadObjectResponse.builder().metadata(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)).build());
+
+            assertEquals(CONTENT_KEY, dedupService.resolve("a.txt"));
+        }
+
+        @Test
+        @DisplayName("should keep names that are not pointers")
+        void shouldKeepNamesThatAreNotPointers() {
+            when(s3Service.headObject("legacy.txt")).thenReturn(HeadObjectResponse.builder().build());
+
+            assertEquals("legacy.txt", dedupService.resolve("legacy.txt"));
+        }
+    }
+
+    @Nested
+    class copy {
+
+        @Test
+        @DisplayName("should give the destination its own marker and pointer")
+        void shouldGiveDestinationItsOwnMarkerAndPointer() {
+            when(s3Service.headObject("a.txt")).thenReturn(HeadObjectResponse.builder()
+                    .contentType("text/plain").metadata(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)).build());
+            when(s3Service.headObject("b.txt")).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+            assertTrue(dedupService.copy("a.txt", "b.txt"));
+
+            InOrder order = inOrder(s3Service);
+            order.verify(s3Service).uploadBytes(eq(".dedup/refs/" + HASH + "/b.txt"), isNull(), any(), eq(0));
+            order.verify(s3Service).uploadBytes(eq("b.txt"), eq("text/plain"),
+                    eq(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)), any(), eq(0));
+            verify(s3Service, never()).deleteFile(any());
+        }
+
+        @Test
+        @DisplayName("should leave objects stored before dedup to a plain copy")
+        void shouldLeaveObjectsStoredBeforeDedupToPlainCopy() {
+            when(s3Service.headObject("legacy.txt")).thenReturn(HeadObjectResponse.builder().build());
+
+            assertFalse(dedupService.copy("legacy.txt", "b.txt"));
+
+            verify(s3Service, never()).uploadBytes(any(), any(), any(), any(), anyInt());
+        }
+    }
+
+    @Nested
+    class delete {
+
+        @Test
+        @DisplayName("should delete the content with its last reference")
+        void shouldDeleteContentWithLastReference() {
+            when(s3Service.headObject("a.txt"))
+                    .thenReturn(HeadObjectResponse.builder().metadata(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)).build());
+            when(s3Service.hasKeys(".dedup/refs/" + HASH + "/")).thenReturn(false);
+
+            dedupService.delete("a.txt");
+
+            verify(s3Service).deleteFile("a.txt");
+            verify(s3Service).deleteFile(".dedup/refs/" + HASH + "/a.txt");
+            verify(s3Service).deleteFile(CONTENT_KEY);
+        }
+
+        @Test
+        @DisplayName("should keep the content while other names reference it")
+        void shouldKeepContentWhileOtherNamesReferenceIt() {
+            when(s3Service.headObject("a.txt"))
+                    .thenReturn(HeadObjectResponse.builder().metadata(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)).build());
+            when(s3Service.hasKeys(".dedup/refs/" + HASH + "/")).thenReturn(true);
+
+            dedupService.delete("a.txt");
+
+            verify(s3Service, never()).deleteFile(CONTENT_KEY);
+        }
+    }
+
+    @Nested
+    class isPointer {
+
+        @Test
+        @DisplayName("should tell pointers from plain objects and missing names")
+        void shouldTellPointersFromPlainObjectsAndMissingNames() {
+            when(s3Service.headObject("a.txt"))
+                    .thenReturn(HeadObjectResponse.builder().metadata(Map.of(DedupService.CONTENT_HASH_METADATA, HASH)).build());
+            when(s3Service.headObject("plain.txt")).thenReturn(HeadObjectResponse.builder().build());
+            when(s3Service.headObject("missing.txt")).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+            assertTrue(dedupService.isPointer("a.txt"));
+            assertFalse(dedupService.isPointer("plain.txt"));
+            assertFalse(dedupService.isPointer("missing.txt"));
+        }
+
+        @Test
+        @DisplayName("should not look names up while dedup is disabled")
+        void shouldNotLookNamesUpWhileDedupIsDisabled() {
+            ReflectionTestUtils.setField(dedupService, "enabled", false);
+
+            assertFalse(dedupService.isPointer("a.txt"));
+            verifyNoInteractions(s3Service);
+        }
+    }
+
+    @Nested
+    class requireNotInternal {
+
+        @Test
+        @DisplayName("should refuse to upload to or delete a name under the dedup prefix")
+        void shouldRefuseToUploadToOrDeleteNameUnderDedupPrefix() {
+            assertThrows(InvalidRequestException.class,
+                    () -> dedupService.upload(CONTENT_KEY, "text/plain", new ByteArrayInputStream("hello".getBytes())));
+            assertThrows(InvalidRequestException.class, () -> dedupService.delete(".dedup/refs/" + HASH + "/a.txt"));
+
+            verifyNoInteractions(s3Service);
+        }
+
+        @Test
+        @DisplayName("should accept names under the prefix while dedup is disabled")
+        void shouldAcceptNamesUnderPrefixWhileDedupIsDisabled() {
+            ReflectionTestUtils.setField(dedupService, "enabled", false);
+
+            assertDoesNotThrow(() -> dedupService.requireNotInternal(CONTENT_KEY));
+        }
+    }
+}
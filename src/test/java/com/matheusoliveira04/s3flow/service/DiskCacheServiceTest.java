@@ -0,0 +1,196 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiskCacheServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    @TempDir
+    Path directory;
+
+    DiskCacheService diskCacheService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        diskCacheService = new DiskCacheService(s3Service);
+        ReflectionTestUtils.setField(diskCacheService, "enabled", true);
+        ReflectionTestUtils.setField(diskCacheService, "directory", directory);
+        ReflectionTestUtils.setField(diskCacheService, "maxSize", DataSize.ofBytes(20));
+        ReflectionTestUtils.setField(diskCacheService, "maxObjectSize", DataSize.ofBytes(15));
+        diskCacheService.initialize();
+    }
+
+    @Nested
+    class get {
+
+        @Test
+        @DisplayName("should download on miss and serve later requests from disk")
+        void shouldDownloadOnMissAndServeLaterRequestsFromDisk() throws IOException {
+            doAnswer(invocation -> objectStream("Testing content", "\"v1\"")).when(s3Service).openDownload("file.txt");
+
+            var first = diskCacheService.get("file.txt", head("\"v1\""));
+            var second = diskCacheService.get("file.txt", head("\"v1\""));
+
+            assertEquals(first, second);
+            assertEquals("Testing content", read("file.txt", second));
+            verify(s3Service, times(1)).openDownload("file.txt");
+        }
+
+        @Test
+        @DisplayName("should download again when the ETag changed")
+        void shouldDownloadAgainWhenETagChanged() throws IOException {
+            doAnswer(invocation -> objectStream("version one", "\"v1\""))
+                    .doAnswer(invocation -> objectStream("version two", "\"v2\""))
+                    .when(s3Service).openDownload("file.txt");
+
+            var first = diskCacheService.get("file.txt", head("\"v1\""));
+            var second = diskCacheService.get("file.txt", head("\"v2\""));
+
+            assertEquals("version two", read("file.txt", second));
+            assertFalse(Files.exists(first.path()));
+            verify(s3Service, times(2)).openDownload("file.txt");
+        }
+
+        @Test
+        @DisplayName("should evict least recently used entries over the byte budget")
+        void shouldEvictLeastRecentlyUsedEntriesOverByteBudget() throws IOException {
+            doAnswer(invocation -> objectStream("0123456789", "\"v1\"")).when(s3Service).openDownload(anyString());
+
+            var first = diskCacheService.get("first", head("\"v1\""));
+            var second = diskCacheService.get("second", head("\"v1\""));
+            diskCacheService.get("first", head("\"v1\""));
+            diskCacheService.get("third", head("\"v1\""));
+
+            assertTrue(Files.exists(first.path()));
+            assertFalse(Files.exists(second.path()));
+        }
+
+        @Test
+        @DisplayName("should share a single download between concurrent misses")
+        void shouldShareSingleDownloadBetweenConcurrentMisses() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return objectStream("Testing content", "\"v1\"");
+            }).when(s3Service).openDownload("file.txt");
+
+            var first = CompletableFuture.supplyAsync(() -> getUnchecked("file.txt"));
+            var second = CompletableFuture.supplyAsync(() -> getUnchecked("file.txt"));
+            verify(s3Service, timeout(1000).times(1)).openDownload("file.txt");
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            verify(s3Service, times(1)).openDownload("file.txt");
+        }
+    }
+
+    @Nested
+    class initialize {
+
+        @Test
+        @DisplayName("should remove leftover cache files and nothing else")
+        void shouldRemoveLeftoverCacheFilesAndNothingElse() throws IOException {
+            Path leftover = Files.writeString(directory.resolve(DiskCacheService.FILE_PREFIX + "old"), "stale");
+            Path unrelated = Files.writeString(directory.resolve("data.txt"), "keep me");
+
+            diskCacheService.initialize();
+
+            assertFalse(Files.exists(leftover));
+            assertTrue(Files.exists(unrelated));
+        }
+    }
+
+    @Nested
+    class transferTo {
+
+        @Test
+        @DisplayName("should stream the same version from S3 when the file was evicted")
+        void shouldStreamSameVersionFromS3WhenFileWasEvicted() throws IOException {
+            var cached = new DiskCacheService.CachedObject(directory.resolve("missing"), 15, "\"v1\"", null);
+            doReturn(objectStream("Testing content", "\"v1\"", 15L)).when(s3Service).openFrom("file.txt", "\"v1\"", 0);
+
+            assertEquals("Testing content", read("file.txt", cached));
+        }
+
+        @Test
+        @DisplayName("should fail instead of sending a body of a different length")
+        void shouldFailInsteadOfSendingBodyOfDifferentLength() {
+            var cached = new DiskCacheService.CachedObject(directory.resolve("missing"), 15, "\"v1\"", null);
+            doReturn(objectStream("short", "\"v1\"", 5L)).when(s3Service).openFrom("file.txt", "\"v1\"", 0);
+
+            assertThrows(IOException.class, () -> read("file.txt", cached));
+        }
+    }
+
+    @Nested
+    class onObjectChanged {
+
+        @Test
+        @DisplayName("should evict the entry when the object changes")
+        void shouldEvictEntryWhenObjectChanges() throws IOException {
+            doAnswer(invocation -> objectStream("Testing content", "\"v1\"")).when(s3Service).openDownload("file.txt");
+
+            var cached = diskCacheService.get("file.txt", head("\"v1\""));
+            diskCacheService.onObjectChanged(new ObjectChangedEvent("file.txt", true));
+            diskCacheService.get("file.txt", head("\"v1\""));
+
+            assertFalse(Files.exists(cached.path()));
+            verify(s3Service, times(2)).openDownload("file.txt");
+        }
+    }
+
+    private DiskCacheService.CachedObject getUnchecked(String key) {
+        try {
+            return diskCacheService.get(key, head("\"v1\""));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String read(String key, DiskCacheService.CachedObject cached) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        diskCacheService.transferTo(key, cached, outputStream);
+        return outputStream.toString();
+    }
+
+    private static HeadObjectResponse head(String eTag) {
+        return HeadObjectResponse.builder().eTag(eTag).contentLength(15L).build();
+    }
+
+    private static ResponseInputStream<GetObjectResponse> objectStream(String content, String eTag) {
+        return objectStream(content, eTag, null);
+    }
+
+    private static ResponseInputStream<GetObjectResponse> objectStream(String content, String eTag, Long contentLength) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().eTag(eTag).contentLength(contentLength).build(),
+                new ByteArrayInputStream(content.getBytes()));
+    }
+}
@@ -0,0 +1,174 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.dto.IndexedObject;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import com.matheusoliveira04.s3flow.exceptions.IndexNotReadyException;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyIndexServiceTest {
+
+    static final Instant MODIFIED = Instant.parse("2024-01-02T03:04:05Z");
+
+    @Mock
+    S3Service s3Service;
+
+    @TempDir
+    Path directory;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(2, false);
+
+    KeyIndexService keyIndexService;
+
+    @BeforeEach
+    void setUp() {
+        keyIndexService = new KeyIndexService(s3Service, s3TaskExecutor, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class rebuild {
+
+        @Test
+        @DisplayName("should index every listed object")
+        void shouldIndexEveryListedObject() {
+            when(s3Service.streamObjects(null)).thenReturn(Stream.of(object("a/1.txt", 10), object("a/2.txt", 20), object("b/3.txt", 30)));
+
+            keyIndexService.rebuild();
+
+            var stats = keyIndexService.stats("a/", null, null, null);
+            assertEquals(2, stats.count());
+            assertEquals(30, stats.bytes());
+        }
+
+        @Test
+        @DisplayName("should keep the previous index when a scan fails")
+        void shouldKeepPreviousIndexWhenScanFails() {
+            when(s3Service.streamObjects(null))
+                    .thenReturn(Stream.of(object("a/1.txt", 10)))
+                    .thenThrow(SdkClientException.create("unreachable"));
+
+            keyIndexService.rebuild();
+            keyIndexService.rebuild();
+
+            assertEquals(1, keyIndexService.stats(null, null, null, null).count());
+        }
+
+        @Test
+        @DisplayName("should answer from the saved snapshot before the first scan")
+        void shouldAnswerFromSavedSnapshotBeforeFirstScan() {
+            Path snapshotFile = directory.resolve("index.bin");
+            ReflectionTestUtils.setField(keyIndexService, "snapshotFile", snapshotFile.toString());
+            when(s3Service.streamObjects(null)).thenReturn(Stream.of(object("a/1.txt", 10), object("a/2.txt", 20)));
+            keyIndexService.rebuild();
+            assertTrue(Files.exists(snapshotFile));
+
+            var restarted = new KeyIndexService(s3Service, s3TaskExecutor, 1000);
+            ReflectionTestUtils.setField(restarted, "snapshotFile", snapshotFile.toString());
+            assertThrows(IndexNotReadyException.class, () -> restarted.stats(null, null, null, null));
+            restarted.loadSnapshot();
+
+            assertEquals(2, restarted.stats(null, null, null, null).count());
+        }
+    }
+
+    @Nested
+    class onObjectChanged {
+
+        @BeforeEach
+        void setUp() {
+            when(s3Service.streamObjects(null)).thenReturn(Stream.of(object("a/1.txt", 10), object("a/2.txt", 20)));
+            keyIndexService.rebuild();
+        }
+
+        @Test
+        @DisplayName("should drop deleted keys right away")
+        void shouldDropDeletedKeys() {
+            keyIndexService.onObjectChanged(new ObjectChangedEvent("a/1.txt", true));
+
+            assertEquals(List.of("a/2.txt"), keys());
+        }
+
+        @Test
+        @DisplayName("should index uploaded keys with their HeadObject size")
+        void shouldIndexUploadedKeys() throws InterruptedException {
+            when(s3Service.headObject("a/3.txt")).thenReturn(HeadObjectResponse.builder()
+                    .contentLength(30L).eTag("\"etag\"").lastModified(MODIFIED).build());
+
+            keyIndexService.onObjectChanged(new ObjectChangedEvent("a/3.txt", false));
+
+            awaitLookups();
+            assertEquals(60, keyIndexService.stats("a/", null, null, null).bytes());
+        }
+
+        @Test
+        @DisplayName("should drop uploaded keys that are gone by the time they are looked up")
+        void shouldDropUploadedKeysThatAreGone() throws InterruptedException {
+            when(s3Service.headObject("a/1.txt")).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+            keyIndexService.onObjectChanged(new ObjectChangedEvent("a/1.txt", false));
+
+            awaitLookups();
+            assertEquals(List.of("a/2.txt"), keys());
+        }
+
+        @Test
+        @DisplayName("should ignore keys hidden from listings")
+        void shouldIgnoreHiddenKeys() {
+            when(s3Service.isHidden(".dedup/content/abc")).thenReturn(true);
+
+            keyIndexService.onObjectChanged(new ObjectChangedEvent(".dedup/content/abc", false));
+
+            verify(s3Service, never()).headObject(any());
+        }
+
+        private void awaitLookups() throws InterruptedException {
+            s3TaskExecutor.executorService().shutdown();
+            assertTrue(s3TaskExecutor.executorService().awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("should reject search limits outside the allowed range")
+    void shouldRejectInvalidSearchLimits() {
+        assertThrows(InvalidRequestException.class, () -> keyIndexService.search(null, null, null, null, 0));
+        assertThrows(InvalidRequestException.class, () -> keyIndexService.search(null, null, null, null, 10_001));
+    }
+
+    private List<String> keys() {
+        return keyIndexService.search(null, null, null, null, 100).stream().map(IndexedObject::key).toList();
+    }
+
+    private static S3Object object(String key, long size) {
+        return S3Object.builder().key(key).size(size).eTag("\"etag\"").lastModified(MODIFIED).build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelDownloadServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(4, false);
+
+    ParallelDownloadService parallelDownloadService;
+
+    @BeforeEach
+    void setUp() {
+        parallelDownloadService = new ParallelDownloadService(s3Service, s3TaskExecutor);
+        ReflectionTestUtils.setField(parallelDownloadService, "enabled", true);
+        ReflectionTestUtils.setField(parallelDownloadService, "threshold", DataSize.ofBytes(10));
+        ReflectionTestUtils.setField(parallelDownloadService, "chunkSize", DataSize.ofBytes(4));
+        ReflectionTestUtils.setField(parallelDownloadService, "parallelism", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3TaskExecutor.shutdown();
+    }
+
+    @Nested
+    class writeTo {
+
+        @Test
+        @DisplayName("should write every range in order")
+        void shouldWriteEveryRangeInOrder() throws IOException {
+            byte[] content = "0123456789abcdefXYZ".getBytes();
+            when(s3Service.downloadRange(eq("file.txt"), eq("etag"), anyLong(), anyLong())).thenAnswer(invocation -> {
+                long start = invocation.getArgument(2);
+                long end = invocation.getArgument(3);
+                return Arrays.copyOfRange(content, (int) start, (int) end + 1);
+            });
+
+            var outputStream = new ByteArrayOutputStream();
+            parallelDownloadService.writeTo("file.txt", "etag", content.length, outputStream);
+
+            assertArrayEquals(content, outputStream.toByteArray());
+            verify(s3Service, times(5)).downloadRange(eq("file.txt"), eq("etag"), anyLong(), anyLong());
+            verify(s3Service).downloadRange("file.txt", "etag", 16, 18);
+        }
+
+        @Test
+        @DisplayName("should propagate a failed range")
+        void shouldPropagateFailedRange() {
+            when(s3Service.downloadRange(eq("file.txt"), eq("etag"), anyLong(), anyLong()))
+                    .thenThrow(S3Exception.builder().message("range failed").build());
+
+            assertThrows(S3Exception.class,
+                    () -> parallelDownloadService.writeTo("file.txt", "etag", 19, new ByteArrayOutputStream()));
+        }
+    }
+
+    @Nested
+    class accepts {
+
+        @Test
+        @DisplayName("should accept objects at or above the threshold only")
+        void shouldAcceptObjectsAtOrAboveThresholdOnly() {
+            assertTrue(parallelDownloadService.accepts(10L));
+            assertFalse(parallelDownloadService.accepts(9L));
+            assertFalse(parallelDownloadService.accepts(null));
+        }
+    }
+}
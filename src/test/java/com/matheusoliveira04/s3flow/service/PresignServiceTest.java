@@ -0,0 +1,141 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.matheusoliveira04.s3flow.dto.CompleteMultipartRequest;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresignServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    S3Presigner s3Presigner;
+
+    PresignService presignService;
+
+    @BeforeEach
+    void setUp() {
+        s3Presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("access", "secret")))
+                .build();
+        presignService = new PresignService(s3Presigner, s3Service);
+        ReflectionTestUtils.setField(presignService, "bucketName", "bucket");
+        ReflectionTestUtils.setField(presignService, "expiry", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(presignService, "cacheTtl", Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    @Nested
+    class presign {
+
+        @Test
+        @DisplayName("should sign a GET for the key that expires after the configured duration")
+        void shouldSignGetForKey() {
+            var presigned = presignService.presignDownload("report.pdf");
+
+            assertEquals("GET", presigned.method());
+            assertTrue(presigned.url().contains("/report.pdf?"));
+            assertTrue(presigned.url().contains("X-Amz-Signature="));
+            assertTrue(presigned.expiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(14))));
+        }
+
+        @Test
+        @DisplayName("should sign the content type into a PUT")
+        void shouldSignContentTypeIntoPut() {
+            var presigned = presignService.presignUpload("report.pdf", "application/pdf");
+
+            assertEquals("PUT", presigned.method());
+            assertEquals(List.of("application/pdf"), presigned.headers().get("content-type"));
+        }
+    }
+
+    @Nested
+    class multipart {
+
+        @Test
+        @DisplayName("should create the upload and sign one request per part")
+        void shouldCreateUploadAndSignEachPart() {
+            when(s3Service.createMultipartUpload("big.bin", null, null)).thenReturn("upload-1");
+
+            var upload = presignService.startMultipartUpload("big.bin", null, 3);
+
+            assertEquals("upload-1", upload.uploadId());
+            assertEquals(3, upload.parts().size());
+            for (int i = 0; i < 3; i++) {
+                var part = upload.parts().get(i);
+                assertEquals(i + 1, part.partNumber());
+                assertEquals("PUT", part.request().method());
+                assertTrue(part.request().url().contains("partNumber=" + (i + 1)));
+                assertTrue(part.request().url().contains("uploadId=upload-1"));
+            }
+        }
+
+        @Test
+        @DisplayName("should reject part counts outside the S3 limits")
+        void shouldRejectInvalidPartCounts() {
+            assertThrows(InvalidRequestException.class, () -> presignService.startMultipartUpload("big.bin", null, 0));
+            assertThrows(InvalidRequestException.class, () -> presignService.startMultipartUpload("big.bin", null, 10_001));
+            verifyNoInteractions(s3Service);
+        }
+
+        @Test
+        @DisplayName("should complete the upload with parts in ascending order")
+        void shouldCompleteWithPartsInOrder() {
+            var request = new CompleteMultipartRequest(List.of(
+                    new CompleteMultipartRequest.Part(2, "\"b\""),
+                    new CompleteMultipartRequest.Part(1, "\"a\"")));
+
+            presignService.completeMultipartUpload("big.bin", "upload-1", request);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+            verify(s3Service).completeUpload(eq("big.bin"), eq("upload-1"), parts.capture());
+            assertEquals(List.of(1, 2), parts.getValue().stream().map(CompletedPart::partNumber).toList());
+            assertEquals("\"a\"", parts.getValue().getFirst().eTag());
+        }
+
+        @Test
+        @DisplayName("should reject completion without parts")
+        void shouldRejectCompletionWithoutParts() {
+            assertThrows(InvalidRequestException.class,
+                    () -> presignService.completeMultipartUpload("big.bin", "upload-1", new CompleteMultipartRequest(List.of())));
+            verifyNoInteractions(s3Service);
+        }
+    }
+
+    @Test
+    @DisplayName("should refuse a cache TTL longer than half the URL expiry")
+    void shouldRefuseLongCacheTtl() {
+        ReflectionTestUtils.setField(presignService, "cacheTtl", Duration.ofMinutes(10));
+
+        assertThrows(IllegalStateException.class, () -> presignService.validateExpiry());
+    }
+}
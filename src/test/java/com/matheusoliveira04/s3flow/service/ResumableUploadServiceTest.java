@@ -0,0 +1,207 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheusoliveira04.s3flow.dto.UploadSession;
+import com.matheusoliveira04.s3flow.exceptions.FileNotFoundException;
+import com.matheusoliveira04.s3flow.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    @TempDir
+    Path directory;
+
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    ResumableUploadService resumableUploadService;
+
+    static final long CHUNK = ResumableUploadService.MIN_CHUNK_SIZE;
+
+    static final long SIZE = 2 * CHUNK + 2;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        resumableUploadService = newService();
+    }
+
+    @Nested
+    class uploadChunk {
+
+        @Test
+        @DisplayName("should send each chunk as the part matching its offset and complete them in order")
+        @SuppressWarnings("unchecked")
+        void shouldSendEachChunkAsPartMatchingItsOffset() throws IOException {
+            stubParts();
+            UploadSession session = resumableUploadService.create("big.bin", "application/octet-stream", SIZE);
+
+            resumableUploadService.uploadChunk(session.id(), 2 * CHUNK, 2, chunk(2));
+            resumableUploadService.uploadChunk(session.id(), 0, CHUNK, chunk(CHUNK));
+            UploadSession status = resumableUploadService.uploadChunk(session.id(), CHUNK, -1, chunk(CHUNK));
+            resumableUploadService.complete(session.id());
+
+            assertEquals(List.of(0L, CHUNK, 2 * CHUNK), status.receivedOffsets());
+            verify(s3Service).uploadPart(eq("big.bin"), eq("upload-1"), eq(3), any(InputStream.class), eq(2L));
+            ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+            verify(s3Service).completeUpload(eq("big.bin"), eq("upload-1"), parts.capture());
+            assertEquals(List.of("etag-1", "etag-2", "etag-3"), parts.getValue().stream().map(CompletedPart::eTag).toList());
+            assertThrows(FileNotFoundException.class, () -> resumableUploadService.status(session.id()));
+            assertFalse(Files.exists(directory.resolve(session.id() + ".json")));
+        }
+
+        @Test
+        @DisplayName("should reject chunks that are misaligned or of the wrong length")
+        void shouldRejectChunksThatAreMisalignedOrOfWrongLength() throws IOException {
+            when(s3Service.createUpload("big.bin", null)).thenReturn("upload-1");
+            UploadSession session = resumableUploadService.create("big.bin", null, SIZE);
+
+            assertThrows(InvalidRequestException.class, () -> resumableUploadService.uploadChunk(session.id(), 2, CHUNK, chunk(CHUNK)));
+            assertThrows(InvalidRequestException.class, () -> resumableUploadService.uploadChunk(session.id(), 0, 3, chunk(3)));
+            assertThrows(InvalidRequestException.class, () -> resumableUploadService.uploadChunk(session.id(), 2 * CHUNK, 3, chunk(3)));
+            verify(s3Service, never()).uploadPart(any(), any(), anyInt(), any(InputStream.class), anyLong());
+        }
+
+        @Test
+        @DisplayName("should reject a chunk of unknown length that runs past its end without recording it")
+        void shouldRejectChunkOfUnknownLengthThatRunsPastItsEnd() throws IOException {
+            stubParts();
+            UploadSession session = resumableUploadService.create("big.bin", null, SIZE);
+
+            assertThrows(InvalidRequestException.class, () -> resumableUploadService.uploadChunk(session.id(), 2 * CHUNK, -1, chunk(3)));
+            assertEquals(List.of(), resumableUploadService.status(session.id()).receivedOffsets());
+        }
+    }
+
+    @Nested
+    class create {
+
+        @Test
+        @DisplayName("should reject sizes above the largest object S3 stores")
+        void shouldRejectSizesAboveLargestObject() {
+            assertThrows(InvalidRequestException.class,
+                    () -> resumableUploadService.create("big.bin", null, ResumableUploadService.MAX_OBJECT_SIZE + 1));
+            assertThrows(InvalidRequestException.class, () -> resumableUploadService.create("big.bin", null, Long.MAX_VALUE));
+            verifyNoInteractions(s3Service);
+        }
+    }
+
+    @Nested
+    class complete {
+
+        @Test
+        @DisplayName("should refuse to complete while chunks are missing")
+        void shouldRefuseToCompleteWhileChunksAreMissing() throws IOException {
+            stubParts();
+            UploadSession session = resumableUploadService.create("big.bin", null, SIZE);
+            resumableUploadService.uploadChunk(session.id(), 0, CHUNK, chunk(CHUNK));
+
+            var exception = assertThrows(InvalidRequestException.class, () -> resumableUploadService.complete(session.id()));
+
+            assertTrue(exception.getMessage().contains("offset " + CHUNK));
+            verify(s3Service, never()).completeUpload(any(), any(), any());
+        }
+    }
+
+    @Nested
+    class loadSessions {
+
+        @Test
+        @DisplayName("should resume sessions saved before a restart")
+        void shouldResumeSessionsSavedBeforeRestart() throws IOException {
+            stubParts();
+            UploadSession session = resumableUploadService.create("big.bin", null, SIZE);
+            resumableUploadService.uploadChunk(session.id(), CHUNK, CHUNK, chunk(CHUNK));
+
+            ResumableUploadService restarted = newService();
+
+            assertEquals(List.of(CHUNK), restarted.status(session.id()).receivedOffsets());
+            restarted.uploadChunk(session.id(), 0, CHUNK, chunk(CHUNK));
+            restarted.uploadChunk(session.id(), 2 * CHUNK, 2, chunk(2));
+            restarted.complete(session.id());
+            verify(s3Service).completeUpload(eq("big.bin"), eq("upload-1"), argThat(parts -> parts.size() == 3));
+        }
+
+        @Test
+        @DisplayName("should refuse a chunk size below the smallest part S3 accepts")
+        void shouldRefuseChunkSizeBelowSmallestPart() {
+            var service = new ResumableUploadService(s3Service, new DedupService(s3Service), objectMapper);
+            ReflectionTestUtils.setField(service, "directory", directory);
+            ReflectionTestUtils.setField(service, "chunkSize", DataSize.ofMegabytes(4));
+
+            assertThrows(IllegalArgumentException.class, service::loadSessions);
+        }
+    }
+
+    @Nested
+    class sweep {
+
+        @Test
+        @DisplayName("should abort sessions idle for longer than the ttl")
+        void shouldAbortSessionsIdleForLongerThanTtl() throws IOException {
+            when(s3Service.createUpload(any(), any())).thenReturn("upload-1", "upload-2");
+            UploadSession stale = resumableUploadService.create("stale.bin", null, 10);
+            ReflectionTestUtils.setField(resumableUploadService, "sessionTtl", Duration.ZERO);
+            doThrow(S3Exception.builder().statusCode(404).build()).when(s3Service).abortUpload("stale.bin", "upload-1");
+
+            resumableUploadService.sweep();
+
+            verify(s3Service).abortUpload("stale.bin", "upload-1");
+            assertThrows(FileNotFoundException.class, () -> resumableUploadService.status(stale.id()));
+
+            ReflectionTestUtils.setField(resumableUploadService, "sessionTtl", Duration.ofHours(1));
+            UploadSession fresh = resumableUploadService.create("fresh.bin", null, 10);
+            resumableUploadService.sweep();
+            assertEquals(fresh.id(), resumableUploadService.status(fresh.id()).id());
+        }
+    }
+
+    private ResumableUploadService newService() throws IOException {
+        var service = new ResumableUploadService(s3Service, new DedupService(s3Service), objectMapper);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "chunkSize", DataSize.ofBytes(CHUNK));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(1));
+        service.loadSessions();
+        return service;
+    }
+
+    private void stubParts() {
+        when(s3Service.createUpload(eq("big.bin"), any())).thenReturn("upload-1");
+        when(s3Service.uploadPart(eq("big.bin"), eq("upload-1"), anyInt(), any(InputStream.class), anyLong()))
+                .thenAnswer(invocation -> {
+                    invocation.<InputStream>getArgument(3).readNBytes(Math.toIntExact(invocation.<Long>getArgument(4)));
+                    return CompletedPart.builder()
+                            .partNumber(invocation.getArgument(2)).eTag("etag-" + invocation.getArgument(2)).build();
+                });
+    }
+
+    private static ByteArrayInputStream chunk(long length) {
+        return new ByteArrayInputStream(new byte[Math.toIntExact(length)]);
+    }
+}
@@ -0,0 +1,173 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.config.CacheConfig;
+import com.matheusoliveira04.s3flow.event.CacheInvalidationListener;
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(S3ServiceCacheTest.TestConfig.class)
+@TestPropertySource(properties = "aws.bucket.name=bucket")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class S3ServiceCacheTest {
+
+    @MockitoBean
+    S3Client s3Client;
+
+    @Autowired
+    S3Service s3Service;
+
+    @Configuration
+    @Import({CacheConfig.class, CacheInvalidationListener.class, S3TaskExecutor.class, ChecksumCalculator.class, S3Service.class})
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        @Bean
+        CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.LISTINGS, CacheConfig.OBJECT_METADATA);
+            cacheManager.setCaffeine(caffeine);
+            return cacheManager;
+        }
+    }
+
+    @Nested
+    class listAll {
+
+        @Test
+        @DisplayName("should serve repeated listings from the cache")
+        void shouldServeRepeatedListingsFromCache() {
+            doReturn(listing("file1.txt")).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            assertEquals(List.of("file1.txt"), s3Service.listAll(null, null));
+            assertEquals(List.of("file1.txt"), s3Service.listAll(null, null));
+
+            verify(s3Client, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+        }
+
+        @Test
+        @DisplayName("should serve repeated listings without arguments from the cache")
+        void shouldServeRepeatedListingsWithoutArgumentsFromCache() {
+            doReturn(listing("file1.txt")).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            assertEquals(List.of("file1.txt"), s3Service.listAll());
+            assertEquals(List.of("file1.txt"), s3Service.listAll());
+
+            verify(s3Client, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+        }
+
+        @Test
+        @DisplayName("should invalidate listings after upload and delete")
+        void shouldInvalidateListingsAfterUploadAndDelete() throws IOException {
+            doReturn(listing("file1.txt")).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            s3Service.listAll(null, null);
+            s3Service.uploadStream("file2.txt", "text/plain", new ByteArrayInputStream("content".getBytes()));
+            s3Service.listAll(null, null);
+            s3Service.deleteFile("file2.txt");
+            s3Service.listAll(null, null);
+
+            verify(s3Client, times(3)).listObjectsV2(any(ListObjectsV2Request.class));
+        }
+
+        @Test
+        @DisplayName("should share a single S3 call between concurrent misses")
+        void shouldShareSingleS3CallBetweenConcurrentMisses() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return listing("file1.txt");
+            }).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            var first = CompletableFuture.supplyAsync(() -> s3Service.listAll("docs/", null));
+            var second = CompletableFuture.supplyAsync(() -> s3Service.listAll("docs/", null));
+            verify(s3Client, timeout(1000).times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            verify(s3Client, times(1)).listObjectsV2(any(ListObjectsV2Request.class));
+        }
+    }
+
+    @Nested
+    class headObject {
+
+        @Test
+        @DisplayName("should cache metadata per key until the key is deleted")
+        void shouldCacheMetadataPerKeyUntilKeyIsDeleted() {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").build())
+                    .when(s3Client).headObject(any(HeadObjectRequest.class));
+
+            s3Service.headObject("file1.txt");
+            s3Service.headObject("file1.txt");
+            s3Service.headObject("file2.txt");
+            s3Service.deleteFile("file1.txt");
+            s3Service.headObject("file1.txt");
+
+            verify(s3Client, times(3)).headObject(any(HeadObjectRequest.class));
+        }
+
+        @Test
+        @DisplayName("should evict metadata of every key removed by a batch delete")
+        void shouldEvictMetadataOfEveryKeyRemovedByBatchDelete() {
+            doReturn(HeadObjectResponse.builder().eTag("\"etag\"").build())
+                    .when(s3Client).headObject(any(HeadObjectRequest.class));
+            doReturn(DeleteObjectsResponse.builder()
+                    .deleted(DeletedObject.builder().key("file1.txt").build(), DeletedObject.builder().key("file2.txt").build())
+                    .build()).when(s3Client).deleteObjects(any(DeleteObjectsRequest.class));
+
+            s3Service.headObject("file1.txt");
+            s3Service.headObject("file2.txt");
+            s3Service.deleteObjects(List.of("file1.txt", "file2.txt"));
+            s3Service.headObject("file1.txt");
+            s3Service.headObject("file2.txt");
+
+            verify(s3Client, times(4)).headObject(any(HeadObjectRequest.class));
+        }
+    }
+
+    private static ListObjectsV2Response listing(String... keys) {
+        return ListObjectsV2Response.builder()
+                .contents(Arrays.stream(keys).map(key -> S3Object.builder().key(key).build()).toList())
+                .build();
+    }
+}
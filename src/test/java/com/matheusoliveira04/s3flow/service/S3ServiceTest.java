@@ -1,22 +1,37 @@
 package com.matheusoliveira04.s3flow.service;
 
+import com.matheusoliveira04.s3flow.concurrent.S3TaskExecutor;
+import com.matheusoliveira04.s3flow.event.ObjectChangedEvent;
+import com.matheusoliveira04.s3flow.event.ObjectsDeletedEvent;
 import com.matheusoliveira04.s3flow.exceptions.FileNotFoundException;
+import com.matheusoliveira04.s3flow.io.ChecksumCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +42,15 @@ class S3ServiceTest {
     @Mock
     S3Client s3Client;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    S3TaskExecutor s3TaskExecutor = new S3TaskExecutor(2, false);
+
+    @Spy
+    ChecksumCalculator checksumCalculator = new ChecksumCalculator(new SimpleMeterRegistry(), "CRC32C");
+
     @InjectMocks
     S3Service s3Service;
 
@@ -45,6 +69,37 @@ class S3ServiceTest {
     @Captor
     ArgumentCaptor<ListObjectsV2Request> listObjectsV2RequestCaptor;
 
+    @Captor
+    ArgumentCaptor<UploadPartRequest> uploadPartRequestCaptor;
+
+    @Captor
+    ArgumentCaptor<CompleteMultipartUploadRequest> completeMultipartUploadRequestCaptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofMegabytes(8));
+    }
+
+    @Nested
+    class validatePartSize {
+
+        @Test
+        @DisplayName("should refuse a part size below the S3 minimum")
+        void shouldRefusePartSizeBelowS3Minimum() {
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofMegabytes(4));
+
+            assertThrows(IllegalArgumentException.class, s3Service::validatePartSize);
+        }
+
+        @Test
+        @DisplayName("should accept the S3 minimum part size")
+        void shouldAcceptS3MinimumPartSize() {
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofMegabytes(5));
+
+            assertDoesNotThrow(s3Service::validatePartSize);
+        }
+    }
+
     @Nested
     class uploadFile {
 
@@ -82,6 +137,236 @@ class S3ServiceTest {
 
     }
 
+    @Nested
+    class uploadStream {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofBytes(8));
+        }
+
+        @Test
+        @DisplayName("should call PutObject when stream fits in a single part")
+        void shouldCallPutObjectWhenStreamFitsInSinglePart() throws IOException {
+            byte[] content = "short".getBytes();
+
+            s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream(content));
+
+            verify(s3Client).putObject(putObjectRequestCaptor.capture(), requestBodyCaptor.capture());
+            verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+
+            assertEquals("text/plain", putObjectRequestCaptor.getValue().contentType());
+            try (InputStream is = requestBodyCaptor.getValue().contentStreamProvider().newStream()) {
+                assertArrayEquals(content, is.readAllBytes());
+            }
+        }
+
+        @Test
+        @DisplayName("should gzip compressible streams above the minimum size")
+        void shouldGzipCompressibleStreamsAboveMinimumSize() throws IOException {
+            enableCompression();
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofKilobytes(64));
+            byte[] content = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes();
+
+            s3Service.uploadStream("file.json", "application/json", new ByteArrayInputStream(content));
+
+            verify(s3Client).putObject(putObjectRequestCaptor.capture(), requestBodyCaptor.capture());
+            assertEquals("gzip", putObjectRequestCaptor.getValue().contentEncoding());
+            try (InputStream is = new GZIPInputStream(requestBodyCaptor.getValue().contentStreamProvider().newStream())) {
+                assertArrayEquals(content, is.readAllBytes());
+            }
+        }
+
+        @Test
+        @DisplayName("should store small or incompressible streams as received")
+        void shouldStoreSmallOrIncompressibleStreamsAsReceived() throws IOException {
+            enableCompression();
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofKilobytes(64));
+
+            s3Service.uploadStream("small.txt", "text/plain", new ByteArrayInputStream("tiny".getBytes()));
+            s3Service.uploadStream("photo.jpg", "image/jpeg", new ByteArrayInputStream("0123456789abcdefXYZ".getBytes()));
+
+            verify(s3Client, times(2)).putObject(putObjectRequestCaptor.capture(), any(RequestBody.class));
+            assertTrue(putObjectRequestCaptor.getAllValues().stream().allMatch(request -> request.contentEncoding() == null));
+        }
+
+        private void enableCompression() {
+            ReflectionTestUtils.setField(s3Service, "compressionEnabled", true);
+            ReflectionTestUtils.setField(s3Service, "compressibleTypes",
+                    List.of(MediaType.parseMediaType("text/*"), MediaType.APPLICATION_JSON));
+            ReflectionTestUtils.setField(s3Service, "compressionMinSize", DataSize.ofBytes(16));
+            ReflectionTestUtils.setField(s3Service, "compressionLevel", 6);
+        }
+
+        @Test
+        @DisplayName("should upload every part and complete multipart upload")
+        void shouldUploadEveryPartAndCompleteMultipartUpload() throws IOException {
+            byte[] content = "0123456789abcdefXYZ".getBytes();
+
+            doReturn(CreateMultipartUploadResponse.builder().uploadId("upload-id").build())
+                    .when(s3Client).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+            doReturn(UploadPartResponse.builder().eTag("etag").build())
+                    .when(s3Client).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+
+            s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream(content));
+
+            verify(s3Client, times(3)).uploadPart(uploadPartRequestCaptor.capture(), requestBodyCaptor.capture());
+            verify(s3Client).completeMultipartUpload(completeMultipartUploadRequestCaptor.capture());
+
+            var uploadPartRequests = uploadPartRequestCaptor.getAllValues();
+            assertEquals(List.of(1, 2, 3), uploadPartRequests.stream().map(UploadPartRequest::partNumber).toList());
+            assertEquals(List.of(8L, 8L, 3L), uploadPartRequests.stream().map(UploadPartRequest::contentLength).toList());
+
+            var completeRequest = completeMultipartUploadRequestCaptor.getValue();
+            assertEquals("upload-id", completeRequest.uploadId());
+            assertEquals(3, completeRequest.multipartUpload().parts().size());
+        }
+
+        @Test
+        @DisplayName("should abort multipart upload when a part fails")
+        void shouldAbortMultipartUploadWhenPartFails() {
+            byte[] content = "0123456789abcdefXYZ".getBytes();
+
+            doReturn(CreateMultipartUploadResponse.builder().uploadId("upload-id").build())
+                    .when(s3Client).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+            doThrow(S3Exception.builder().message("part failed").build())
+                    .when(s3Client).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+
+            assertThrows(S3Exception.class,
+                    () -> s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream(content)));
+
+            verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+            verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("should send the CRC32C of a single-part body with PutObject")
+        void shouldSendCrc32cWithPutObject() throws IOException {
+            ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofKilobytes(64));
+            s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream("123456789".getBytes()));
+
+            verify(s3Client).putObject(putObjectRequestCaptor.capture(), any(RequestBody.class));
+            assertEquals(ChecksumAlgorithm.CRC32_C, putObjectRequestCaptor.getValue().checksumAlgorithm());
+            assertEquals("4waSgw==", putObjectRequestCaptor.getValue().checksumCRC32C());
+        }
+
+        @Test
+        @DisplayName("should send a checksum with every part and list it in the completed parts")
+        void shouldSendChecksumWithEveryPart() throws IOException {
+            ReflectionTestUtils.setField(s3Service, "checksumCalculator", new ChecksumCalculator(new SimpleMeterRegistry(), "SHA256"));
+            doReturn(CreateMultipartUploadResponse.builder().uploadId("upload-id").build())
+                    .when(s3Client).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+            doReturn(UploadPartResponse.builder().eTag("etag").build())
+                    .when(s3Client).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+
+            s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream("0123456789abcdefXYZ".getBytes()));
+
+            ArgumentCaptor<CreateMultipartUploadRequest> createCaptor = ArgumentCaptor.forClass(CreateMultipartUploadRequest.class);
+            verify(s3Client).createMultipartUpload(createCaptor.capture());
+            assertEquals(ChecksumAlgorithm.SHA256, createCaptor.getValue().checksumAlgorithm());
+            verify(s3Client, times(3)).uploadPart(uploadPartRequestCaptor.capture(), any(RequestBody.class));
+            verify(s3Client).completeMultipartUpload(completeMultipartUploadRequestCaptor.capture());
+            assertEquals(
+                    uploadPartRequestCaptor.getAllValues().stream().map(UploadPartRequest::checksumSHA256).toList(),
+                    completeMultipartUploadRequestCaptor.getValue().multipartUpload().parts().stream().map(CompletedPart::checksumSHA256).toList());
+            assertTrue(uploadPartRequestCaptor.getAllValues().stream().allMatch(request -> request.checksumSHA256() != null));
+        }
+
+        @Test
+        @DisplayName("should publish ObjectChangedEvent after upload")
+        void shouldPublishObjectChangedEventAfterUpload() throws IOException {
+            s3Service.uploadStream("file.txt", "text/plain", new ByteArrayInputStream("short".getBytes()));
+
+            verify(eventPublisher, times(1)).publishEvent(new ObjectChangedEvent("file.txt", false));
+        }
+
+    }
+
+    @Nested
+    class uploadPart {
+
+        @Test
+        @DisplayName("should stream the part with a trailing checksum and keep the one S3 verified")
+        void shouldStreamPartWithTrailingChecksum() throws IOException {
+            doReturn(UploadPartResponse.builder().eTag("\"p3\"").checksumCRC32C("4waSgw==").build())
+                    .when(s3Client).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+
+            var part = s3Service.uploadPart("file.txt", "upload-1", 3, new ByteArrayInputStream("content".getBytes()), 7);
+
+            verify(s3Client).uploadPart(uploadPartRequestCaptor.capture(), requestBodyCaptor.capture());
+            var request = uploadPartRequestCaptor.getValue();
+            assertEquals(3, request.partNumber());
+            assertEquals(7L, request.contentLength());
+            assertEquals(ChecksumAlgorithm.CRC32_C, request.checksumAlgorithm());
+            assertNull(request.checksumCRC32C());
+            assertEquals(Optional.of(7L), requestBodyCaptor.getValue().optionalContentLength());
+            assertEquals(CompletedPart.builder().partNumber(3).eTag("\"p3\"").checksumCRC32C("4waSgw==").build(), part);
+        }
+    }
+
+    @Nested
+    class completeUpload {
+
+        @Test
+        @DisplayName("should complete the multipart upload and publish ObjectChangedEvent")
+        void shouldCompleteAndPublishObjectChangedEvent() {
+            var part = CompletedPart.builder().partNumber(1).eTag("\"a\"").build();
+
+            s3Service.completeUpload("file.txt", "upload-1", List.of(part));
+
+            verify(s3Client).completeMultipartUpload(completeMultipartUploadRequestCaptor.capture());
+            var request = completeMultipartUploadRequestCaptor.getValue();
+            assertEquals("upload-1", request.uploadId());
+            assertEquals(List.of(part), request.multipartUpload().parts());
+            verify(eventPublisher, times(1)).publishEvent(new ObjectChangedEvent("file.txt", false));
+        }
+
+        @Test
+        @DisplayName("should abort the multipart upload without publishing an event")
+        void shouldAbortWithoutPublishingEvent() {
+            s3Service.abortUpload("file.txt", "upload-1");
+
+            ArgumentCaptor<AbortMultipartUploadRequest> captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+            verify(s3Client).abortMultipartUpload(captor.capture());
+            assertEquals("upload-1", captor.getValue().uploadId());
+            verifyNoInteractions(eventPublisher);
+        }
+    }
+
+    @Nested
+    class copyObject {
+
+        @Test
+        @DisplayName("should copy the pinned source version and publish ObjectChangedEvent")
+        void shouldCopyPinnedSourceVersionAndPublishObjectChangedEvent() {
+            s3Service.copyObject("a.txt", "\"etag\"", "b.txt");
+
+            ArgumentCaptor<CopyObjectRequest> captor = ArgumentCaptor.forClass(CopyObjectRequest.class);
+            verify(s3Client).copyObject(captor.capture());
+            assertEquals("a.txt", captor.getValue().sourceKey());
+            assertEquals("b.txt", captor.getValue().destinationKey());
+            assertEquals("\"etag\"", captor.getValue().copySourceIfMatch());
+            verify(eventPublisher, times(1)).publishEvent(new ObjectChangedEvent("b.txt", false));
+        }
+
+        @Test
+        @DisplayName("should copy a byte range into a part")
+        void shouldCopyByteRangeIntoPart() {
+            doReturn(UploadPartCopyResponse.builder().copyPartResult(CopyPartResult.builder().eTag("\"p2\"").build()).build())
+                    .when(s3Client).uploadPartCopy(any(UploadPartCopyRequest.class));
+
+            var part = s3Service.uploadPartCopy("a.txt", "\"etag\"", "b.txt", "upload-1", 2, 4, 7);
+
+            ArgumentCaptor<UploadPartCopyRequest> captor = ArgumentCaptor.forClass(UploadPartCopyRequest.class);
+            verify(s3Client).uploadPartCopy(captor.capture());
+            assertEquals("bytes=4-7", captor.getValue().copySourceRange());
+            assertEquals("\"etag\"", captor.getValue().copySourceIfMatch());
+            assertEquals(CompletedPart.builder().partNumber(2).eTag("\"p2\"").build(), part);
+            verifyNoInteractions(eventPublisher);
+        }
+    }
+
     @Nested
     class downloadFile {
 
@@ -137,6 +422,109 @@ class S3ServiceTest {
 
     }
 
+    @Nested
+    class openDownload {
+
+        @Test
+        @DisplayName("should return object stream without reading its body")
+        void shouldReturnObjectStreamWithoutReadingBody() throws IOException {
+            byte[] content = "Testing content".getBytes();
+            GetObjectResponse response = GetObjectResponse.builder().eTag("\"etag\"").build();
+
+            doReturn(new ResponseInputStream<>(response, new ByteArrayInputStream(content)))
+                    .when(s3Client).getObject(any(GetObjectRequest.class));
+
+            try (var output = s3Service.openDownload("file.txt")) {
+                assertEquals("\"etag\"", output.response().eTag());
+                assertArrayEquals(content, output.readAllBytes());
+            }
+
+            verify(s3Client, never()).getObjectAsBytes(any(GetObjectRequest.class));
+        }
+
+        @Test
+        @DisplayName("should capture GetObject arguments")
+        void shouldCaptureGetObjectArguments() {
+            doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(), InputStream.nullInputStream()))
+                    .when(s3Client).getObject(any(GetObjectRequest.class));
+
+            s3Service.openDownload("file.txt");
+
+            verify(s3Client).getObject(getObjectRequestCaptor.capture());
+            assertEquals("file.txt", getObjectRequestCaptor.getValue().key());
+        }
+
+        @Test
+        @DisplayName("should ask for checksum validation on whole-object reads only")
+        void shouldAskForChecksumValidationOnWholeObjectReadsOnly() {
+            doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(), InputStream.nullInputStream()))
+                    .when(s3Client).getObject(any(GetObjectRequest.class));
+
+            s3Service.openDownload("file.txt");
+            s3Service.openDownload("file.txt", "bytes=0-3");
+
+            verify(s3Client, times(2)).getObject(getObjectRequestCaptor.capture());
+            assertEquals(ChecksumMode.ENABLED, getObjectRequestCaptor.getAllValues().get(0).checksumMode());
+            assertNull(getObjectRequestCaptor.getAllValues().get(1).checksumMode());
+        }
+
+        @Test
+        @DisplayName("should pass conditional headers to GetObject")
+        void shouldPassConditionalHeadersToGetObject() {
+            var since = Instant.parse("2024-01-02T03:04:05Z");
+            doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(), InputStream.nullInputStream()))
+                    .when(s3Client).getObject(any(GetObjectRequest.class));
+
+            s3Service.openDownload("file.txt", "bytes=0-3", "\"etag\"", since);
+
+            verify(s3Client).getObject(getObjectRequestCaptor.capture());
+            assertEquals("bytes=0-3", getObjectRequestCaptor.getValue().range());
+            assertEquals("\"etag\"", getObjectRequestCaptor.getValue().ifNoneMatch());
+            assertEquals(since, getObjectRequestCaptor.getValue().ifModifiedSince());
+        }
+
+    }
+
+    @Nested
+    class downloadRange {
+
+        @Test
+        @DisplayName("should request inclusive byte range guarded by ETag")
+        void shouldRequestInclusiveByteRangeGuardedByETag() {
+            byte[] content = "Test".getBytes();
+            doReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), content))
+                    .when(s3Client).getObjectAsBytes(any(GetObjectRequest.class));
+
+            var output = s3Service.downloadRange("file.txt", "\"etag\"", 0, 3);
+
+            verify(s3Client).getObjectAsBytes(getObjectRequestCaptor.capture());
+            var request = getObjectRequestCaptor.getValue();
+            assertArrayEquals(content, output);
+            assertEquals("bytes=0-3", request.range());
+            assertEquals("\"etag\"", request.ifMatch());
+        }
+
+    }
+
+    @Nested
+    class openRange {
+
+        @Test
+        @DisplayName("should open the range guarded by ETag")
+        void shouldOpenRangeGuardedByETag() {
+            doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(), new ByteArrayInputStream(new byte[0])))
+                    .when(s3Client).getObject(any(GetObjectRequest.class));
+
+            s3Service.openRange("file.txt", "\"etag\"", "bytes=11-14");
+
+            verify(s3Client).getObject(getObjectRequestCaptor.capture());
+            var request = getObjectRequestCaptor.getValue();
+            assertEquals("bytes=11-14", request.range());
+            assertEquals("\"etag\"", request.ifMatch());
+        }
+
+    }
+
     @Nested
     class deleteFile {
 
@@ -163,6 +551,46 @@ class S3ServiceTest {
             assertEquals(fileName, deleteObjectRequestCaptured.key());
         }
 
+        @Test
+        @DisplayName("should publish ObjectChangedEvent after delete")
+        void shouldPublishObjectChangedEventAfterDelete() {
+            s3Service.deleteFile("file.txt");
+
+            verify(eventPublisher, times(1)).publishEvent(new ObjectChangedEvent("file.txt", true));
+        }
+
+    }
+
+    @Nested
+    class deleteObjects {
+
+        @Test
+        @DisplayName("should send every key in one DeleteObjects request")
+        void shouldSendEveryKeyInOneDeleteObjectsRequest() {
+            when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+
+            s3Service.deleteObjects(List.of("a.txt", "b.txt"));
+
+            ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+            verify(s3Client).deleteObjects(captor.capture());
+            assertEquals(List.of("a.txt", "b.txt"),
+                    captor.getValue().delete().objects().stream().map(ObjectIdentifier::key).toList());
+            assertFalse(captor.getValue().delete().quiet());
+        }
+
+        @Test
+        @DisplayName("should publish one ObjectsDeletedEvent with only the deleted keys")
+        void shouldPublishOneObjectsDeletedEventWithOnlyDeletedKeys() {
+            when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+                    .deleted(DeletedObject.builder().key("a.txt").build())
+                    .errors(S3Error.builder().key("b.txt").code("AccessDenied").build())
+                    .build());
+
+            s3Service.deleteObjects(List.of("a.txt", "b.txt"));
+
+            verify(eventPublisher, times(1)).publishEvent(new ObjectsDeletedEvent(List.of("a.txt")));
+            verify(eventPublisher, never()).publishEvent(any(ObjectChangedEvent.class));
+        }
     }
 
     @Nested
@@ -235,6 +663,134 @@ class S3ServiceTest {
             assertEquals(exceptionMessage, exception.getMessage());
         }
 
+        @Test
+        @DisplayName("should follow continuation tokens until the listing is complete")
+        void shouldFollowContinuationTokensUntilListingIsComplete() {
+            doReturn(
+                    ListObjectsV2Response.builder()
+                            .contents(S3Object.builder().key("file1.txt").build())
+                            .isTruncated(true)
+                            .nextContinuationToken("token")
+                            .build(),
+                    ListObjectsV2Response.builder()
+                            .contents(S3Object.builder().key("file2.txt").build())
+                            .isTruncated(false)
+                            .build()
+            ).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            var output = s3Service.listAll();
+
+            assertEquals(List.of("file1.txt", "file2.txt"), output);
+            verify(s3Client, times(2)).listObjectsV2(listObjectsV2RequestCaptor.capture());
+            assertEquals("token", listObjectsV2RequestCaptor.getAllValues().get(1).continuationToken());
+        }
+
+    }
+
+    @Nested
+    class listPage {
+
+        @Test
+        @DisplayName("should return keys and next continuation token")
+        void shouldReturnKeysAndNextContinuationToken() {
+            doReturn(ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("docs/file1.txt").build())
+                    .commonPrefixes(CommonPrefix.builder().prefix("docs/sub/").build())
+                    .isTruncated(true)
+                    .nextContinuationToken("next")
+                    .build()
+            ).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            var output = s3Service.listPage("docs/", "/", 10, "current");
+
+            verify(s3Client).listObjectsV2(listObjectsV2RequestCaptor.capture());
+            var request = listObjectsV2RequestCaptor.getValue();
+            assertEquals("docs/", request.prefix());
+            assertEquals("/", request.delimiter());
+            assertEquals(10, request.maxKeys());
+            assertEquals("current", request.continuationToken());
+            assertEquals(List.of("docs/sub/", "docs/file1.txt"), output.keys());
+            assertEquals("next", output.nextContinuationToken());
+        }
+
+        @Test
+        @DisplayName("should hide dedup storage keys when dedup is enabled")
+        void shouldHideDedupStorageKeysWhenDedupIsEnabled() {
+            s3Service.hideKeys(key -> key.startsWith(".dedup/"));
+            doReturn(ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("file1.txt").build(), S3Object.builder().key(".dedup/content/abc").build())
+                    .commonPrefixes(CommonPrefix.builder().prefix(".dedup/").build())
+                    .build()
+            ).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            var output = s3Service.listPage(null, null, null, null);
+
+            assertEquals(List.of("file1.txt"), output.keys());
+        }
+
+    }
+
+    @Nested
+    class streamKeys {
+
+        @Test
+        @DisplayName("should lazily stream keys of every page")
+        void shouldLazilyStreamKeysOfEveryPage() {
+            doReturn(
+                    ListObjectsV2Response.builder()
+                            .contents(S3Object.builder().key("file1.txt").build())
+                            .isTruncated(true)
+                            .nextContinuationToken("token")
+                            .build(),
+                    ListObjectsV2Response.builder()
+                            .contents(S3Object.builder().key("file2.txt").build())
+                            .isTruncated(false)
+                            .build()
+            ).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            try (var keys = s3Service.streamKeys("docs/", null)) {
+                verify(s3Client, never()).listObjectsV2(any(ListObjectsV2Request.class));
+                assertEquals(List.of("file1.txt", "file2.txt"), keys.toList());
+            }
+            verify(s3Client, times(2)).listObjectsV2(listObjectsV2RequestCaptor.capture());
+            assertEquals("docs/", listObjectsV2RequestCaptor.getAllValues().get(1).prefix());
+            assertEquals("token", listObjectsV2RequestCaptor.getAllValues().get(1).continuationToken());
+        }
+
+        @Test
+        @DisplayName("should stream objects with their sizes and skip hidden keys")
+        void shouldStreamObjectsAndSkipHiddenKeys() {
+            s3Service.hideKeys(key -> key.startsWith(".dedup/"));
+            doReturn(ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key(".dedup/content/abc").size(5L).build(),
+                            S3Object.builder().key("file1.txt").size(10L).build())
+                    .isTruncated(false)
+                    .build()
+            ).when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            try (var objects = s3Service.streamObjects(null)) {
+                assertEquals(List.of(10L), objects.map(S3Object::size).toList());
+            }
+            verify(s3Client).listObjectsV2(listObjectsV2RequestCaptor.capture());
+            assertNull(listObjectsV2RequestCaptor.getValue().delimiter());
+        }
+
+        @Test
+        @DisplayName("should rethrow the S3 error of a prefetched page as is")
+        void shouldRethrowS3ErrorOfPrefetchedPage() {
+            doReturn(ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("file1.txt").build())
+                    .isTruncated(true)
+                    .nextContinuationToken("token")
+                    .build()
+            ).doThrow(S3Exception.builder().message("denied").build())
+                    .when(s3Client).listObjectsV2(any(ListObjectsV2Request.class));
+
+            try (var keys = s3Service.streamKeys(null, null)) {
+                assertThrows(S3Exception.class, keys::toList);
+            }
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package com.matheusoliveira04.s3flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheusoliveira04.s3flow.dto.UploadJob;
+import com.matheusoliveira04.s3flow.dto.UploadJob.Status;
+import com.matheusoliveira04.s3flow.exceptions.SpoolFullException;
+import com.matheusoliveira04.s3flow.io.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSpoolServiceTest {
+
+    @Mock
+    S3Service s3Service;
+
+    @Mock
+    DedupService dedupService;
+
+    @TempDir
+    Path directory;
+
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    UploadSpoolService uploadSpoolService;
+
+    Map<String, String> uploaded = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        uploadSpoolService = new UploadSpoolService(s3Service, dedupService, new BufferPool(DataSize.ofBytes(4), 2), objectMapper);
+        ReflectionTestUtils.setField(uploadSpoolService, "enabled", true);
+        ReflectionTestUtils.setField(uploadSpoolService, "directory", directory);
+        ReflectionTestUtils.setField(uploadSpoolService, "maxSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(uploadSpoolService, "maxWait", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(uploadSpoolService, "workers", 1);
+        ReflectionTestUtils.setField(uploadSpoolService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(uploadSpoolService, "retryDelay", Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadSpoolService.shutdown();
+    }
+
+    @Nested
+    class submit {
+
+        @Test
+        @DisplayName("should acknowledge the upload and then drain it to S3")
+        void shouldAcknowledgeUploadAndThenDrainItToS3() throws Exception {
+            recordUploads();
+            uploadSpoolService.initialize();
+
+            UploadJob job = submit("a.txt", "spooled content");
+
+            assertEquals(Status.PENDING, job.status());
+            assertEquals(15, job.size());
+            assertEquals(Status.UPLOADED, awaitFinished(job.id()).status());
+            assertEquals("spooled content", uploaded.get("a.txt"));
+            try (var files = Files.list(directory)) {
+                assertEquals(List.of(directory.resolve("failed")), files.toList());
+            }
+        }
+
+        @Test
+        @DisplayName("should retry failed uploads and give up after the last attempt")
+        void shouldRetryFailedUploadsAndGiveUpAfterLastAttempt() throws Exception {
+            doThrow(SdkClientException.create("unreachable")).when(s3Service).uploadStream(eq("a.txt"), any(), any());
+            uploadSpoolService.initialize();
+
+            UploadJob job = awaitFinished(submit("a.txt", "content").id());
+
+            assertEquals(Status.FAILED, job.status());
+            assertEquals(3, job.attempts());
+            verify(s3Service, times(3)).uploadStream(eq("a.txt"), any(), any());
+            assertTrue(Files.exists(directory.resolve("failed").resolve(job.id() + ".data")));
+        }
+
+        @Test
+        @DisplayName("should retry and fail uploads that throw an unexpected runtime exception")
+        void shouldRetryAndFailUploadsThatThrowUnexpectedRuntimeException() throws Exception {
+            doThrow(new IllegalStateException("bug")).when(s3Service).uploadStream(eq("a.txt"), any(), any());
+            uploadSpoolService.initialize();
+
+            UploadJob job = awaitFinished(submit("a.txt", "content").id());
+
+            assertEquals(Status.FAILED, job.status());
+            assertEquals(3, job.attempts());
+            assertEquals("bug", job.error());
+        }
+
+        @Test
+        @DisplayName("should give the space of failed uploads back to the spool")
+        void shouldGiveSpaceOfFailedUploadsBackToSpool() throws Exception {
+            ReflectionTestUtils.setField(uploadSpoolService, "maxSize", DataSize.ofBytes(8));
+            ReflectionTestUtils.setField(uploadSpoolService, "maxAttempts", 1);
+            doThrow(SdkClientException.create("unreachable")).when(s3Service).uploadStream(eq("a.txt"), any(), any());
+            doNothing().when(s3Service).uploadStream(eq("b.txt"), any(), any());
+            uploadSpoolService.initialize();
+
+            assertEquals(Status.FAILED, awaitFinished(submit("a.txt", "8 bytes!").id()).status());
+
+            assertEquals(Status.UPLOADED, awaitFinished(submit("b.txt", "8 bytes!").id()).status());
+        }
+
+        @Test
+        @DisplayName("should reject uploads larger than the spool without waiting")
+        void shouldRejectUploadsLargerThanSpool() throws Exception {
+            ReflectionTestUtils.setField(uploadSpoolService, "maxSize", DataSize.ofBytes(8));
+            uploadSpoolService.initialize();
+
+            assertThrows(SpoolFullException.class, () -> submit("a.txt", "more than eight bytes"));
+
+            try (var files = Files.list(directory)) {
+                assertEquals(List.of(directory.resolve("failed")), files.toList());
+            }
+            verifyNoInteractions(s3Service);
+        }
+
+        @Test
+        @DisplayName("should reserve the declared length before reading the body")
+        void shouldReserveDeclaredLengthBeforeReadingBody() throws Exception {
+            recordUploads();
+            uploadSpoolService.initialize();
+            var reading = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            InputStream slow = new ByteArrayInputStream("first".getBytes()) {
+                @Override
+                public synchronized int read(byte[] buffer, int offset, int length) {
+                    reading.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.read(buffer, offset, length);
+                }
+            };
+
+            var first = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return uploadSpoolService.submit("a.txt", "text/plain", 60, slow);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertThrows(SpoolFullException.class,
+                    () -> uploadSpoolService.submit("b.txt", "text/plain", 5, new ByteArrayInputStream("other".getBytes())));
+            release.countDown();
+            assertEquals(Status.UPLOADED, awaitFinished(first.get(5, TimeUnit.SECONDS).id()).status());
+            assertEquals(Status.UPLOADED, awaitFinished(submit("b.txt", "other").id()).status());
+        }
+
+        @Test
+        @DisplayName("should reject an upload of unknown length as soon as it outgrows the spool")
+        void shouldRejectUploadOfUnknownLengthAsSoonAsItOutgrowsSpool() throws Exception {
+            ReflectionTestUtils.setField(uploadSpoolService, "maxSize", DataSize.ofBytes(8));
+            ReflectionTestUtils.setField(uploadSpoolService, "maxWait", Duration.ofSeconds(30));
+            uploadSpoolService.initialize();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(SpoolFullException.class,
+                    () -> uploadSpoolService.submit("a.txt", "text/plain", -1,
+                            new ByteArrayInputStream("more than eight bytes".getBytes()))));
+            assertEquals(Status.UPLOADED, awaitFinished(submit("a.txt", "8 bytes!").id()).status());
+        }
+
+        @Test
+        @DisplayName("should drop an older upload of a key once a newer one is accepted")
+        void shouldDropOlderUploadOfKeyOnceNewerOneIsAccepted() throws Exception {
+            var started = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                if (uploaded.isEmpty() && started.getCount() > 0) {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                uploaded.merge(invocation.getArgument(0), new String(((InputStream) invocation.getArgument(2)).readAllBytes()),
+                        (previous, next) -> previous + "," + next);
+                return null;
+            }).when(s3Service).uploadStream(anyString(), any(), any());
+            uploadSpoolService.initialize();
+
+            UploadJob blocking = submit("other.txt", "blocking");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            UploadJob older = submit("a.txt", "older");
+            UploadJob newer = submit("a.txt", "newer");
+            release.countDown();
+
+            assertEquals(Status.UPLOADED, awaitFinished(blocking.id()).status());
+            assertEquals(Status.SUPERSEDED, awaitFinished(older.id()).status());
+            assertEquals(Status.UPLOADED, awaitFinished(newer.id()).status());
+            assertEquals("newer", uploaded.get("a.txt"));
+        }
+    }
+
+    @Nested
+    class initialize {
+
+        @Test
+        @DisplayName("should replay spooled jobs and discard unacknowledged leftovers")
+        void shouldReplaySpooledJobsAndDiscardUnacknowledgedLeftovers() throws Exception {
+            recordUploads();
+            Files.writeString(directory.resolve("job-1.data"), "survived a crash");
+            objectMapper.writeValue(directory.resolve("job-1.json").toFile(),
+                    new UploadSpoolService.Job("job-1", "a.txt", "text/plain", 16, Instant.now()));
+            Files.writeString(directory.resolve("job-2.data.part"), "half written");
+            Files.writeString(directory.resolve("job-3.data"), "no manifest");
+
+            uploadSpoolService.initialize();
+
+            assertEquals(Status.UPLOADED, awaitFinished("job-1").status());
+            assertEquals("survived a crash", uploaded.get("a.txt"));
+            verify(s3Service, times(1)).uploadStream(any(), any(), any());
+            assertFalse(Files.exists(directory.resolve("job-2.data.part")));
+            assertFalse(Files.exists(directory.resolve("job-3.data")));
+        }
+    }
+
+    private UploadJob submit(String key, String content) throws IOException {
+        return uploadSpoolService.submit(key, "text/plain", content.length(), new ByteArrayInputStream(content.getBytes()));
+    }
+
+    private void recordUploads() throws IOException {
+        doAnswer(invocation -> {
+            uploaded.put(invocation.getArgument(0), new String(((InputStream) invocation.getArgument(2)).readAllBytes()));
+            return null;
+        }).when(s3Service).uploadStream(anyString(), any(), any());
+    }
+
+    private UploadJob awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        UploadJob job = uploadSpoolService.status(id);
+        while (job.status() == Status.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            job = uploadSpoolService.status(id);
+        }
+        return job;
+    }
+}